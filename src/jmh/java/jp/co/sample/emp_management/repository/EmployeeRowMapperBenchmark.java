@@ -0,0 +1,98 @@
+package jp.co.sample.emp_management.repository;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import jp.co.sample.emp_management.domain.Employee;
+
+/**
+ * EmployeeRepositoryのローマッパーのスループットを計測するベンチマーク.
+ *
+ * H2のインメモリデータベースに従業員を登録し、列名で値を取り出すEMPLOYEE_ROW_MAPPERと、
+ * 列番号で値を取り出すローマッパーで全件を読み込む時間を比較します.
+ * どちらも同じSQLを実行するため、差がマッピングの違いによる時間です.
+ *
+ * @author yu.konishi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EmployeeRowMapperBenchmark {
+
+	private static final String SELECT_SQL = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees ORDER BY id";
+
+	/**
+	 * 列番号で値を取り出すローマッパー.
+	 */
+	private static final RowMapper<Employee> EMPLOYEE_INDEX_ROW_MAPPER = (rs, i) -> {
+		Employee employee = new Employee();
+		employee.setId(rs.getInt(1));
+		employee.setName(rs.getString(2));
+		employee.setImage(rs.getString(3));
+		employee.setGender(rs.getString(4));
+		employee.setHireDate(rs.getDate(5));
+		employee.setMailAddress(rs.getString(6));
+		employee.setZipCode(rs.getString(7));
+		employee.setAddress(rs.getString(8));
+		employee.setTelephone(rs.getString(9));
+		employee.setSalary(rs.getInt(10));
+		employee.setCharacteristics(rs.getString(11));
+		employee.setDependentsCount(rs.getInt(12));
+		return employee;
+	};
+
+	/** 登録する従業員の件数 */
+	@Param({ "10", "1000" })
+	private int rowCount;
+
+	private SingleConnectionDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Setup
+	public void setUp() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:row_mapper;DB_CLOSE_DELAY=-1", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS employees");
+		jdbcTemplate.execute("CREATE TABLE employees (id integer primary key, name text not null, image text not null,"
+				+ " gender text not null, hire_date date not null, mail_address text not null, zip_code text not null,"
+				+ " address text not null, telephone text not null, salary integer not null,"
+				+ " characteristics text not null, dependents_count integer not null)");
+		for (int i = 1; i <= rowCount; i++) {
+			jdbcTemplate.update("INSERT INTO employees VALUES (?,?,?,?,?,?,?,?,?,?,?,?)", i, "山田太郎" + i,
+					"0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.png", "男性",
+					Date.valueOf("2012-11-29"), "taro" + i + "@sample.com", "160-0022", "東京都新宿区新宿1-1-1",
+					"090-0000-0000", 400000, "明るく素直な性格です。リーダーシップを発揮します。", 3);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		dataSource.destroy();
+	}
+
+	@Benchmark
+	public List<Employee> mapByColumnName() {
+		return jdbcTemplate.query(SELECT_SQL, EmployeeRepository.EMPLOYEE_ROW_MAPPER);
+	}
+
+	@Benchmark
+	public List<Employee> mapByColumnIndex() {
+		return jdbcTemplate.query(SELECT_SQL, EMPLOYEE_INDEX_ROW_MAPPER);
+	}
+}
@@ -0,0 +1,64 @@
+package jp.co.sample.emp_management.repository;
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+
+import jp.co.sample.emp_management.domain.Employee;
+
+/**
+ * 従業員情報の挿入で使うパラメーターソースの生成と値の取り出しにかかる時間を計測するベンチマーク.
+ *
+ * NamedParameterJdbcTemplateと同じく、SQLのパラメーター名の順に値の配列を作るまでを計測します.
+ * EmployeeRepository.insertが使うBeanPropertySqlParameterSource(リフレクションでgetterを呼び出す)と、
+ * 値を直接詰めるMapSqlParameterSourceを比較します.
+ *
+ * @author yu.konishi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParameterSourceBenchmark {
+
+	private static final String INSERT_SQL = "insert into employees(id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count)values(:id,:name,:image,:gender,:hireDate,:mailAddress,:zipCode,:address,:telephone,:salary,:characteristics,:dependentsCount);";
+
+	private ParsedSql parsedSql;
+
+	private Employee employee;
+
+	@Setup
+	public void setUp() {
+		parsedSql = NamedParameterUtils.parseSqlStatement(INSERT_SQL);
+		employee = new Employee(1, "山田太郎", "0123456789abcdef.png", "男性", Date.valueOf("2012-11-29"),
+				"taro.yamada@sample.com", "160-0022", "東京都新宿区新宿1-1-1", "090-0000-0000", 400000, "明るく素直な性格です。", 3);
+	}
+
+	@Benchmark
+	public Object[] beanPropertySqlParameterSource() {
+		return NamedParameterUtils.buildValueArray(parsedSql, new BeanPropertySqlParameterSource(employee), null);
+	}
+
+	@Benchmark
+	public Object[] mapSqlParameterSource() {
+		MapSqlParameterSource param = new MapSqlParameterSource().addValue("id", employee.getId())
+				.addValue("name", employee.getName()).addValue("image", employee.getImage())
+				.addValue("gender", employee.getGender()).addValue("hireDate", employee.getHireDate())
+				.addValue("mailAddress", employee.getMailAddress()).addValue("zipCode", employee.getZipCode())
+				.addValue("address", employee.getAddress()).addValue("telephone", employee.getTelephone())
+				.addValue("salary", employee.getSalary()).addValue("characteristics", employee.getCharacteristics())
+				.addValue("dependentsCount", employee.getDependentsCount());
+		return NamedParameterUtils.buildValueArray(parsedSql, param, null);
+	}
+}
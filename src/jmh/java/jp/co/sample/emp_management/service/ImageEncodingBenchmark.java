@@ -0,0 +1,62 @@
+package jp.co.sample.emp_management.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 従業員の写真の大きさごとに、画像の変換にかかる時間を計測するベンチマーク.
+ *
+ * 以前の登録処理と画像の移行処理が行うdata URI(Base64)への変換と復元と、
+ * 現在の画像ストアが行う画像のキー(SHA-256)の計算を比較します.
+ *
+ * @author yu.konishi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ImageEncodingBenchmark {
+
+	/** 画像の大きさ(バイト) 小さな顔写真、一般的な写真、大きな写真 */
+	@Param({ "51200", "262144", "2097152" })
+	private int imageSize;
+
+	private byte[] image;
+
+	private String dataUri;
+
+	@Setup
+	public void setUp() {
+		image = new byte[imageSize];
+		// 圧縮済みの画像に近い、偏りの無いデータにします
+		new Random(1).nextBytes(image);
+		dataUri = encodeDataUri();
+	}
+
+	@Benchmark
+	public String encodeDataUri() {
+		return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(image);
+	}
+
+	@Benchmark
+	public byte[] decodeDataUri() {
+		return Base64.getDecoder().decode(dataUri.substring(dataUri.indexOf(',') + 1));
+	}
+
+	@Benchmark
+	public byte[] sha256Key() throws NoSuchAlgorithmException {
+		return MessageDigest.getInstance("SHA-256").digest(image);
+	}
+}
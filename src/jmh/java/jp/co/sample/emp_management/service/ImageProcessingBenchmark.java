@@ -0,0 +1,97 @@
+package jp.co.sample.emp_management.service;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jp.co.sample.emp_management.domain.ProcessedImage;
+
+/**
+ * スマートフォンの写真の画素数ごとに、アップロードされた画像の変換のスループットとメモリの割り当て量を計測するベンチマーク.
+ *
+ * ImageTransformerによる間引きながらの展開と、元の解像度のまま展開してから縮小する方法を比較します.
+ * メモリの割り当て量はjmhプロファイルが既定で指定する「-prof gc」で計測し、1回の変換あたりの割り当て量
+ * (gc.alloc.rate.norm)を副次的な結果としてjmh-result.jsonに出力します
+ * (例: mvn -P jmh -DskipTests -Djmh.include=ImageProcessing verify).
+ *
+ * @author yu.konishi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ImageProcessingBenchmark {
+
+	/** 写真の大きさ(幅x高さ) 200万画素、800万画素、1200万画素 */
+	@Param({ "1600x1200", "3264x2448", "4000x3000" })
+	private String resolution;
+
+	private byte[] jpeg;
+
+	private ImageTransformer imageTransformer;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		int width = Integer.parseInt(resolution.substring(0, resolution.indexOf('x')));
+		int height = Integer.parseInt(resolution.substring(resolution.indexOf('x') + 1));
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		// 写真に近い圧縮率になるよう、グラデーションにノイズを重ねます
+		graphics.setPaint(new GradientPaint(0, 0, new Color(40, 90, 160), width, height, new Color(230, 190, 120)));
+		graphics.fillRect(0, 0, width, height);
+		graphics.dispose();
+		Random random = new Random(1);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int noise = random.nextInt(32) - 16;
+				int rgb = image.getRGB(x, y);
+				int r = clamp(((rgb >> 16) & 0xff) + noise);
+				int g = clamp(((rgb >> 8) & 0xff) + noise);
+				int b = clamp((rgb & 0xff) + noise);
+				image.setRGB(x, y, (r << 16) | (g << 8) | b);
+			}
+		}
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", outputStream);
+		jpeg = outputStream.toByteArray();
+		imageTransformer = new ImageTransformer(50000000, 640, 0.85f);
+	}
+
+	private static int clamp(int value) {
+		return Math.max(0, Math.min(255, value));
+	}
+
+	@Benchmark
+	public ProcessedImage transform() throws IOException {
+		return imageTransformer.transform(new ByteArrayInputStream(jpeg));
+	}
+
+	@Benchmark
+	public BufferedImage fullDecodeAndScale() throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+		BufferedImage display = new BufferedImage(640, 640 * image.getHeight() / image.getWidth(),
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = display.createGraphics();
+		graphics.drawImage(image, 0, 0, display.getWidth(), display.getHeight(), null);
+		graphics.dispose();
+		return display;
+	}
+}
@@ -0,0 +1,46 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCryptのコストごとに、ログイン時のパスワードの照合にかかる時間を計測するベンチマーク.
+ *
+ * BCryptCostCalibratorが起動時に選ぶコストの妥当性や、password.bcrypt.target-millisの見直しに使います.
+ *
+ * @author yu.konishi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordVerificationBenchmark {
+
+	/** BCryptのコスト */
+	@Param({ "8", "10", "12" })
+	private int cost;
+
+	private BCryptPasswordEncoder passwordEncoder;
+
+	private String encodedPassword;
+
+	@Setup
+	public void setUp() {
+		passwordEncoder = new BCryptPasswordEncoder(cost);
+		encodedPassword = passwordEncoder.encode("password1");
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return passwordEncoder.matches("password1", encodedPassword);
+	}
+}
@@ -0,0 +1,187 @@
+package jp.co.sample.emp_management.loadtest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * 負荷テスト用のデータベース.
+ *
+ * JDBC URLが指定されていない場合は組み込みPostgreSQLを起動します.
+ * documents/sql/sql.txtでテーブルを作り直し、sql.txtの従業員を雛形として指定した件数の従業員と、
+ * ログイン用の管理者を登録します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class LoadTestDatabase implements Closeable {
+
+	/** ログイン用の管理者のメールアドレス */
+	public static final String ADMINISTRATOR_MAIL_ADDRESS = "loadtest@example.com";
+
+	/** ログイン用の管理者のパスワード */
+	public static final String ADMINISTRATOR_PASSWORD = "loadtest";
+
+	/** 雛形の従業員を複製して登録するSQL(氏名とメールアドレスには連番を付け、入社日はずらします) */
+	private static final String SEED_SQL = "WITH template AS ("
+			+ "SELECT row_number() OVER (ORDER BY id) - 1 AS template_index, * FROM employees), "
+			+ "summary AS (SELECT count(*) AS template_count, max(id) AS max_id FROM employees) "
+			+ "INSERT INTO employees(id, name, image, gender, hire_date, mail_address, zip_code, address, telephone, "
+			+ "salary, characteristics, dependents_count) "
+			+ "SELECT summary.max_id + g, template.name || g, template.image, template.gender, "
+			+ "template.hire_date - (g % 3650) * interval '1 day', 'loadtest' || g || '.' || template.mail_address, "
+			+ "template.zip_code, template.address, template.telephone, template.salary, template.characteristics, "
+			+ "template.dependents_count "
+			+ "FROM generate_series(1, ?) AS g CROSS JOIN summary "
+			+ "JOIN template ON template.template_index = g % summary.template_count";
+
+	/** 組み込みPostgreSQL 外部のデータベースを使う場合はnull */
+	private final EmbeddedPostgres embeddedPostgres;
+
+	private final String url;
+
+	private final String username;
+
+	private final String password;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param url
+	 *            JDBC URL 空の場合は組み込みPostgreSQLを起動します
+	 * @param username
+	 *            ユーザー名
+	 * @param password
+	 *            パスワード
+	 * @throws IOException
+	 *             組み込みPostgreSQLを起動できなかった場合
+	 */
+	public LoadTestDatabase(String url, String username, String password) throws IOException {
+		if (url == null || url.isEmpty()) {
+			this.embeddedPostgres = EmbeddedPostgres.builder().start();
+			this.url = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+			this.username = "postgres";
+			this.password = "postgres";
+		} else {
+			this.embeddedPostgres = null;
+			this.url = url;
+			this.username = username;
+			this.password = password;
+		}
+	}
+
+	/**
+	 * sql.txtでテーブルを作り直し、従業員とログイン用の管理者を登録します.
+	 *
+	 * @param sqlFile
+	 *            documents/sql/sql.txt
+	 * @param employeeCount
+	 *            追加する従業員の件数
+	 * @throws SQLException
+	 *             登録に失敗した場合
+	 */
+	public void seed(File sqlFile, int employeeCount) throws SQLException {
+		try (Connection connection = getConnection()) {
+			ScriptUtils.executeSqlScript(connection,
+					new EncodedResource(new FileSystemResource(sqlFile), StandardCharsets.UTF_8));
+			try (PreparedStatement statement = connection.prepareStatement(SEED_SQL)) {
+				statement.setInt(1, employeeCount);
+				statement.executeUpdate();
+			}
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO administrators(name, mail_address, password) VALUES('負荷テスト', ?, ?)")) {
+				statement.setString(1, ADMINISTRATOR_MAIL_ADDRESS);
+				statement.setString(2, new BCryptPasswordEncoder().encode(ADMINISTRATOR_PASSWORD));
+				statement.executeUpdate();
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SELECT setval('employees_id_seq', (SELECT max(id) FROM employees))");
+				statement.execute("ANALYZE");
+			}
+		}
+	}
+
+	/**
+	 * 登録されている従業員IDを取得します.
+	 *
+	 * @return 従業員ID
+	 * @throws SQLException
+	 *             取得に失敗した場合
+	 */
+	public List<Integer> findEmployeeIds() throws SQLException {
+		return queryList("SELECT id FROM employees ORDER BY id", Integer.class);
+	}
+
+	/**
+	 * 従業員名検索の検索ワードとして使う、従業員名の先頭2文字(姓)を取得します.
+	 *
+	 * @return 検索ワード
+	 * @throws SQLException
+	 *             取得に失敗した場合
+	 */
+	public List<String> findSearchWords() throws SQLException {
+		return queryList("SELECT DISTINCT substr(name, 1, 2) FROM employees ORDER BY 1", String.class);
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (embeddedPostgres != null) {
+			embeddedPostgres.close();
+		}
+	}
+
+	/**
+	 * 1列の検索結果を一覧で取得します.
+	 *
+	 * @param sql
+	 *            SQL
+	 * @param type
+	 *            列の型
+	 * @return 検索結果
+	 * @throws SQLException
+	 *             取得に失敗した場合
+	 */
+	private <T> List<T> queryList(String sql, Class<T> type) throws SQLException {
+		List<T> list = new ArrayList<>();
+		try (Connection connection = getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery(sql)) {
+			while (rs.next()) {
+				list.add(rs.getObject(1, type));
+			}
+		}
+		return list;
+	}
+
+	private Connection getConnection() throws SQLException {
+		return DriverManager.getConnection(url, username, password);
+	}
+}
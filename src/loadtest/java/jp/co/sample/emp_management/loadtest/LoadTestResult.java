@@ -0,0 +1,119 @@
+package jp.co.sample.emp_management.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * 1つのシナリオの計測結果.
+ *
+ * @author yu.konishi
+ *
+ */
+public class LoadTestResult {
+
+	/** シナリオ名 */
+	private final String name;
+
+	/** アプリケーションのリクエストの処理方式(execution.mode) */
+	private final String executionMode;
+
+	/** 成功したリクエストの応答時間(マイクロ秒) */
+	private final Histogram histogram;
+
+	/** 失敗したリクエスト数(4xx、5xxの応答と通信エラー) */
+	private final long errorCount;
+
+	/** 計測時間(ナノ秒) */
+	private final long elapsedNanos;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param name
+	 *            シナリオ名
+	 * @param executionMode
+	 *            アプリケーションのリクエストの処理方式
+	 * @param histogram
+	 *            成功したリクエストの応答時間(マイクロ秒)
+	 * @param errorCount
+	 *            失敗したリクエスト数
+	 * @param elapsedNanos
+	 *            計測時間(ナノ秒)
+	 */
+	public LoadTestResult(String name, String executionMode, Histogram histogram, long errorCount,
+			long elapsedNanos) {
+		this.name = name;
+		this.executionMode = executionMode;
+		this.histogram = histogram;
+		this.errorCount = errorCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * 1秒あたりの成功したリクエスト数を求めます.
+	 *
+	 * @return 1秒あたりのリクエスト数
+	 */
+	public double getRequestsPerSecond() {
+		return histogram.getTotalCount() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * 応答時間のパーセンタイル値をミリ秒で求めます.
+	 *
+	 * @param percentile
+	 *            パーセンタイル(0〜100)
+	 * @return 応答時間(ミリ秒)
+	 */
+	public double getLatencyMillis(double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	/**
+	 * JSONに出力する形式に変換します.
+	 *
+	 * @return 項目名と値
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("endpoint", name);
+		map.put("mode", executionMode);
+		map.put("requests", histogram.getTotalCount());
+		map.put("errors", errorCount);
+		map.put("requestsPerSecond", getRequestsPerSecond());
+		map.put("p50Millis", getLatencyMillis(50));
+		map.put("p95Millis", getLatencyMillis(95));
+		map.put("p99Millis", getLatencyMillis(99));
+		map.put("maxMillis", histogram.getMaxValue() / 1000.0);
+		return map;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getExecutionMode() {
+		return executionMode;
+	}
+
+	public long getRequestCount() {
+		return histogram.getTotalCount();
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public double getMaxMillis() {
+		return histogram.getMaxValue() / 1000.0;
+	}
+
+	@Override
+	public String toString() {
+		return "LoadTestResult " + toMap();
+	}
+
+}
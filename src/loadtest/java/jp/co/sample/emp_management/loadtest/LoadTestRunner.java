@@ -0,0 +1,329 @@
+package jp.co.sample.emp_management.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jp.co.sample.emp_management.ExEmpManageAnswerApplication;
+
+/**
+ * HTTPの負荷テストを実行します.
+ *
+ * PostgreSQLに従業員を登録してアプリケーションを起動し、シナリオごとに指定したスレッド数で
+ * 応答を待ってから次のリクエストを送信し続け、ウォームアップ後の応答時間のパーセンタイル値と
+ * 1秒あたりのリクエスト数を出力します. 設定はシステムプロパティ(loadtest.*)で指定します.
+ * loadtest.execution-modesに複数のリクエストの処理方式(execution.mode)を指定した場合は、
+ * 処理方式ごとにアプリケーションを起動し直して同じシナリオを計測します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class LoadTestRunner {
+
+	/** 1回のリクエストの接続と読み込みのタイムアウト(ミリ秒) */
+	private static final int TIMEOUT_MILLIS = 30000;
+
+	/** 従業員一覧の1ページの件数 */
+	private static final int PAGE_SIZE = 10;
+
+	private final int concurrency;
+
+	private final int warmupSeconds;
+
+	private final int durationSeconds;
+
+	/** 計測対象のアプリケーションのURL(http://localhost:ポート番号) */
+	private String baseUrl;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param concurrency
+	 *            同時に送信するスレッド数
+	 * @param warmupSeconds
+	 *            ウォームアップ時間(秒)
+	 * @param durationSeconds
+	 *            計測時間(秒)
+	 */
+	public LoadTestRunner(int concurrency, int warmupSeconds, int durationSeconds) {
+		this.concurrency = concurrency;
+		this.warmupSeconds = warmupSeconds;
+		this.durationSeconds = durationSeconds;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int employeeCount = Integer.getInteger("loadtest.employees", 10000);
+		LoadTestRunner runner = new LoadTestRunner(Integer.getInteger("loadtest.concurrency", 16),
+				Integer.getInteger("loadtest.warmup-seconds", 5), Integer.getInteger("loadtest.duration-seconds", 30));
+		List<String> scenarioNameList = Arrays.asList(
+				System.getProperty("loadtest.scenarios", "showList10,showDetail,searchName,login").split(","));
+		List<String> executionModeList = Arrays
+				.asList(System.getProperty("loadtest.execution-modes", "platform").split(","));
+		File sqlFile = new File(System.getProperty("loadtest.sql-file", "documents/sql/sql.txt"));
+		File resultFile = new File(System.getProperty("loadtest.result-file", "target/loadtest-result.json"));
+
+		List<LoadTestResult> resultList = new ArrayList<>();
+		try (LoadTestDatabase database = new LoadTestDatabase(System.getProperty("loadtest.jdbc-url"),
+				System.getProperty("loadtest.username", "postgres"),
+				System.getProperty("loadtest.password", "postgres"))) {
+			long seedStartNanos = System.nanoTime();
+			database.seed(sqlFile, employeeCount);
+			System.out.printf("従業員を%d件登録しました(%dミリ秒)%n", employeeCount,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStartNanos));
+			List<LoadTestScenario> scenarioList = createScenarios(database.findEmployeeIds(),
+					database.findSearchWords());
+
+			for (String executionMode : executionModeList) {
+				try (ConfigurableApplicationContext context = startApplication(database, executionMode)) {
+					runner.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+					for (LoadTestScenario scenario : scenarioList) {
+						if (scenarioNameList.contains(scenario.getName())) {
+							System.out.printf("%sを計測しています(%s)...%n", scenario.getName(), executionMode);
+							resultList.add(runner.run(scenario, executionMode));
+						}
+					}
+				}
+			}
+		}
+
+		printResults(resultList);
+		writeResults(resultFile, employeeCount, runner, resultList);
+	}
+
+	/**
+	 * シナリオを1つ実行します.
+	 *
+	 * @param scenario
+	 *            シナリオ
+	 * @param executionMode
+	 *            アプリケーションのリクエストの処理方式
+	 * @return 計測結果
+	 * @throws Exception
+	 *             スレッドが異常終了した場合
+	 */
+	public LoadTestResult run(LoadTestScenario scenario, String executionMode) throws Exception {
+		long measureStartNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<long[]>> futureList = new ArrayList<>();
+			List<Histogram> histogramList = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				// スレッドごとに記録し、終了後に合算します
+				Histogram histogram = new Histogram(3);
+				histogramList.add(histogram);
+				futureList.add(executor.submit(() -> {
+					Random random = ThreadLocalRandom.current();
+					long errorCount = 0;
+					while (true) {
+						long startNanos = System.nanoTime();
+						if (startNanos >= endNanos) {
+							return new long[] { errorCount };
+						}
+						boolean succeeded = send(scenario, random);
+						if (startNanos < measureStartNanos) {
+							continue;
+						}
+						if (succeeded) {
+							histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+						} else {
+							errorCount++;
+						}
+					}
+				}));
+			}
+			Histogram totalHistogram = new Histogram(3);
+			long totalErrorCount = 0;
+			for (int i = 0; i < concurrency; i++) {
+				totalErrorCount += futureList.get(i).get()[0];
+				totalHistogram.add(histogramList.get(i));
+			}
+			return new LoadTestResult(scenario.getName(), executionMode, totalHistogram, totalErrorCount,
+					endNanos - measureStartNanos);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * リクエストを1回送信し、レスポンスを最後まで読み込みます.
+	 *
+	 * @param scenario
+	 *            シナリオ
+	 * @param random
+	 *            乱数
+	 * @return 2xxか3xxの応答を受け取った場合はtrue
+	 */
+	private boolean send(LoadTestScenario scenario, Random random) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + scenario.nextPath(random))
+					.openConnection();
+			connection.setRequestMethod(scenario.getMethod());
+			connection.setInstanceFollowRedirects(false);
+			connection.setConnectTimeout(TIMEOUT_MILLIS);
+			connection.setReadTimeout(TIMEOUT_MILLIS);
+			if (scenario.getBody() != null) {
+				connection.setDoOutput(true);
+				connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(scenario.getBody().getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			int status = connection.getResponseCode();
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (in != null) {
+				// 最後まで読み込んで閉じるとkeep-aliveでコネクションが再利用されます
+				try (InputStream body = in) {
+					byte[] buffer = new byte[8192];
+					while (body.read(buffer) != -1) {
+					}
+				}
+			}
+			return status < 400;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 計測するシナリオを生成します.
+	 *
+	 * @param employeeIdList
+	 *            登録されている従業員ID
+	 * @param searchWordList
+	 *            従業員名検索の検索ワード
+	 * @return シナリオ
+	 */
+	private static List<LoadTestScenario> createScenarios(List<Integer> employeeIdList,
+			List<String> searchWordList) {
+		int pageCount = (employeeIdList.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+		List<LoadTestScenario> scenarioList = new ArrayList<>();
+		scenarioList.add(new LoadTestScenario("showList10", "GET",
+				random -> "/employee/showList10?pageNum=" + (random.nextInt(pageCount) + 1), null));
+		scenarioList.add(new LoadTestScenario("showDetail", "GET",
+				random -> "/employee/showDetail?id=" + employeeIdList.get(random.nextInt(employeeIdList.size())),
+				null));
+		scenarioList.add(new LoadTestScenario("searchName", "GET",
+				random -> "/employee/searchName?searchWord="
+						+ encode(searchWordList.get(random.nextInt(searchWordList.size()))),
+				null));
+		scenarioList.add(new LoadTestScenario("login", "POST", random -> "/login",
+				"mailAddress=" + encode(LoadTestDatabase.ADMINISTRATOR_MAIL_ADDRESS) + "&password="
+						+ encode(LoadTestDatabase.ADMINISTRATOR_PASSWORD)));
+		return scenarioList;
+	}
+
+	/**
+	 * アプリケーションをランダムなポートで起動します.
+	 *
+	 * @param database
+	 *            接続するデータベース
+	 * @param executionMode
+	 *            リクエストの処理方式(execution.mode)
+	 * @return アプリケーションコンテキスト
+	 * @throws IOException
+	 *             画像保存ディレクトリを作成できなかった場合
+	 */
+	private static ConfigurableApplicationContext startApplication(LoadTestDatabase database, String executionMode)
+			throws IOException {
+		// mainメソッドから起動するとdevtoolsが再起動しようとするため無効にします
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		List<String> argList = new ArrayList<>();
+		argList.add("--server.port=0");
+		argList.add("--spring.datasource.url=" + database.getUrl());
+		argList.add("--spring.datasource.username=" + database.getUsername());
+		argList.add("--spring.datasource.password=" + database.getPassword());
+		argList.add("--spring.r2dbc.url=r2dbc:" + database.getUrl().substring("jdbc:".length()));
+		argList.add("--image.store.directory=" + Files.createTempDirectory("loadtest-images"));
+		argList.add("--execution.mode=" + executionMode);
+		argList.add("--spring.main.banner-mode=off");
+		argList.add("--logging.level.root=WARN");
+		String appArgs = System.getProperty("loadtest.app-args", "").trim();
+		if (!appArgs.isEmpty()) {
+			argList.addAll(Arrays.asList(appArgs.split("\\s+")));
+		}
+		return SpringApplication.run(ExEmpManageAnswerApplication.class, argList.toArray(new String[0]));
+	}
+
+	/**
+	 * 計測結果を表形式で標準出力に出力します.
+	 *
+	 * @param resultList
+	 *            計測結果
+	 */
+	private static void printResults(List<LoadTestResult> resultList) {
+		System.out.printf("%-12s %-9s %10s %8s %10s %10s %10s %10s %10s%n", "endpoint", "mode", "requests", "errors", "req/s",
+				"p50(ms)", "p95(ms)", "p99(ms)", "max(ms)");
+		for (LoadTestResult result : resultList) {
+			System.out.printf("%-12s %-9s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", result.getName(),
+					result.getExecutionMode(), result.getRequestCount(), result.getErrorCount(), result.getRequestsPerSecond(),
+					result.getLatencyMillis(50), result.getLatencyMillis(95), result.getLatencyMillis(99),
+					result.getMaxMillis());
+		}
+	}
+
+	/**
+	 * 計測条件と計測結果をJSONファイルに出力します.
+	 *
+	 * @param resultFile
+	 *            出力先のファイル
+	 * @param employeeCount
+	 *            登録した従業員の件数
+	 * @param runner
+	 *            計測条件
+	 * @param resultList
+	 *            計測結果
+	 * @throws IOException
+	 *             出力に失敗した場合
+	 */
+	private static void writeResults(File resultFile, int employeeCount, LoadTestRunner runner,
+			List<LoadTestResult> resultList) throws IOException {
+		Map<String, Object> root = new LinkedHashMap<>();
+		root.put("employees", employeeCount);
+		root.put("concurrency", runner.concurrency);
+		root.put("warmupSeconds", runner.warmupSeconds);
+		root.put("durationSeconds", runner.durationSeconds);
+		List<Map<String, Object>> resultMapList = new ArrayList<>();
+		for (LoadTestResult result : resultList) {
+			resultMapList.add(result.toMap());
+		}
+		root.put("results", resultMapList);
+		File parent = resultFile.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			Files.createDirectories(parent.toPath());
+		}
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(resultFile, root);
+		System.out.printf("計測結果を%sに出力しました%n", resultFile);
+	}
+
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package jp.co.sample.emp_management.loadtest;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 負荷テストで1つのエンドポイントに送信するリクエストを表すシナリオ.
+ *
+ * @author yu.konishi
+ *
+ */
+public class LoadTestScenario {
+
+	/** シナリオ名 */
+	private final String name;
+
+	/** HTTPメソッド */
+	private final String method;
+
+	/** 乱数からリクエストのパス(クエリ文字列を含む)を生成する関数 */
+	private final Function<Random, String> pathGenerator;
+
+	/** POSTの場合のリクエストボディ(application/x-www-form-urlencoded) GETの場合はnull */
+	private final String body;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param name
+	 *            シナリオ名
+	 * @param method
+	 *            HTTPメソッド
+	 * @param pathGenerator
+	 *            乱数からリクエストのパスを生成する関数
+	 * @param body
+	 *            POSTの場合のリクエストボディ
+	 */
+	public LoadTestScenario(String name, String method, Function<Random, String> pathGenerator, String body) {
+		this.name = name;
+		this.method = method;
+		this.pathGenerator = pathGenerator;
+		this.body = body;
+	}
+
+	/**
+	 * リクエストのパスを生成します.
+	 *
+	 * @param random
+	 *            乱数
+	 * @return リクエストのパス
+	 */
+	public String nextPath(Random random) {
+		return pathGenerator.apply(random);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	@Override
+	public String toString() {
+		return "LoadTestScenario [name=" + name + ", method=" + method + "]";
+	}
+
+}
@@ -1,20 +1,55 @@
 package jp.co.sample.emp_management;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.sample.emp_management.service.BCryptCostCalibrator;
+import jp.co.sample.emp_management.service.TimedPasswordEncoder;
+
 @SpringBootApplication
+@EnableCaching
 public class ExEmpManageAnswerApplication {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExEmpManageAnswerApplication.class);
+
 	public static void main(String[] args) {
 		SpringApplication.run(ExEmpManageAnswerApplication.class, args);
 	}
 	
+	/**
+	 * パスワードエンコーダーを生成します.
+	 * 
+	 * password.bcrypt.costが0の場合は起動時に計測し、1回の照合がtarget-millisに収まる最大のコストを使います.
+	 * 計測した場合も指定した場合もmin-costを下回るコストにはしません.
+	 * コストが変わっても登録済みのハッシュ値はそのまま照合でき、ログイン時に新しいコストで計算し直します.
+	 * 計算と照合にかかった時間はpassword.encoderとして記録します.
+	 * 
+	 * @param cost         BCryptのコスト 0の場合は計測して決めます
+	 * @param targetMillis 1回の照合の目標時間(ミリ秒)
+	 * @param minCost      最小のコスト 指定したコストがこれより小さい場合はこのコストを使います
+	 * @param maxCost      計測して決める場合の最大のコスト
+	 * @param meterRegistry 計算と照合の時間の記録先
+	 * @return パスワードエンコーダー
+	 */
 	@Bean
-	public PasswordEncoder passworEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passworEncoder(@Value("${password.bcrypt.cost}") int cost,
+			@Value("${password.bcrypt.target-millis}") long targetMillis,
+			@Value("${password.bcrypt.min-cost}") int minCost, @Value("${password.bcrypt.max-cost}") int maxCost,
+			MeterRegistry meterRegistry) {
+		if (cost <= 0) {
+			cost = BCryptCostCalibrator.calibrate(targetMillis, minCost, maxCost);
+		} else if (cost < minCost) {
+			LOGGER.warn("password.bcrypt.cost({})がmin-cost({})より小さいため、{}を使います", cost, minCost, minCost);
+			cost = minCost;
+		}
+		return new TimedPasswordEncoder(new BCryptPasswordEncoder(cost), meterRegistry);
 	}
 }
@@ -0,0 +1,151 @@
+package jp.co.sample.emp_management.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.sample.emp_management.config.DataSourceTuningProperties.Pool;
+import jp.co.sample.emp_management.config.DataSourceTuningProperties.Replica;
+import jp.co.sample.emp_management.config.DataSourceTuningProperties.Statement;
+
+/**
+ * データソースの設定.
+ *
+ * spring.datasourceの接続先にdatasource.*のコネクションプールとJDBCドライバーの設定を適用した
+ * HikariCPのデータソースを生成します.
+ * datasource.replica.urlsにレプリカが設定されている場合は、参照のみ(readOnly)のトランザクションを
+ * レプリカに振り分けるデータソースを生成します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceTuningProperties.class)
+public class DataSourceConfig {
+
+	/**
+	 * データソースを生成します.
+	 *
+	 * @param dataSourceProperties 接続先(spring.datasource)
+	 * @param tuningProperties     コネクションプールとJDBCドライバーの設定(datasource)
+	 * @param meterRegistry        レプリカを使う場合のコネクションプールのメトリクスの記録先
+	 * @return データソース
+	 */
+	@Bean
+	public DataSource dataSource(DataSourceProperties dataSourceProperties,
+			DataSourceTuningProperties tuningProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+		HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+				.build();
+		configure(dataSource, tuningProperties);
+		Replica replica = tuningProperties.getReplica();
+		if (replica.getUrls().isEmpty()) {
+			return dataSource;
+		}
+		return routingDataSource(dataSource, dataSourceProperties, tuningProperties, meterRegistry.getIfAvailable());
+	}
+
+	/**
+	 * 参照のみのトランザクションをレプリカに振り分けるデータソースを生成します.
+	 *
+	 * プライマリとレプリカのコネクションプールはBeanにならないため、メトリクスの記録先をここで設定します.
+	 *
+	 * @param primary              プライマリ
+	 * @param dataSourceProperties 接続先(spring.datasource)
+	 * @param tuningProperties     コネクションプールとJDBCドライバーの設定(datasource)
+	 * @param meterRegistry        メトリクスの記録先 nullの場合は記録しません
+	 * @return データソース
+	 */
+	private DataSource routingDataSource(HikariDataSource primary, DataSourceProperties dataSourceProperties,
+			DataSourceTuningProperties tuningProperties, MeterRegistry meterRegistry) {
+		Replica replica = tuningProperties.getReplica();
+		primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		List<String> urls = replica.getUrls();
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource replicaDataSource = dataSourceProperties.initializeDataSourceBuilder()
+					.type(HikariDataSource.class).url(urls.get(i)).build();
+			configure(replicaDataSource, tuningProperties);
+			replicaDataSource.setPoolName("replica-" + (i + 1));
+			replicaDataSource.setReadOnly(true);
+			replicas.put(replicaDataSource.getPoolName(), replicaDataSource);
+		}
+		if (meterRegistry != null) {
+			primary.setMetricRegistry(meterRegistry);
+			for (DataSource replicaDataSource : replicas.values()) {
+				((HikariDataSource) replicaDataSource).setMetricRegistry(meterRegistry);
+			}
+		}
+
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replicas,
+				replica.getMaxLagMillis(), replica.getPrimaryAfterChangeMillis());
+		routingDataSource.afterPropertiesSet();
+		if (meterRegistry != null) {
+			for (String name : routingDataSource.getReplicaNames()) {
+				Gauge.builder("datasource.replica.healthy", routingDataSource, r -> r.isHealthy(name) ? 1 : 0)
+						.description("レプリカに振り分けている場合は1").tag("pool", name).register(meterRegistry);
+			}
+		}
+		routingDataSource.startHealthCheck(replica.getHealthCheckIntervalMillis());
+		// readOnlyはトランザクションの開始後に決まるため、最初のSQLを実行するまでコネクションの取得を遅らせます
+		return new RoutingDataSourceProxy(routingDataSource);
+	}
+
+	/**
+	 * コネクションプールとJDBCドライバーの設定を適用します.
+	 *
+	 * @param dataSource       データソース
+	 * @param tuningProperties コネクションプールとJDBCドライバーの設定
+	 */
+	static void configure(HikariDataSource dataSource, DataSourceTuningProperties tuningProperties) {
+		Pool pool = tuningProperties.getPool();
+		dataSource.setMaximumPoolSize(pool.resolveMaximumPoolSize());
+		dataSource.setMinimumIdle(pool.resolveMinimumIdle());
+		dataSource.setConnectionTimeout(pool.getConnectionTimeoutMillis());
+		dataSource.setLeakDetectionThreshold(pool.getLeakDetectionThresholdMillis());
+		dataSource.setMaxLifetime(pool.getMaxLifetimeMillis());
+
+		Statement statement = tuningProperties.getStatement();
+		dataSource.addDataSourceProperty("prepareThreshold", statement.getPrepareThreshold());
+		dataSource.addDataSourceProperty("preparedStatementCacheQueries", statement.getPreparedStatementCacheQueries());
+		dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", statement.getPreparedStatementCacheSizeMib());
+		dataSource.addDataSourceProperty("reWriteBatchedInserts", statement.isRewriteBatchedInserts());
+		if (statement.getTimeoutMillis() > 0) {
+			// サーバー側で中断させるため、ドライバーのタイマースレッドを使うsetQueryTimeoutではなくstatement_timeoutを使います
+			dataSource.addDataSourceProperty("options", "-c statement_timeout=" + statement.getTimeoutMillis());
+		}
+	}
+
+	/**
+	 * レプリカに振り分けるデータソースを包み、コネクションの取得を最初のSQLの実行まで遅らせるデータソース.
+	 *
+	 * Beanとして登録されるのはこのデータソースのみのため、コンテキストの終了時に呼ばれるcloseで、
+	 * 振り分け先のコネクションプールとヘルスチェックのスレッドを閉じます.
+	 */
+	static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+		private final ReplicaRoutingDataSource routingDataSource;
+
+		RoutingDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+			super(routingDataSource);
+			this.routingDataSource = routingDataSource;
+		}
+
+		@Override
+		public void close() {
+			routingDataSource.close();
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package jp.co.sample.emp_management.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * コネクションプールとPostgreSQLのJDBCドライバーの設定(datasource.*).
+ *
+ * 起動時に値を検証し、不正な場合は起動を中止します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Validated
+@ConfigurationProperties(prefix = "datasource")
+public class DataSourceTuningProperties {
+
+	/** コネクションプールの設定 */
+	@Valid
+	private Pool pool = new Pool();
+
+	/** SQLの実行に関する設定 */
+	@Valid
+	private Statement statement = new Statement();
+
+	/** 参照のみのトランザクションを振り分けるレプリカの設定 */
+	@Valid
+	private Replica replica = new Replica();
+
+	public Pool getPool() {
+		return pool;
+	}
+
+	public void setPool(Pool pool) {
+		this.pool = pool;
+	}
+
+	public Statement getStatement() {
+		return statement;
+	}
+
+	public void setStatement(Statement statement) {
+		this.statement = statement;
+	}
+
+	public Replica getReplica() {
+		return replica;
+	}
+
+	public void setReplica(Replica replica) {
+		this.replica = replica;
+	}
+
+	/**
+	 * コネクションプールの設定.
+	 */
+	public static class Pool {
+
+		/** コア数から求める場合の最大コネクション数の下限(HikariCPの既定値) */
+		private static final int MINIMUM_POOL_SIZE = 10;
+
+		/** 最大コネクション数 0の場合はCPUのコア数×2+1(最低10) */
+		@Min(0)
+		@Max(200)
+		private int maximumPoolSize;
+
+		/** 待機させておく最小コネクション数 0の場合は最大コネクション数と同じ(固定サイズ) */
+		@Min(0)
+		private int minimumIdle;
+
+		/** プールが枯渇したときにコネクションを待つ最大時間(ミリ秒) 超えた場合はすぐに失敗させます */
+		@Min(250)
+		private long connectionTimeoutMillis = 3000;
+
+		/** コネクションを借りたまま返さない場合に警告ログを出力するまでの時間(ミリ秒) 0の場合は検出しません */
+		@Min(0)
+		private long leakDetectionThresholdMillis = 20000;
+
+		/** コネクションを作り直すまでの時間(ミリ秒) */
+		@Min(30000)
+		private long maxLifetimeMillis = 1800000;
+
+		/**
+		 * 最大コネクション数を求めます.
+		 *
+		 * @return 最大コネクション数
+		 */
+		public int resolveMaximumPoolSize() {
+			if (maximumPoolSize > 0) {
+				return maximumPoolSize;
+			}
+			// PostgreSQLのWikiにある目安(コア数×2+ディスク数)に従います
+			// コア数の少ない環境でBCryptの照合などでCPUが埋まった際にコネクション待ちで失敗しないよう、HikariCPの既定値を下限にします
+			return Math.max(Runtime.getRuntime().availableProcessors() * 2 + 1, MINIMUM_POOL_SIZE);
+		}
+
+		/**
+		 * 待機させておく最小コネクション数を求めます.
+		 *
+		 * @return 最小コネクション数
+		 */
+		public int resolveMinimumIdle() {
+			int resolvedMaximumPoolSize = resolveMaximumPoolSize();
+			if (minimumIdle <= 0) {
+				return resolvedMaximumPoolSize;
+			}
+			return Math.min(minimumIdle, resolvedMaximumPoolSize);
+		}
+
+		/**
+		 * リーク検出の時間がHikariCPの許容する範囲(2秒以上、コネクションを作り直すまでの時間未満)か判定します.
+		 *
+		 * @return 0か許容する範囲の場合はtrue
+		 */
+		@AssertTrue(message = "leak-detection-threshold-millisは0か、2000以上max-lifetime-millis未満を指定してください")
+		public boolean isLeakDetectionThresholdValid() {
+			return leakDetectionThresholdMillis == 0
+					|| (leakDetectionThresholdMillis >= 2000 && leakDetectionThresholdMillis < maxLifetimeMillis);
+		}
+
+		public int getMaximumPoolSize() {
+			return maximumPoolSize;
+		}
+
+		public void setMaximumPoolSize(int maximumPoolSize) {
+			this.maximumPoolSize = maximumPoolSize;
+		}
+
+		public int getMinimumIdle() {
+			return minimumIdle;
+		}
+
+		public void setMinimumIdle(int minimumIdle) {
+			this.minimumIdle = minimumIdle;
+		}
+
+		public long getConnectionTimeoutMillis() {
+			return connectionTimeoutMillis;
+		}
+
+		public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+			this.connectionTimeoutMillis = connectionTimeoutMillis;
+		}
+
+		public long getLeakDetectionThresholdMillis() {
+			return leakDetectionThresholdMillis;
+		}
+
+		public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+			this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+		}
+
+		public long getMaxLifetimeMillis() {
+			return maxLifetimeMillis;
+		}
+
+		public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+			this.maxLifetimeMillis = maxLifetimeMillis;
+		}
+	}
+
+	/**
+	 * SQLの実行に関する設定.
+	 */
+	public static class Statement {
+
+		/** 1つのSQLの実行時間の上限(ミリ秒) 超えた場合はPostgreSQLが中断します 0の場合は制限しません */
+		@Min(0)
+		private long timeoutMillis = 10000;
+
+		/** 同じPreparedStatementを何回実行したらサーバー側でプリペアするか 0の場合はプリペアしません */
+		@Min(0)
+		private int prepareThreshold = 3;
+
+		/** コネクションごとにキャッシュするプリペア済みのSQLの件数 */
+		@Min(0)
+		private int preparedStatementCacheQueries = 256;
+
+		/** コネクションごとにキャッシュするプリペア済みのSQLのサイズの上限(MiB) */
+		@Min(0)
+		private int preparedStatementCacheSizeMib = 5;
+
+		/** バッチでのINSERTを複数行のINSERTに書き換えて送信する場合はtrue */
+		private boolean rewriteBatchedInserts = true;
+
+		public long getTimeoutMillis() {
+			return timeoutMillis;
+		}
+
+		public void setTimeoutMillis(long timeoutMillis) {
+			this.timeoutMillis = timeoutMillis;
+		}
+
+		public int getPrepareThreshold() {
+			return prepareThreshold;
+		}
+
+		public void setPrepareThreshold(int prepareThreshold) {
+			this.prepareThreshold = prepareThreshold;
+		}
+
+		public int getPreparedStatementCacheQueries() {
+			return preparedStatementCacheQueries;
+		}
+
+		public void setPreparedStatementCacheQueries(int preparedStatementCacheQueries) {
+			this.preparedStatementCacheQueries = preparedStatementCacheQueries;
+		}
+
+		public int getPreparedStatementCacheSizeMib() {
+			return preparedStatementCacheSizeMib;
+		}
+
+		public void setPreparedStatementCacheSizeMib(int preparedStatementCacheSizeMib) {
+			this.preparedStatementCacheSizeMib = preparedStatementCacheSizeMib;
+		}
+
+		public boolean isRewriteBatchedInserts() {
+			return rewriteBatchedInserts;
+		}
+
+		public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+			this.rewriteBatchedInserts = rewriteBatchedInserts;
+		}
+	}
+
+	/**
+	 * 参照のみのトランザクションを振り分けるレプリカの設定.
+	 *
+	 * ユーザー名、パスワード、コネクションプールとJDBCドライバーの設定はプライマリと同じものを使います.
+	 */
+	public static class Replica {
+
+		/** レプリカのJDBC URL 空の場合は全てのトランザクションでプライマリを使います */
+		private List<String> urls = new ArrayList<>();
+
+		/** ヘルスチェックの間隔(ミリ秒) */
+		@Min(1000)
+		private long healthCheckIntervalMillis = 5000;
+
+		/** 許容するレプリケーションの遅延(ミリ秒) 超えたレプリカには振り分けません 0の場合は遅延を確認しません */
+		@Min(0)
+		private long maxLagMillis = 5000;
+
+		/** 変更後に参照のみのトランザクションもプライマリに振り分ける時間(ミリ秒) 遅延の上限とヘルスチェックの間隔の和以上にします */
+		@Min(0)
+		private long primaryAfterChangeMillis = 10000;
+
+		public List<String> getUrls() {
+			return urls;
+		}
+
+		public void setUrls(List<String> urls) {
+			this.urls = urls;
+		}
+
+		public long getHealthCheckIntervalMillis() {
+			return healthCheckIntervalMillis;
+		}
+
+		public void setHealthCheckIntervalMillis(long healthCheckIntervalMillis) {
+			this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+		}
+
+		public long getMaxLagMillis() {
+			return maxLagMillis;
+		}
+
+		public void setMaxLagMillis(long maxLagMillis) {
+			this.maxLagMillis = maxLagMillis;
+		}
+
+		public long getPrimaryAfterChangeMillis() {
+			return primaryAfterChangeMillis;
+		}
+
+		public void setPrimaryAfterChangeMillis(long primaryAfterChangeMillis) {
+			this.primaryAfterChangeMillis = primaryAfterChangeMillis;
+		}
+	}
+}
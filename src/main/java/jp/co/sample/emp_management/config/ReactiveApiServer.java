@@ -0,0 +1,109 @@
+package jp.co.sample.emp_management.config;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jp.co.sample.emp_management.controller.ReactiveEmployeeHandler;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * 従業員情報の参照用API(ReactiveEmployeeHandler)をTomcatとは別のポートのNettyで起動するコンポーネント.
+ *
+ * 画面(Spring MVC)はTomcatのまま、参照用APIだけをイベントループのスレッドで処理します.
+ * データベースの応答やクライアントへの送信を待つ間はスレッドを使わないため、
+ * 少ないスレッド数で多数の遅いクライアントに応答できます.
+ * 同時にSQLを実行できる数はspring.r2dbc.pool.max-sizeで制限し、超えたリクエストはコネクションが空くのを待ちます.
+ * reactive-api.enabledがtrueの場合のみ起動します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "reactive-api.enabled", havingValue = "true")
+public class ReactiveApiServer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveApiServer.class);
+
+	private final ReactiveEmployeeHandler reactiveEmployeeHandler;
+
+	private final ObjectMapper objectMapper;
+
+	/** 待ち受けるポート番号 0の場合は空いているポート */
+	private final int port;
+
+	/** イベントループのスレッド数 */
+	private final int eventLoopThreads;
+
+	private LoopResources loopResources;
+
+	private DisposableServer server;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param reactiveEmployeeHandler 参照用APIのハンドラー
+	 * @param objectMapper            JSONへの変換に使うObjectMapper(画面のJSONと同じ設定)
+	 * @param port                    待ち受けるポート番号 0の場合は空いているポート
+	 * @param eventLoopThreads        イベントループのスレッド数 0以下の場合はCPUのコア数
+	 */
+	public ReactiveApiServer(ReactiveEmployeeHandler reactiveEmployeeHandler, ObjectMapper objectMapper,
+			@Value("${reactive-api.port}") int port,
+			@Value("${reactive-api.event-loop-threads}") int eventLoopThreads) {
+		if (eventLoopThreads < 1) {
+			eventLoopThreads = Runtime.getRuntime().availableProcessors();
+		}
+		this.reactiveEmployeeHandler = reactiveEmployeeHandler;
+		this.objectMapper = objectMapper;
+		this.port = port;
+		this.eventLoopThreads = eventLoopThreads;
+	}
+
+	/**
+	 * サーバーを起動します.
+	 */
+	@PostConstruct
+	public void start() {
+		HttpHandler httpHandler = RouterFunctions.toHttpHandler(reactiveEmployeeHandler.router(),
+				ReactiveEmployeeHandler.handlerStrategies(objectMapper));
+
+		loopResources = LoopResources.create("reactive-api", eventLoopThreads, true);
+		server = HttpServer.create().port(port).tcpConfiguration(tcp -> tcp.runOn(loopResources))
+				.handle(new ReactorHttpHandlerAdapter(httpHandler)).bindNow();
+		LOGGER.info("従業員情報の参照用APIをポート{}で起動しました(イベントループのスレッド数: {})", server.port(), eventLoopThreads);
+	}
+
+	/**
+	 * サーバーを停止します.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (server != null) {
+			server.disposeNow();
+		}
+		if (loopResources != null) {
+			loopResources.dispose();
+		}
+	}
+
+	/**
+	 * 待ち受けているポート番号を取得します.
+	 *
+	 * @return ポート番号
+	 */
+	public int getPort() {
+		return server.port();
+	}
+}
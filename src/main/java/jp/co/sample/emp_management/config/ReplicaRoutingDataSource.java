@@ -0,0 +1,260 @@
+package jp.co.sample.emp_management.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 参照のみ(readOnly)のトランザクションをレプリカに、それ以外をプライマリに振り分けるデータソース.
+ *
+ * レプリカはラウンドロビンで選び、ヘルスチェックに失敗したレプリカと、レプリケーションの遅延が上限を超えたレプリカは
+ * 次のヘルスチェックで回復するまで使いません. 使えるレプリカが無い場合はプライマリを使います.
+ *
+ * 遅延が上限以内のレプリカでも直前の変更は反映されていない場合があり、キャッシュを破棄した直後に読み込むと
+ * 変更前の内容を再びキャッシュしてしまいます. キャッシュを破棄する前にusePrimaryAfterChangeを呼ぶと、
+ * 一定時間は参照のみのトランザクションもプライマリに振り分けます.
+ *
+ * トランザクションの開始時点ではreadOnlyかどうかが決まっていないため、
+ * LazyConnectionDataSourceProxyで包み、最初のSQLを実行するときにコネクションを取得させてください.
+ *
+ * closeでヘルスチェックのスレッドを停止し、プライマリとレプリカのコネクションプールを閉じます.
+ *
+ * @author yu.konishi
+ *
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	/** プライマリのキー */
+	static final String PRIMARY = "primary";
+
+	/** レプリケーションの遅延(ミリ秒)を求めるSQL プライマリに対して実行した場合は0を返します */
+	private static final String LAG_SQL = "SELECT COALESCE(CASE"
+			+ " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+			+ " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END, 0)";
+
+	/** プライマリ */
+	private final DataSource primary;
+
+	/** レプリカ */
+	private final List<Replica> replicas;
+
+	/** 許容するレプリケーションの遅延(ミリ秒) 0の場合は遅延を確認しません */
+	private final long maxLagMillis;
+
+	/** 変更後に参照のみのトランザクションもプライマリに振り分ける時間(ミリ秒) */
+	private final long primaryAfterChangeMillis;
+
+	/** この時刻(System.nanoTime)までは参照のみのトランザクションもプライマリに振り分けます */
+	private final AtomicLong primaryUntilNanos = new AtomicLong(System.nanoTime());
+
+	/** 次に使うレプリカを決めるためのカウンター */
+	private final AtomicInteger counter = new AtomicInteger();
+
+	/** ヘルスチェックを実行するスレッド */
+	private ScheduledExecutorService healthCheckExecutor;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * レプリカはヘルスチェックに成功するまで使いません.
+	 *
+	 * @param primary      プライマリ
+	 * @param replicas     レプリカ(キーは名前)
+	 * @param maxLagMillis             許容するレプリケーションの遅延(ミリ秒) 0の場合は遅延を確認しません
+	 * @param primaryAfterChangeMillis 変更後に参照のみのトランザクションもプライマリに振り分ける時間(ミリ秒)
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMillis,
+			long primaryAfterChangeMillis) {
+		this.primary = primary;
+		this.maxLagMillis = maxLagMillis;
+		this.primaryAfterChangeMillis = primaryAfterChangeMillis;
+		List<Replica> replicaList = new ArrayList<>();
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(PRIMARY, primary);
+		for (Map.Entry<String, DataSource> entry : replicas.entrySet()) {
+			replicaList.add(new Replica(entry.getKey(), entry.getValue()));
+			targetDataSources.put(entry.getKey(), entry.getValue());
+		}
+		this.replicas = Collections.unmodifiableList(replicaList);
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+		if (System.nanoTime() - primaryUntilNanos.get() < 0) {
+			return PRIMARY;
+		}
+		int size = replicas.size();
+		int start = counter.getAndIncrement();
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get(Math.floorMod(start + i, size));
+			if (replica.healthy) {
+				return replica.name;
+			}
+		}
+		return PRIMARY;
+	}
+
+	/**
+	 * 変更がコミットされたことを通知し、しばらくの間は参照のみのトランザクションもプライマリに振り分けます.
+	 *
+	 * レプリカに変更が反映される前に読み込んだ内容がキャッシュされないよう、キャッシュを破棄する前に呼んでください.
+	 * 既に振り分けている間に呼んだ場合は、呼んだ時点から延長します.
+	 */
+	public void usePrimaryAfterChange() {
+		long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(primaryAfterChangeMillis);
+		primaryUntilNanos.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+	}
+
+	/**
+	 * 全てのレプリカのヘルスチェックを実行します.
+	 *
+	 * コネクションを取得できない場合、SQLの実行に失敗した場合、遅延が上限を超えた場合は使わないようにします.
+	 */
+	public void checkHealth() {
+		for (Replica replica : replicas) {
+			boolean healthy;
+			try (Connection connection = replica.dataSource.getConnection();
+					Statement statement = connection.createStatement();
+					ResultSet rs = statement.executeQuery(LAG_SQL)) {
+				rs.next();
+				long lagMillis = rs.getLong(1);
+				healthy = maxLagMillis <= 0 || lagMillis <= maxLagMillis;
+				if (!healthy && replica.healthy) {
+					LOGGER.warn("レプリカ{}の遅延が{}ミリ秒を超えたため、振り分けを停止します({}ミリ秒)", replica.name, maxLagMillis,
+							lagMillis);
+				}
+			} catch (SQLException | RuntimeException e) {
+				healthy = false;
+				if (replica.healthy) {
+					LOGGER.warn("レプリカ{}のヘルスチェックに失敗したため、振り分けを停止します", replica.name, e);
+				}
+			}
+			if (healthy && !replica.healthy) {
+				LOGGER.info("レプリカ{}への振り分けを開始します", replica.name);
+			}
+			replica.healthy = healthy;
+		}
+	}
+
+	/**
+	 * ヘルスチェックを一定間隔で実行するスレッドを開始します.
+	 *
+	 * @param intervalMillis ヘルスチェックの間隔(ミリ秒)
+	 */
+	public synchronized void startHealthCheck(long intervalMillis) {
+		if (healthCheckExecutor != null) {
+			return;
+		}
+		healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-health-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		healthCheckExecutor.scheduleWithFixedDelay(this::checkHealth, 0, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * ヘルスチェックのスレッドを停止し、プライマリとレプリカのコネクションプールを閉じます.
+	 */
+	@Override
+	public synchronized void close() {
+		if (healthCheckExecutor != null) {
+			healthCheckExecutor.shutdownNow();
+			healthCheckExecutor = null;
+		}
+		for (Replica replica : replicas) {
+			replica.healthy = false;
+			closeDataSource(replica.name, replica.dataSource);
+		}
+		closeDataSource(PRIMARY, primary);
+	}
+
+	/**
+	 * コネクションプールを閉じます. 閉じられないデータソースの場合は何もしません.
+	 *
+	 * @param name       名前
+	 * @param dataSource データソース
+	 */
+	private static void closeDataSource(String name, DataSource dataSource) {
+		if (!(dataSource instanceof AutoCloseable)) {
+			return;
+		}
+		try {
+			((AutoCloseable) dataSource).close();
+		} catch (Exception e) {
+			LOGGER.warn("{}のコネクションプールを閉じられませんでした", name, e);
+		}
+	}
+
+	/**
+	 * レプリカが使える状態か判定します.
+	 *
+	 * @param name レプリカの名前
+	 * @return 使える場合はtrue 存在しない場合はfalse
+	 */
+	public boolean isHealthy(String name) {
+		for (Replica replica : replicas) {
+			if (replica.name.equals(name)) {
+				return replica.healthy;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * レプリカの名前を取得します.
+	 *
+	 * @return レプリカの名前
+	 */
+	public List<String> getReplicaNames() {
+		List<String> names = new ArrayList<>();
+		for (Replica replica : replicas) {
+			names.add(replica.name);
+		}
+		return names;
+	}
+
+	/**
+	 * レプリカとその状態.
+	 */
+	private static class Replica {
+
+		final String name;
+
+		final DataSource dataSource;
+
+		/** 使える場合はtrue */
+		volatile boolean healthy;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+	}
+}
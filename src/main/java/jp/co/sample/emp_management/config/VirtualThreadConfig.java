@@ -0,0 +1,116 @@
+package jp.co.sample.emp_management.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * リクエストを仮想スレッドで処理する設定.
+ *
+ * execution.modeがvirtualの場合は、Tomcatのスレッドプールの代わりにリクエストごとに仮想スレッド(Java 21以降)を生成します.
+ * コントローラーからリポジトリまでの処理は同じ仮想スレッドで行われ、JDBCの応答やコネクションを待つ間はキャリアスレッドを解放するため、
+ * 同時にデータベースを使うリクエスト数はスレッド数ではなくコネクションプールの大きさ(datasource.pool.maximum-pool-size)で決まります.
+ * コネクションを待つ時間がdatasource.pool.connection-timeout-millisを超えたリクエストは失敗させ、
+ * 受け付ける接続数はserver.tomcat.max-connectionsで制限します.
+ * 画像の変換とパスワードの照合はCPUを使うため、引き続きそれぞれの固定サイズのスレッドプールで行います.
+ *
+ * Spring Framework 5.2はJava 21のクラスファイルを読み込めないため、アプリケーションはJava 8向けにコンパイルし、
+ * 仮想スレッドのAPIはリフレクションで呼び出します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	/** 通信中にsynchronizedで仮想スレッドをキャリアスレッドに固定しなくなったPgJDBCのバージョン(42.6) */
+	private static final int UNPINNED_PGJDBC_MINOR_VERSION = 6;
+
+	/** 停止時に処理中のリクエストを待つ最大時間(秒) */
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	/** リクエストごとに仮想スレッドを生成するExecutorService */
+	private ExecutorService executor;
+
+	/**
+	 * Tomcatがリクエストを仮想スレッドで処理するように設定します.
+	 *
+	 * ExecutorServiceをBeanにするとSpring Bootの非同期処理用のスレッドプールが生成されなくなるため、この設定で保持します.
+	 *
+	 * @return Tomcatのプロトコルハンドラーの設定
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		warnIfPgJdbcPinsCarrier();
+		executor = newVirtualThreadPerTaskExecutor();
+		LOGGER.info("リクエストを仮想スレッドで処理します");
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	/**
+	 * 仮想スレッドのExecutorServiceを停止します.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * タスクごとに仮想スレッドを生成するExecutorServiceを生成します.
+	 *
+	 * @return ExecutorService
+	 * @throws IllegalStateException Java 21より前のJavaで実行している場合
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		Method method;
+		try {
+			method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(
+					"execution.mode=virtualはJava 21以降で実行してください(実行中のJava: " + System.getProperty("java.version") + ")", e);
+		}
+		try {
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			// Java 19、20ではプレビュー機能を有効にしていないと失敗します
+			throw new IllegalStateException("仮想スレッドを使用できません(実行中のJava: " + System.getProperty("java.version") + ")", e);
+		}
+	}
+
+	/**
+	 * PgJDBCが通信中に仮想スレッドをキャリアスレッドに固定するバージョンの場合に警告します.
+	 *
+	 * 固定されると、同時にSQLを実行できるリクエスト数がキャリアスレッド数(CPUのコア数)までになります.
+	 */
+	private static void warnIfPgJdbcPinsCarrier() {
+		// DriverInfoの定数はコンパイル時に埋め込まれるため、実行時のドライバーに問い合わせます
+		org.postgresql.Driver driver = new org.postgresql.Driver();
+		if (driver.getMajorVersion() < 42
+				|| (driver.getMajorVersion() == 42 && driver.getMinorVersion() < UNPINNED_PGJDBC_MINOR_VERSION)) {
+			LOGGER.warn("PgJDBC {}.{}はSQLの実行中に仮想スレッドをキャリアスレッドに固定します. jdk21プロファイル(mvn -P jdk21)でビルドしてください",
+					driver.getMajorVersion(), driver.getMinorVersion());
+		}
+	}
+}
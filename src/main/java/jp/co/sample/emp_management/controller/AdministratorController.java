@@ -1,9 +1,12 @@
 package jp.co.sample.emp_management.controller;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,6 +19,7 @@ import jp.co.sample.emp_management.domain.Administrator;
 import jp.co.sample.emp_management.form.InsertAdministratorForm;
 import jp.co.sample.emp_management.form.LoginForm;
 import jp.co.sample.emp_management.service.AdministratorService;
+import jp.co.sample.emp_management.service.LoginRejectedException;
 
 /**
  * 管理者情報を操作するコントローラー.
@@ -108,11 +112,24 @@ public class AdministratorController {
 	 *            管理者情報用フォーム
 	 * @param result
 	 *            エラー情報格納用オブッジェクト
+	 * @param request
+	 *            接続元IPアドレスの取得に使うリクエスト
+	 * @param response
+	 *            ログインを拒否した場合のステータスの設定に使うレスポンス
 	 * @return ログイン後の従業員一覧画面
 	 */
 	@RequestMapping("/login")
-	public String login(LoginForm form, BindingResult result, Model model) {
-		Administrator administrator = administratorService.login(form.getMailAddress(), form.getPassword());
+	public String login(LoginForm form, BindingResult result, Model model, HttpServletRequest request,
+			HttpServletResponse response) {
+		Administrator administrator;
+		try {
+			administrator = administratorService.login(form.getMailAddress(), form.getPassword(),
+					request.getRemoteAddr());
+		} catch (LoginRejectedException e) {
+			response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+			model.addAttribute("errorMessage", "ログインの試行が集中しています。しばらくしてから再度お試しください。");
+			return toLogin();
+		}
 		if (administrator == null) {
 			model.addAttribute("errorMessage", "メールアドレスまたはパスワードが不正です。");
 			return toLogin();
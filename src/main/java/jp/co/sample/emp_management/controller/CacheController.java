@@ -0,0 +1,56 @@
+package jp.co.sample.emp_management.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * キャッシュの状態を出力するコントローラー.
+ *
+ * @author yu.konishi
+ *
+ */
+@Controller
+@RequestMapping("/cache")
+public class CacheController {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	/**
+	 * キャッシュごとのヒット数、ミス数、追い出し数、件数をJSONで返します.
+	 *
+	 * @return キャッシュ名ごとの統計情報
+	 */
+	@RequestMapping("/stats")
+	@ResponseBody
+	public Map<String, Map<String, Object>> stats() {
+		Map<String, Map<String, Object>> statsMap = new LinkedHashMap<>();
+		for (String cacheName : cacheManager.getCacheNames()) {
+			Cache cache = cacheManager.getCache(cacheName);
+			if (!(cache instanceof CaffeineCache)) {
+				continue;
+			}
+			com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache)
+					.getNativeCache();
+			CacheStats cacheStats = nativeCache.stats();
+			Map<String, Object> cacheStatsMap = new LinkedHashMap<>();
+			cacheStatsMap.put("hitCount", cacheStats.hitCount());
+			cacheStatsMap.put("missCount", cacheStats.missCount());
+			cacheStatsMap.put("hitRate", cacheStats.hitRate());
+			cacheStatsMap.put("evictionCount", cacheStats.evictionCount());
+			cacheStatsMap.put("size", nativeCache.estimatedSize());
+			statsMap.put(cacheName, cacheStatsMap);
+		}
+		return statsMap;
+	}
+}
@@ -0,0 +1,231 @@
+package jp.co.sample.emp_management.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeePage;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.service.EmployeeService;
+
+/**
+ * 従業員情報をJSONで返すAPI(バージョン1)のコントローラー.
+ *
+ * 画面と同じEmployeeServiceを使うため、キャッシュとSQLの件数の上限も画面と共通です.
+ * fieldsに返す項目をカンマ区切りで指定でき、省略した場合は画像(image)以外の項目を返します.
+ * ETagは返す項目と従業員ごとの版番号(version)から求め、If-None-Matchが一致した場合は304を返します.
+ * 従業員詳細は更新日時をLast-Modifiedとして返し、If-Modified-Sinceにも304を返します.
+ * 一覧と検索は他の従業員の登録や削除でも内容が変わり更新日時では判定できないため、ETagのみ返します.
+ *
+ * <pre>
+ * GET /api/v1/employees?after=カーソル&amp;before=カーソル&amp;fields=項目  従業員一覧(入社日、IDの順に10件ずつ)
+ * GET /api/v1/employees/search?q=検索ワード&amp;page=ページ番号&amp;fields=項目  従業員名検索
+ * GET /api/v1/employees/{id}?fields=項目  従業員詳細
+ * </pre>
+ *
+ * @author yu.konishi
+ *
+ */
+@Controller
+@RequestMapping("/api/v1/employees")
+public class EmployeeApiController {
+
+	/** 従業員詳細で指定できる項目 */
+	private static final List<String> DETAIL_FIELDS = Collections.unmodifiableList(Arrays.asList("id", "name",
+			"image", "gender", "hireDate", "mailAddress", "zipCode", "address", "telephone", "salary",
+			"characteristics", "dependentsCount", "version", "updatedAt"));
+
+	/** fieldsを省略した場合の従業員詳細の項目(画像以外) */
+	private static final Set<String> DEFAULT_DETAIL_FIELDS;
+
+	/** 一覧と検索で指定できる項目(省略した場合は全て) */
+	private static final List<String> SUMMARY_FIELDS = Collections
+			.unmodifiableList(Arrays.asList("id", "name", "hireDate", "dependentsCount", "version", "updatedAt"));
+
+	static {
+		Set<String> fields = new LinkedHashSet<>(DETAIL_FIELDS);
+		fields.remove("image");
+		DEFAULT_DETAIL_FIELDS = Collections.unmodifiableSet(fields);
+	}
+
+	/** 毎回ETagで再検証させます */
+	private static final CacheControl API_CACHE_CONTROL = CacheControl.noCache();
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	/**
+	 * 従業員一覧を1ページ分返します.
+	 *
+	 * @param after  このカーソルより後ろのページを返します
+	 * @param before このカーソルより前のページを返します
+	 * @param fields 返す項目(カンマ区切り)
+	 * @return 従業員情報と前後のページのカーソル 指定できない項目がある場合は400
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET)
+	@ResponseBody
+	public ResponseEntity<Map<String, Object>> list(String after, String before, String fields) {
+		Set<String> fieldSet = parseFields(fields, SUMMARY_FIELDS, new LinkedHashSet<>(SUMMARY_FIELDS));
+		if (fieldSet == null) {
+			return ResponseEntity.badRequest().build();
+		}
+		EmployeePage page = employeeService.showPage(after, before);
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("employees", selectAll(page.getEmployeeList(), fieldSet));
+		body.put("nextCursor", page.getNextCursor());
+		body.put("previousCursor", page.getPreviousCursor());
+		String eTag = eTag(fieldSet, page.getEmployeeList(), page.getNextCursor(), page.getPreviousCursor());
+		return ResponseEntity.ok().cacheControl(API_CACHE_CONTROL).eTag(eTag).body(body);
+	}
+
+	/**
+	 * 検索ワードが名前に含まれる従業員情報を1ページ分返します.
+	 *
+	 * @param q      検索ワード
+	 * @param page   ページ番号(省略時は1)
+	 * @param fields 返す項目(カンマ区切り)
+	 * @return 該当した従業員情報と総数 検索ワードが無い場合や指定できない項目がある場合は400
+	 */
+	@RequestMapping(value = "/search", method = RequestMethod.GET)
+	@ResponseBody
+	public ResponseEntity<Map<String, Object>> search(String q, Integer page, String fields) {
+		Set<String> fieldSet = parseFields(fields, SUMMARY_FIELDS, new LinkedHashSet<>(SUMMARY_FIELDS));
+		if (q == null || q.trim().isEmpty() || (page != null && page < 1) || fieldSet == null) {
+			return ResponseEntity.badRequest().build();
+		}
+		int pageNum = page == null ? 1 : page;
+		EmployeeSearchResult searchResult = employeeService.searchName(q.trim(), pageNum);
+		// 画面では該当しない場合に一覧の先頭ページを表示しますが、APIでは該当なしとして返します
+		List<EmployeeSummary> employeeList = searchResult.isFellBack() ? Collections.emptyList()
+				: searchResult.getEmployeeList();
+		int totalCount = searchResult.isFellBack() ? 0 : searchResult.getTotalCount();
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("employees", selectAll(employeeList, fieldSet));
+		body.put("totalCount", totalCount);
+		body.put("page", pageNum);
+		String eTag = eTag(fieldSet, employeeList, String.valueOf(totalCount));
+		return ResponseEntity.ok().cacheControl(API_CACHE_CONTROL).eTag(eTag).body(body);
+	}
+
+	/**
+	 * 従業員詳細を返します.
+	 *
+	 * @param id     従業員ID
+	 * @param fields 返す項目(カンマ区切り) 画像は指定した場合のみ返します
+	 * @return 従業員情報 存在しない場合は404、指定できない項目がある場合は400
+	 */
+	@RequestMapping(value = "/{id:[0-9]+}", method = RequestMethod.GET)
+	@ResponseBody
+	public ResponseEntity<Map<String, Object>> detail(@PathVariable Integer id, String fields) {
+		Set<String> fieldSet = parseFields(fields, DETAIL_FIELDS, DEFAULT_DETAIL_FIELDS);
+		if (fieldSet == null) {
+			return ResponseEntity.badRequest().build();
+		}
+		Employee employee;
+		try {
+			employee = employeeService.showDetail(id);
+		} catch (EmptyResultDataAccessException e) {
+			return ResponseEntity.notFound().build();
+		}
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(API_CACHE_CONTROL)
+				.eTag(eTag(fieldSet, Collections.singletonList(employee)));
+		if (employee.getUpdatedAt() != null) {
+			builder.lastModified(employee.getUpdatedAt().getTime());
+		}
+		return builder.body(select(employee, fieldSet));
+	}
+
+	/**
+	 * fieldsを解析します.
+	 *
+	 * @param fields        返す項目(カンマ区切り)
+	 * @param allowedFields 指定できる項目
+	 * @param defaultFields 省略した場合の項目
+	 * @return 返す項目 指定できない項目が含まれる場合はnull
+	 */
+	private static Set<String> parseFields(String fields, List<String> allowedFields, Set<String> defaultFields) {
+		if (fields == null || fields.trim().isEmpty()) {
+			return defaultFields;
+		}
+		Set<String> requested = new LinkedHashSet<>();
+		for (String field : fields.split(",")) {
+			requested.add(field.trim());
+		}
+		// 指定の順序や重複によってETagが変わらないよう、指定できる項目の順に並べます
+		Set<String> fieldSet = new LinkedHashSet<>();
+		for (String field : allowedFields) {
+			if (requested.remove(field)) {
+				fieldSet.add(field);
+			}
+		}
+		return requested.isEmpty() ? fieldSet : null;
+	}
+
+	/**
+	 * 従業員情報から指定した項目のみを取り出します.
+	 *
+	 * @param employee 従業員情報(EmployeeまたはEmployeeSummary)
+	 * @param fieldSet 返す項目
+	 * @return 項目名と値
+	 */
+	private static Map<String, Object> select(Object employee, Set<String> fieldSet) {
+		BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(employee);
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String field : fieldSet) {
+			map.put(field, beanWrapper.getPropertyValue(field));
+		}
+		return map;
+	}
+
+	private static List<Map<String, Object>> selectAll(List<?> employeeList, Set<String> fieldSet) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (Object employee : employeeList) {
+			list.add(select(employee, fieldSet));
+		}
+		return list;
+	}
+
+	/**
+	 * 返す項目と従業員ごとのIDと版番号から弱いETagを求めます.
+	 *
+	 * 圧縮して返す場合もあるため、バイト列の一致を意味しない弱いETagにします.
+	 *
+	 * @param fieldSet     返す項目
+	 * @param employeeList 従業員情報(EmployeeまたはEmployeeSummary)
+	 * @param extras       その他に内容を左右する値(カーソルや総数)
+	 * @return ETag
+	 */
+	private static String eTag(Set<String> fieldSet, List<?> employeeList, String... extras) {
+		StringBuilder builder = new StringBuilder("v1|").append(String.join(",", fieldSet));
+		for (Object employee : employeeList) {
+			BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(employee);
+			builder.append('|').append(beanWrapper.getPropertyValue("id")).append(':')
+					.append(beanWrapper.getPropertyValue("version"));
+		}
+		for (String extra : extras) {
+			builder.append('|').append(extra);
+		}
+		return "W/\"" + DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+	}
+}
@@ -1,21 +1,53 @@
 package jp.co.sample.emp_management.controller;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
 import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeePage;
+import jp.co.sample.emp_management.domain.EmployeeRegistrationStatus;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.ProcessedImage;
 import jp.co.sample.emp_management.form.InsertEmployeeForm;
 import jp.co.sample.emp_management.form.UpdateEmployeeForm;
+import jp.co.sample.emp_management.service.EmployeeExportService;
+import jp.co.sample.emp_management.service.EmployeeImportService;
+import jp.co.sample.emp_management.service.EmployeeRegistrationQueue;
 import jp.co.sample.emp_management.service.EmployeeService;
+import jp.co.sample.emp_management.service.ImageProcessor;
+import jp.co.sample.emp_management.service.ImageRejectedException;
+import jp.co.sample.emp_management.service.InsertEmployeeFormValidator;
+import jp.co.sample.emp_management.service.RegistrationRejectedException;
 
 /**
  * 従業員情報を操作するコントローラー.
@@ -27,9 +59,37 @@ import jp.co.sample.emp_management.service.EmployeeService;
 @RequestMapping("/employee")
 public class EmployeeController {
 
+	/** 名前の候補の最大件数 */
+	private static final int MAX_SUGGEST_LIMIT = 50;
+
+	/** 画像のキャッシュ有効期間(画像はキーが内容のハッシュ値のため変更されません) */
+	private static final String IMAGE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()
+			.getHeaderValue() + ", immutable";
+
+	/** 従業員登録の待ち行列が一杯の場合に、再送までの待ち時間として返す秒数 */
+	private static final String REGISTRATION_RETRY_AFTER_SECONDS = "5";
+
+	/** Excel(XLSX)ファイルのContent-Type */
+	private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
 	@Autowired
 	private EmployeeService employeeService;
 
+	@Autowired
+	private EmployeeImportService employeeImportService;
+
+	@Autowired
+	private EmployeeExportService employeeExportService;
+
+	@Autowired
+	private InsertEmployeeFormValidator insertEmployeeFormValidator;
+
+	@Autowired
+	private ImageProcessor imageProcessor;
+
+	@Autowired
+	private EmployeeRegistrationQueue employeeRegistrationQueue;
+
 	/**
 	 * 使用するフォームオブジェクトをリクエストスコープに格納する.
 	 * 
@@ -61,7 +121,7 @@ public class EmployeeController {
 	 */
 	@RequestMapping("/showList")
 	public String showList(Model model) {
-		List<Employee> employeeList = employeeService.showList();
+		List<EmployeeSummary> employeeList = employeeService.showList();
 		model.addAttribute("employeeList", employeeList);
 		return "employee/list";
 	}
@@ -83,6 +143,43 @@ public class EmployeeController {
 		return "employee/detail";
 	}
 
+	/**
+	 * 従業員の画像を出力します.
+	 * 
+	 * Tomcatのsendfileが使える場合はファイルをカーネルから直接送信します.
+	 * 
+	 * @param key      画像のキー
+	 * @param request  リクエスト
+	 * @param response レスポンス
+	 * @throws IOException 画像の送信に失敗した場合
+	 */
+	@RequestMapping("/image/{key:.+}")
+	public void showImage(@PathVariable String key, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		Resource image = employeeService.loadImage(key);
+		if (image == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		response.setHeader(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL);
+		if (new ServletWebRequest(request, response).checkNotModified(key)) {
+			return;
+		}
+		response.setContentType(employeeService.getImageContentType(key));
+		if (image.isFile() && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+			File file = image.getFile();
+			response.setContentLengthLong(file.length());
+			request.setAttribute("org.apache.tomcat.sendfile.filename", file.getAbsolutePath());
+			request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+			request.setAttribute("org.apache.tomcat.sendfile.end", file.length());
+			return;
+		}
+		response.setContentLengthLong(image.contentLength());
+		try (InputStream inputStream = image.getInputStream()) {
+			StreamUtils.copy(inputStream, response.getOutputStream());
+		}
+	}
+
 	/////////////////////////////////////////////////////
 	// ユースケース：従業員詳細を更新する
 	/////////////////////////////////////////////////////
@@ -108,20 +205,52 @@ public class EmployeeController {
 	 * 検索ワードが含まれる名前の従業員情報を取得します.
 	 * 
 	 * @param searchWord 検索ワード
+	 * @param pageNum    ページ番号
 	 * @param model      リクエストスコープ
 	 * @return 従業員一覧画面
 	 */
 	@RequestMapping("/searchName")
-	public String searchName(String searchWord, Model model) {
-		List<Employee> employeeList = employeeService.searchName(searchWord);
-		if (employeeList.size() == 0) {
-			employeeList = employeeService.showList();
+	public String searchName(String searchWord, Integer pageNum, Model model) {
+		if (searchWord == null) {
+			searchWord = "";
+		}
+		if (pageNum == null || pageNum < 1) {
+			pageNum = 1;
+		}
+		EmployeeSearchResult searchResult = employeeService.searchName(searchWord, pageNum);
+		if (searchResult.isFellBack()) {
 			model.addAttribute("error", "1件もありませんでした");
 		}
-		model.addAttribute("employeeList", employeeList);
+		if (searchWord.isEmpty() || searchResult.isFellBack()) {
+			model.addAttribute("nextCursor", searchResult.getNextCursor());
+		} else {
+			model.addAttribute("searchWord", searchWord);
+			model.addAttribute("searchPageNum", pageNum);
+			model.addAttribute("totalCount", searchResult.getTotalCount());
+		}
+		model.addAttribute("employeeList", searchResult.getEmployeeList());
 		return "employee/list";
 	}
 
+	/**
+	 * 入力された文字列から始まる従業員名の候補をJSONで返します.
+	 * 
+	 * @param q     入力された文字列
+	 * @param limit 最大件数(省略時は10件)
+	 * @return 従業員名の候補
+	 */
+	@RequestMapping("/suggest")
+	@ResponseBody
+	public List<String> suggest(String q, Integer limit) {
+		if (q == null) {
+			q = "";
+		}
+		if (limit == null || limit < 1) {
+			limit = 10;
+		}
+		return employeeService.suggestName(q, Math.min(limit, MAX_SUGGEST_LIMIT));
+	}
+
 	/**
 	 * 従業員登録画面を出力します.
 	 * 
@@ -135,56 +264,167 @@ public class EmployeeController {
 	/**
 	 * 従業員情報を登録します.
 	 * 
-	 * @param form   従業員情報用フォーム
-	 * @param result 入力チェックのエラーを取得
-	 * @return 従業員一覧画面へリダイレクト
+	 * 画像の形式はファイル名ではなく内容から判定し、表示用の画像に変換して保存します.
+	 * 非同期で登録する場合は登録待ちの待ち行列に入れて登録状況画面へリダイレクトし、
+	 * 待ち行列が一杯の場合は503(Service Unavailable)で従業員登録画面を出力します.
+	 * 
+	 * @param form     従業員情報用フォーム
+	 * @param result   入力チェックのエラーを取得
+	 * @param model    モデル
+	 * @param response レスポンス
+	 * @return 従業員一覧画面、または登録状況画面へリダイレクト
 	 */
 	@RequestMapping("/insert")
-	public String insert(@Validated InsertEmployeeForm form, BindingResult result) {
-		if (!result.hasFieldErrors("telephone")) {
-			if (!Pattern.matches("^0[1-9]0.*", form.getTelephone()) && form.getTelephone().replace(",", "").length() != 10) {
-					result.addError(new FieldError(result.getObjectName(), "telephone", "電話番号が不正です"));
-			}
-		}
+	public String insert(@Validated InsertEmployeeForm form, BindingResult result, Model model,
+			HttpServletResponse response) {
+		insertEmployeeFormValidator.validate(form, result);
 		if(!result.hasFieldErrors("mailAddress")) {
-			if(employeeService.checkMailAddress(form.getMailAddress()) != null) {
+			if(employeeService.checkMailAddress(form.getMailAddress()) != null
+					|| employeeRegistrationQueue.isPending(form.getMailAddress())) {
 				result.addError(new FieldError(result.getObjectName(), "mailAddress", "このメールアドレスは既に登録されています"));
 			}
 		}
-		if (!result.hasFieldErrors("salary")) {
-			if (form.getSalary().length() > 6 || Integer.parseInt(form.getSalary()) > 500000) {
-				result.addError(new FieldError(result.getObjectName(), "salary", "給料は50万円以下で入力してください"));
-			}
-		}
-		if(form.getImage() == null) {
+		ProcessedImage image = null;
+		if(form.getImage() == null || form.getImage().isEmpty()) {
 			result.addError(new FieldError(result.getObjectName(), "image", "pngファイル、またはjpgファイルを選択してください"));
-		} else {
-		String fileName = form.getImage().getOriginalFilename();
-			if(fileName.lastIndexOf("jpg") != fileName.length()-3 && fileName.lastIndexOf("png") != fileName.length()-3) {
-				result.addError(new FieldError(result.getObjectName(), "image", "pngファイル、またはjpgファイルを選択してください"));
+		} else if(!result.hasErrors()) {
+			// 他の項目にエラーがある場合は画像を変換しません
+			try {
+				image = imageProcessor.process(form.getImage());
+			} catch(ImageRejectedException e) {
+				result.addError(new FieldError(result.getObjectName(), "image", e.getMessage()));
 			}
 		}
 		if (result.hasErrors()) {
 			return toInsert();
 		}
-		employeeService.insert(form);
+		if (employeeRegistrationQueue.isEnabled()) {
+			try {
+				EmployeeRegistrationStatus status = employeeRegistrationQueue.submit(form, image);
+				return "redirect:/employee/showRegistration?token=" + status.getToken();
+			} catch (RegistrationRejectedException e) {
+				response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				response.setHeader(HttpHeaders.RETRY_AFTER, REGISTRATION_RETRY_AFTER_SECONDS);
+				model.addAttribute("errorMessage", e.getMessage());
+				return toInsert();
+			}
+		}
+		employeeService.insert(form, image);
 		return "redirect:/employee/showList";
 	}
+
+	/**
+	 * 非同期で受け付けた従業員登録の登録状況画面を出力します.
+	 * 
+	 * @param token 受付番号
+	 * @param model モデル
+	 * @return 登録状況画面
+	 */
+	@RequestMapping("/showRegistration")
+	public String showRegistration(String token, Model model) {
+		model.addAttribute("registrationStatus", token == null ? null : employeeRegistrationQueue.getStatus(token));
+		return "employee/registration";
+	}
+
+	/**
+	 * 非同期で受け付けた従業員登録の状態をJSONで返します.
+	 * 
+	 * @param token 受付番号
+	 * @return 登録の状態 受付番号が存在しない場合や保持する時間を過ぎた場合は404(Not Found)
+	 */
+	@RequestMapping("/registrationStatus")
+	@ResponseBody
+	public ResponseEntity<EmployeeRegistrationStatus> registrationStatus(String token) {
+		EmployeeRegistrationStatus status = token == null ? null : employeeRegistrationQueue.getStatus(token);
+		if (status == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(status);
+	}
 	
+	/**
+	 * 従業員一括登録画面を出力します.
+	 * 
+	 * @return 従業員一括登録画面
+	 */
+	@RequestMapping("/toImport")
+	public String toImport() {
+		return "employee/import";
+	}
+
+	/**
+	 * CSV、TSVファイルから従業員情報を一括登録し、結果を表示します.
+	 * 
+	 * @param file    CSV、TSVファイル
+	 * @param charset ファイルの文字コード
+	 * @param model   モデル
+	 * @return 従業員一括登録画面
+	 * @throws IOException ファイルの読み込みに失敗した場合
+	 */
+	@RequestMapping("/import")
+	public String importEmployees(MultipartFile file, String charset, Model model) throws IOException {
+		if (file == null || file.isEmpty()) {
+			model.addAttribute("errorMessage", "CSVファイル、またはTSVファイルを選択してください");
+			return toImport();
+		}
+		Charset fileCharset = StandardCharsets.UTF_8;
+		if (charset != null && Charset.isSupported(charset)) {
+			fileCharset = Charset.forName(charset);
+		}
+		try (InputStream inputStream = file.getInputStream()) {
+			model.addAttribute("importResult", employeeImportService.importEmployees(inputStream, fileCharset));
+		}
+		return toImport();
+	}
+
+	/**
+	 * 全ての従業員情報をCSVまたはExcel(XLSX)ファイルとしてダウンロードさせます.
+	 * 
+	 * @param format   ファイル形式(csvまたはxlsx) それ以外の場合は400を返します
+	 * @param image    画像のキーを出力する場合はtrue
+	 * @param response レスポンス
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	@RequestMapping("/export")
+	public void export(@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(defaultValue = "false") boolean image, HttpServletResponse response) throws IOException {
+		if (!"csv".equals(format) && !"xlsx".equals(format)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		boolean xlsx = "xlsx".equals(format);
+		String fileName = "employees_" + new SimpleDateFormat("yyyyMMdd").format(new Date()) + (xlsx ? ".xlsx" : ".csv");
+		response.setContentType(xlsx ? XLSX_CONTENT_TYPE : "text/csv;charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+		if (xlsx) {
+			employeeExportService.exportXlsx(response.getOutputStream(), image);
+		} else {
+			employeeExportService.exportCsv(response.getOutputStream(), image);
+		}
+	}
+
 	/**
 	 * 最大10件の従業員情報を表示します.
 	 * 
+	 * ページ番号が指定された場合はページ番号で、それ以外の場合はカーソルでページングします.
+	 * 
 	 * @param pageNum ページ番号
+	 * @param after   前のページの最後の従業員を表すカーソル
+	 * @param before  次のページの最初の従業員を表すカーソル
 	 * @param model モデル
 	 * @return　従業員一覧画面
 	 */
 	@RequestMapping("/showList10")
-	public String showList10(Integer pageNum,Model model) {
-		if(pageNum == null) {
-			pageNum = 1;
+	public String showList10(Integer pageNum, String after, String before, Model model) {
+		if (pageNum != null) {
+			List<EmployeeSummary> employeeList = employeeService.showList10(pageNum);
+			model.addAttribute("employeeList", employeeList);
+			return "employee/list";
 		}
-		List<Employee> employeeList = employeeService.showList10(pageNum);
-		model.addAttribute("employeeList",employeeList);
+		EmployeePage employeePage = employeeService.showPage(after, before);
+		model.addAttribute("employeeList", employeePage.getEmployeeList());
+		model.addAttribute("nextCursor", employeePage.getNextCursor());
+		model.addAttribute("previousCursor", employeePage.getPreviousCursor());
 		return "employee/list";
 	}
 }
@@ -0,0 +1,48 @@
+package jp.co.sample.emp_management.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * http.server.requestsにリクエストを処理したコントローラーのメソッド名のタグを追加します.
+ *
+ * 同じURLパターンを複数のメソッドが処理することは無いため、タグの種類は増えません.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class HandlerMetricsTagsContributor implements WebMvcTagsContributor {
+
+	@Override
+	public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Throwable exception) {
+		return Tags.of("handler", toHandlerName(handler));
+	}
+
+	@Override
+	public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+		return Tags.of("handler", toHandlerName(handler));
+	}
+
+	/**
+	 * ハンドラーを「コントローラー名.メソッド名」に変換します.
+	 *
+	 * @param handler ハンドラー
+	 * @return ハンドラー名 コントローラーのメソッド以外(静的ファイルなど)の場合はnone
+	 */
+	private static String toHandlerName(Object handler) {
+		if (!(handler instanceof HandlerMethod)) {
+			return "none";
+		}
+		HandlerMethod handlerMethod = (HandlerMethod) handler;
+		return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+	}
+}
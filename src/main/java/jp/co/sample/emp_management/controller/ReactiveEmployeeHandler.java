@@ -0,0 +1,231 @@
+package jp.co.sample.emp_management.controller;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jp.co.sample.emp_management.domain.EmployeePage;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
+import jp.co.sample.emp_management.repository.ReactiveEmployeeRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 従業員情報をJSONまたはNDJSONで返す参照用APIのハンドラー.
+ *
+ * ReactiveApiServerが起動するNettyのイベントループで動き、ReactiveEmployeeRepositoryの結果をそのまま書き出します.
+ * Acceptにapplication/x-ndjson(またはapplication/stream+json)を指定した場合は1行に1件ずつ、
+ * 行を受け取るたびに送信し、sizeを指定しなければ最後まで返します.
+ * それ以外の場合はJSONで、sizeまたはreactive-api.default-page-size件のページを返します.
+ *
+ * <pre>
+ * GET /employees?after=カーソル&amp;size=件数  従業員一覧(入社日、IDの順)
+ * GET /employees/search?q=検索ワード&amp;page=ページ番号&amp;size=件数  従業員名検索
+ * GET /employees/{id}  従業員詳細 存在しない場合は404
+ * </pre>
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class ReactiveEmployeeHandler {
+
+	/** 改行区切りのJSON(NDJSON) */
+	public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+	private final ReactiveEmployeeRepository reactiveEmployeeRepository;
+
+	/** JSONで返す場合の1ページの件数 */
+	private final int defaultPageSize;
+
+	/** sizeに指定できる最大件数 */
+	private final int maxPageSize;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param reactiveEmployeeRepository employeesテーブルをR2DBCで参照するリポジトリ
+	 * @param defaultPageSize            JSONで返す場合の1ページの件数
+	 * @param maxPageSize                sizeに指定できる最大件数
+	 */
+	public ReactiveEmployeeHandler(ReactiveEmployeeRepository reactiveEmployeeRepository,
+			@Value("${reactive-api.default-page-size}") int defaultPageSize,
+			@Value("${reactive-api.max-page-size}") int maxPageSize) {
+		this.reactiveEmployeeRepository = reactiveEmployeeRepository;
+		this.defaultPageSize = defaultPageSize;
+		this.maxPageSize = maxPageSize;
+	}
+
+	/**
+	 * URLとハンドラーの対応を生成します.
+	 *
+	 * @return ルーター
+	 */
+	public RouterFunction<ServerResponse> router() {
+		return RouterFunctions.route(GET("/employees/search"), this::search)
+				.andRoute(GET("/employees/{id}"), this::detail).andRoute(GET("/employees"), this::list);
+	}
+
+	/**
+	 * レスポンスの書き出しに使う設定を生成します.
+	 *
+	 * NDJSONを1件ずつ書き出すよう、Spring Framework 5.2が知らないapplication/x-ndjsonを逐次送信する形式に加えます.
+	 *
+	 * @param objectMapper JSONへの変換に使うObjectMapper
+	 * @return 設定
+	 */
+	public static HandlerStrategies handlerStrategies(ObjectMapper objectMapper) {
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON,
+				MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON);
+		encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+		return HandlerStrategies.builder()
+				.codecs(configurer -> configurer.defaultCodecs().jackson2JsonEncoder(encoder)).build();
+	}
+
+	/**
+	 * 従業員一覧を返します.
+	 *
+	 * @param request リクエスト
+	 * @return NDJSONの場合は従業員情報、JSONの場合は次のページのカーソルを持つ1ページ分の従業員情報
+	 */
+	public Mono<ServerResponse> list(ServerRequest request) {
+		PageCursor cursor = request.queryParam("after").map(PageCursor::decode).orElse(null);
+		Integer size = parseSize(request);
+		if (size != null && size < 1) {
+			return ServerResponse.badRequest().build();
+		}
+		if (isStreaming(request)) {
+			return stream(reactiveEmployeeRepository.findAfter(cursor, size));
+		}
+		int pageSize = size == null ? defaultPageSize : size;
+		// 次のページの有無を知るため1件多く取得します
+		Mono<EmployeePage> page = reactiveEmployeeRepository.findAfter(cursor, pageSize + 1).collectList()
+				.map(employeeList -> toPage(employeeList, pageSize));
+		return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(page, EmployeePage.class);
+	}
+
+	/**
+	 * 検索ワードが名前に含まれる従業員情報を返します.
+	 *
+	 * @param request リクエスト
+	 * @return 該当した従業員情報 検索ワードが無い場合は400
+	 */
+	public Mono<ServerResponse> search(ServerRequest request) {
+		String searchWord = request.queryParam("q").orElse("");
+		Integer size = parseSize(request);
+		// 数値でない場合は1ページ目を返します
+		Integer pageNum = request.queryParam("page").map(ReactiveEmployeeHandler::parseInteger).orElse(1);
+		if (searchWord.isEmpty() || (size != null && size < 1) || pageNum < 1) {
+			return ServerResponse.badRequest().build();
+		}
+		if (isStreaming(request)) {
+			Integer offset = size == null ? 0 : (pageNum - 1) * size;
+			return stream(reactiveEmployeeRepository.findBySearchWord(searchWord, size, offset));
+		}
+		int pageSize = size == null ? defaultPageSize : size;
+		Flux<EmployeeSummary> employees = reactiveEmployeeRepository.findBySearchWord(searchWord, pageSize,
+				(pageNum - 1) * pageSize);
+		return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(employees, EmployeeSummary.class);
+	}
+
+	/**
+	 * 従業員詳細を返します.
+	 *
+	 * @param request リクエスト
+	 * @return 従業員情報 存在しない場合は404
+	 */
+	public Mono<ServerResponse> detail(ServerRequest request) {
+		Integer id = parseInteger(request.pathVariable("id"));
+		if (id == null) {
+			return ServerResponse.badRequest().build();
+		}
+		return reactiveEmployeeRepository.load(id)
+				.flatMap(employee -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+						.bodyValue(employee))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	/**
+	 * 従業員情報を1行に1件ずつ送信するレスポンスを生成します.
+	 *
+	 * @param employees 従業員情報
+	 * @return レスポンス
+	 */
+	private Mono<ServerResponse> stream(Flux<EmployeeSummary> employees) {
+		return ServerResponse.ok().contentType(APPLICATION_NDJSON).body(employees, EmployeeSummary.class);
+	}
+
+	/**
+	 * 1件多く取得した従業員情報からページを生成します.
+	 *
+	 * @param employeeList 従業員情報(最大pageSize + 1件)
+	 * @param pageSize     1ページの件数
+	 * @return ページ
+	 */
+	private static EmployeePage toPage(List<EmployeeSummary> employeeList, int pageSize) {
+		if (employeeList.size() <= pageSize) {
+			return new EmployeePage(employeeList, null, null);
+		}
+		List<EmployeeSummary> pageList = employeeList.subList(0, pageSize);
+		return new EmployeePage(pageList, PageCursor.of(pageList.get(pageSize - 1)).encode(), null);
+	}
+
+	/**
+	 * NDJSONで返すか判定します.
+	 *
+	 * @param request リクエスト
+	 * @return Acceptにapplication/x-ndjsonかapplication/stream+jsonが含まれる場合はtrue
+	 */
+	private static boolean isStreaming(ServerRequest request) {
+		for (MediaType mediaType : request.headers().accept()) {
+			// */*やapplication/*の場合はJSONで返します
+			if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+				continue;
+			}
+			if (mediaType.isCompatibleWith(APPLICATION_NDJSON)
+					|| mediaType.isCompatibleWith(MediaType.APPLICATION_STREAM_JSON)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * sizeを取得します.
+	 *
+	 * @param request リクエスト
+	 * @return 件数 指定されていない場合はnull 数値でない場合と上限を超えた場合は0
+	 */
+	private Integer parseSize(ServerRequest request) {
+		if (!request.queryParam("size").isPresent()) {
+			return null;
+		}
+		Integer size = parseInteger(request.queryParam("size").get());
+		if (size == null || size > maxPageSize) {
+			return 0;
+		}
+		return size;
+	}
+
+	private static Integer parseInteger(String value) {
+		try {
+			return Integer.valueOf(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package jp.co.sample.emp_management.controller;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * レスポンスボディのバイト数をhttp.server.response.sizeとして記録するフィルター.
+ *
+ * 写真を含む一覧画面やCSV、Excel出力はレスポンスが大きくなるため、http.server.requestsと同じ
+ * uri(リクエストに対応したURLパターン)のタグを付けて記録します.
+ * レスポンスはバッファリングせず、書き込まれたバイト数を数えるだけです.
+ * Tomcatのsendfileで送信する画像はレスポンスに書き込まれないため、Content-Lengthを記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class ResponseSizeFilter extends OncePerRequestFilter {
+
+	/** sendfileで送信するファイルを指定するリクエストの属性 */
+	static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		CountingResponseWrapper responseWrapper = new CountingResponseWrapper(response);
+		try {
+			filterChain.doFilter(request, responseWrapper);
+		} finally {
+			responseWrapper.flushWriter();
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			long byteCount = responseWrapper.getByteCount();
+			if (request.getAttribute(SENDFILE_FILENAME_ATTRIBUTE) != null && responseWrapper.getContentLength() > 0) {
+				// ファイルの内容はこのフィルターを通らずにTomcatが送信します
+				byteCount = responseWrapper.getContentLength();
+			}
+			DistributionSummary.builder("http.server.response.size").description("レスポンスボディのバイト数")
+					.baseUnit("bytes").tags("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+					.register(meterRegistry).record(byteCount);
+		}
+	}
+
+	/**
+	 * 書き込まれたバイト数を数えるレスポンス.
+	 */
+	private static class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+		/** 書き込まれたバイト数 */
+		private long byteCount;
+
+		/** 設定されたContent-Length 設定されていない場合は-1 */
+		private long contentLength = -1;
+
+		private ServletOutputStream outputStream;
+
+		private PrintWriter writer;
+
+		CountingResponseWrapper(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (outputStream == null) {
+				ServletOutputStream delegate = super.getOutputStream();
+				outputStream = new ServletOutputStream() {
+
+					@Override
+					public void write(int b) throws IOException {
+						delegate.write(b);
+						byteCount++;
+					}
+
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						delegate.write(b, off, len);
+						byteCount += len;
+					}
+
+					@Override
+					public void flush() throws IOException {
+						delegate.flush();
+					}
+
+					@Override
+					public void close() throws IOException {
+						delegate.close();
+					}
+
+					@Override
+					public boolean isReady() {
+						return delegate.isReady();
+					}
+
+					@Override
+					public void setWriteListener(WriteListener writeListener) {
+						delegate.setWriteListener(writeListener);
+					}
+				};
+			}
+			return outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			super.setContentLength(len);
+			contentLength = len;
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			super.setContentLengthLong(len);
+			contentLength = len;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			flushWriter();
+			super.flushBuffer();
+		}
+
+		/**
+		 * getWriterで書き込まれた文字をレスポンスに書き出します.
+		 */
+		void flushWriter() {
+			if (writer != null) {
+				writer.flush();
+			}
+		}
+
+		long getByteCount() {
+			return byteCount;
+		}
+
+		long getContentLength() {
+			return contentLength;
+		}
+	}
+}
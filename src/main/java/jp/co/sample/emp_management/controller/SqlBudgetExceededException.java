@@ -0,0 +1,23 @@
+package jp.co.sample.emp_management.controller;
+
+/**
+ * 1回のリクエストで実行したSQLの件数または時間が上限を超えたことを表す例外.
+ *
+ * sql.budget.fail-on-exceedがtrueの場合に発生します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 超えた上限と実行したSQL
+	 */
+	public SqlBudgetExceededException(String message) {
+		super(message);
+	}
+}
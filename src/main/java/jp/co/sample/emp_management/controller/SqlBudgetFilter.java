@@ -0,0 +1,101 @@
+package jp.co.sample.emp_management.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.sample.emp_management.controller.SqlBudgetProperties.Budget;
+import jp.co.sample.emp_management.repository.SqlStatementRecord;
+import jp.co.sample.emp_management.repository.SqlStatementRecorder;
+
+/**
+ * リクエストごとに実行したSQLを記録し、件数と時間が上限を超えていないか確認するフィルター.
+ *
+ * 上限を超えた場合は実行したSQLの一覧を警告ログに出力し、sql.budget.fail-on-exceedがtrueの場合は
+ * SqlBudgetExceededExceptionを発生させます. SQLの件数はhttp.server.sql.statementsとしても記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+	@Autowired
+	private SqlBudgetProperties sqlBudgetProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		List<SqlStatementRecord> recordList;
+		SqlStatementRecorder.start();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			recordList = SqlStatementRecorder.stop();
+		}
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (pattern == null || request.isAsyncStarted()) {
+			return;
+		}
+		check(pattern.toString(), recordList);
+	}
+
+	/**
+	 * 実行したSQLの件数と時間が上限を超えていないか確認します.
+	 *
+	 * @param pattern    リクエストに対応したURLパターン
+	 * @param recordList 実行したSQL
+	 */
+	private void check(String pattern, List<SqlStatementRecord> recordList) {
+		DistributionSummary.builder("http.server.sql.statements").description("1回のリクエストで実行したSQLの件数")
+				.tags("uri", pattern).register(meterRegistry).record(recordList.size());
+		double totalMillis = 0;
+		for (SqlStatementRecord record : recordList) {
+			totalMillis += record.getDurationMillis();
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{}: SQL {}件, {}ミリ秒 {}", pattern, recordList.size(), String.format("%.1f", totalMillis),
+					recordList);
+		}
+		Budget budget = sqlBudgetProperties.getBudget(pattern);
+		StringBuilder exceeded = new StringBuilder();
+		if (budget.getMaxQueries() != null && recordList.size() > budget.getMaxQueries()) {
+			exceeded.append("SQLの件数").append(recordList.size()).append("件が上限").append(budget.getMaxQueries())
+					.append("件を超えました. ");
+		}
+		if (budget.getMaxMillis() != null && totalMillis > budget.getMaxMillis()) {
+			exceeded.append("SQLの実行時間").append(String.format("%.1f", totalMillis)).append("ミリ秒が上限")
+					.append(budget.getMaxMillis()).append("ミリ秒を超えました. ");
+		}
+		if (exceeded.length() == 0) {
+			return;
+		}
+		StringBuilder message = new StringBuilder(pattern).append(": ").append(exceeded);
+		for (SqlStatementRecord record : recordList) {
+			message.append(System.lineSeparator()).append(String.format("  %.1fms %d行 ", record.getDurationMillis(),
+					record.getRows())).append(record.getSql());
+		}
+		if (sqlBudgetProperties.isFailOnExceed()) {
+			throw new SqlBudgetExceededException(message.toString());
+		}
+		LOGGER.warn(message.toString());
+	}
+}
@@ -0,0 +1,106 @@
+package jp.co.sample.emp_management.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 1回のリクエストで実行してよいSQLの件数と時間の上限(sql.budget).
+ *
+ * エンドポイント(リクエストに対応したURLパターン)ごとに上限を指定でき、
+ * 指定していない項目はdefaultsの値を使います.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+@ConfigurationProperties(prefix = "sql.budget")
+public class SqlBudgetProperties {
+
+	/** 上限を超えた場合にログに出力するだけでなく例外を発生させる場合はtrue(テスト用) */
+	private boolean failOnExceed;
+
+	/** エンドポイントごとの上限を指定していない場合の上限 */
+	private Budget defaults = new Budget();
+
+	/** URLパターンとエンドポイントごとの上限 */
+	private Map<String, Budget> endpoints = new LinkedHashMap<>();
+
+	/**
+	 * エンドポイントの上限を取得します.
+	 *
+	 * @param pattern リクエストに対応したURLパターン
+	 * @return 上限 指定していない項目はdefaultsの値を使います
+	 */
+	public Budget getBudget(String pattern) {
+		Budget endpointBudget = endpoints.get(pattern);
+		if (endpointBudget == null) {
+			return defaults;
+		}
+		Budget budget = new Budget();
+		budget.setMaxQueries(
+				endpointBudget.getMaxQueries() != null ? endpointBudget.getMaxQueries() : defaults.getMaxQueries());
+		budget.setMaxMillis(
+				endpointBudget.getMaxMillis() != null ? endpointBudget.getMaxMillis() : defaults.getMaxMillis());
+		return budget;
+	}
+
+	public boolean isFailOnExceed() {
+		return failOnExceed;
+	}
+
+	public void setFailOnExceed(boolean failOnExceed) {
+		this.failOnExceed = failOnExceed;
+	}
+
+	public Budget getDefaults() {
+		return defaults;
+	}
+
+	public void setDefaults(Budget defaults) {
+		this.defaults = defaults;
+	}
+
+	public Map<String, Budget> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(Map<String, Budget> endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	/**
+	 * SQLの件数と時間の上限.
+	 */
+	public static class Budget {
+
+		/** SQLの件数の上限 nullの場合は制限しません */
+		private Integer maxQueries;
+
+		/** SQLの実行時間の合計の上限(ミリ秒) nullの場合は制限しません */
+		private Long maxMillis;
+
+		public Integer getMaxQueries() {
+			return maxQueries;
+		}
+
+		public void setMaxQueries(Integer maxQueries) {
+			this.maxQueries = maxQueries;
+		}
+
+		public Long getMaxMillis() {
+			return maxMillis;
+		}
+
+		public void setMaxMillis(Long maxMillis) {
+			this.maxMillis = maxMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "Budget [maxQueries=" + maxQueries + ", maxMillis=" + maxMillis + "]";
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package jp.co.sample.emp_management.controller;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import jp.co.sample.emp_management.service.ZipcodeService;
+
+/**
+ * 郵便番号から住所を検索するAPIのコントローラー.
+ *
+ * @author yu.konishi
+ *
+ */
+@Controller
+@RequestMapping("/api/zipcode")
+public class ZipcodeController {
+
+	/** 郵便番号データは起動中に変わらないため、ブラウザに1日キャッシュさせます */
+	private static final CacheControl ZIPCODE_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.DAYS)
+			.cachePublic();
+
+	@Autowired
+	private ZipcodeService zipcodeService;
+
+	/**
+	 * 郵便番号に該当する住所をJSONで返します.
+	 * 
+	 * @param code 郵便番号(「000-0000」または「0000000」)
+	 * @return 住所の一覧 形式が正しくない場合は400、該当しない場合は404を返します
+	 */
+	@RequestMapping("/{code}")
+	@ResponseBody
+	public ResponseEntity<List<String>> searchAddress(@PathVariable String code) {
+		if (!zipcodeService.isValid(code)) {
+			return ResponseEntity.badRequest().build();
+		}
+		List<String> addressList = zipcodeService.searchAddress(code);
+		if (addressList.isEmpty()) {
+			return ResponseEntity.notFound().cacheControl(ZIPCODE_CACHE_CONTROL).build();
+		}
+		return ResponseEntity.ok().cacheControl(ZIPCODE_CACHE_CONTROL).body(addressList);
+	}
+}
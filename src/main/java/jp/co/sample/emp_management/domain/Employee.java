@@ -33,6 +33,10 @@ public class Employee {
 	private String characteristics;
 	/** 扶養人数 */
 	private Integer dependentsCount;
+	/** 版番号 行を更新するたびに増えます */
+	private Integer version;
+	/** 更新日時 */
+	private Date updatedAt;
 
 	/**
 	 * 引数無しのコンストラクタ.
@@ -181,12 +185,28 @@ public class Employee {
 		this.dependentsCount = dependentsCount;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
+	public Date getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	@Override
 	public String toString() {
 		return "Employee [id=" + id + ", name=" + name + ", image=" + image + ", gender=" + gender + ", hireDate="
 				+ hireDate + ", mailAddress=" + mailAddress + ", zipCode=" + zipCode + ", address=" + address
 				+ ", telephone=" + telephone + ", salary=" + salary + ", characteristics=" + characteristics
-				+ ", dependentsCount=" + dependentsCount + "]";
+				+ ", dependentsCount=" + dependentsCount + ", version=" + version + ", updatedAt=" + updatedAt + "]";
 	}
 
 }
@@ -0,0 +1,82 @@
+package jp.co.sample.emp_management.domain;
+
+/**
+ * 従業員情報が変更されたことを表すイベント.
+ *
+ * 他のアプリケーションサーバーでの変更もPostgreSQLのNOTIFYで受け取り、このイベントとして通知します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeChangedEvent {
+
+	/** 登録 */
+	public static final String INSERT = "insert";
+	/** 更新 */
+	public static final String UPDATE = "update";
+	/** 変更を受け取れなかった可能性があり、全てのキャッシュを破棄する必要がある */
+	public static final String RESET = "reset";
+
+	/** 操作(insert, update, reset) */
+	private final String operation;
+	/** 従業員ID resetの場合はnull */
+	private final Integer id;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param operation
+	 *            操作
+	 * @param id
+	 *            従業員ID
+	 */
+	public EmployeeChangedEvent(String operation, Integer id) {
+		this.operation = operation;
+		this.id = id;
+	}
+
+	/**
+	 * NOTIFYのペイロード(「操作:従業員ID」、resetの場合は「reset」)からイベントを生成します.
+	 *
+	 * @param payload NOTIFYのペイロード
+	 * @return イベント ペイロードが不正な場合はnullを返します
+	 */
+	public static EmployeeChangedEvent fromPayload(String payload) {
+		int separatorIndex = payload.indexOf(':');
+		if (separatorIndex < 0) {
+			return RESET.equals(payload) ? new EmployeeChangedEvent(RESET, null) : null;
+		}
+		try {
+			return new EmployeeChangedEvent(payload.substring(0, separatorIndex),
+					Integer.parseInt(payload.substring(separatorIndex + 1)));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * NOTIFYのペイロード(「操作:従業員ID」、resetの場合は「reset」)に変換します.
+	 *
+	 * @return NOTIFYのペイロード
+	 */
+	public String toPayload() {
+		if (id == null) {
+			return operation;
+		}
+		return operation + ":" + id;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeChangedEvent [operation=" + operation + ", id=" + id + "]";
+	}
+
+}
@@ -0,0 +1,68 @@
+package jp.co.sample.emp_management.domain;
+
+/**
+ * 従業員の一括登録で登録できなかった行とその理由を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeImportError {
+	/** ファイルの行番号(1始まり) ファイル全体のエラーの場合は0 */
+	private int lineNumber;
+	/** エラーの項目 項目に依らない場合はnull */
+	private String field;
+	/** エラーメッセージ */
+	private String message;
+
+	/**
+	 * 引数無しのコンストラクタ.
+	 */
+	public EmployeeImportError() {
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param lineNumber
+	 *            ファイルの行番号
+	 * @param field
+	 *            エラーの項目
+	 * @param message
+	 *            エラーメッセージ
+	 */
+	public EmployeeImportError(int lineNumber, String field, String message) {
+		this.lineNumber = lineNumber;
+		this.field = field;
+		this.message = message;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	public void setLineNumber(int lineNumber) {
+		this.lineNumber = lineNumber;
+	}
+
+	public String getField() {
+		return field;
+	}
+
+	public void setField(String field) {
+		this.field = field;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeImportError [lineNumber=" + lineNumber + ", field=" + field + ", message=" + message + "]";
+	}
+
+}
@@ -0,0 +1,75 @@
+package jp.co.sample.emp_management.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 従業員の一括登録の結果を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeImportResult {
+	/** 読み込んだ従業員の件数(見出し行を除く) */
+	private int totalCount;
+	/** 登録した従業員の件数 */
+	private int importedCount;
+	/** エラーの件数 */
+	private int errorCount;
+	/** エラーの一覧 件数が多い場合は先頭の一部のみを保持します */
+	private List<EmployeeImportError> errorList = new ArrayList<>();
+
+	/**
+	 * 引数無しのコンストラクタ.
+	 */
+	public EmployeeImportResult() {
+	}
+
+	/**
+	 * エラーの一覧から省略したエラーの件数を返します.
+	 *
+	 * @return 省略したエラーの件数
+	 */
+	public int getOmittedErrorCount() {
+		return errorCount - errorList.size();
+	}
+
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public void setTotalCount(int totalCount) {
+		this.totalCount = totalCount;
+	}
+
+	public int getImportedCount() {
+		return importedCount;
+	}
+
+	public void setImportedCount(int importedCount) {
+		this.importedCount = importedCount;
+	}
+
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	public void setErrorCount(int errorCount) {
+		this.errorCount = errorCount;
+	}
+
+	public List<EmployeeImportError> getErrorList() {
+		return errorList;
+	}
+
+	public void setErrorList(List<EmployeeImportError> errorList) {
+		this.errorList = errorList;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeImportResult [totalCount=" + totalCount + ", importedCount=" + importedCount + ", errorCount="
+				+ errorCount + ", errorList=" + errorList + "]";
+	}
+
+}
@@ -0,0 +1,71 @@
+package jp.co.sample.emp_management.domain;
+
+import java.util.List;
+
+/**
+ * 従業員一覧の1ページ分の情報を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeePage {
+	/** ページ内の従業員一覧 */
+	private List<EmployeeSummary> employeeList;
+	/** 次のページのカーソル 次のページが無い場合はnull */
+	private String nextCursor;
+	/** 前のページのカーソル 前のページが無い場合はnull */
+	private String previousCursor;
+
+	/**
+	 * 引数無しのコンストラクタ.
+	 */
+	public EmployeePage() {
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param employeeList
+	 *            ページ内の従業員一覧
+	 * @param nextCursor
+	 *            次のページのカーソル
+	 * @param previousCursor
+	 *            前のページのカーソル
+	 */
+	public EmployeePage(List<EmployeeSummary> employeeList, String nextCursor, String previousCursor) {
+		this.employeeList = employeeList;
+		this.nextCursor = nextCursor;
+		this.previousCursor = previousCursor;
+	}
+
+	public List<EmployeeSummary> getEmployeeList() {
+		return employeeList;
+	}
+
+	public void setEmployeeList(List<EmployeeSummary> employeeList) {
+		this.employeeList = employeeList;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public String getPreviousCursor() {
+		return previousCursor;
+	}
+
+	public void setPreviousCursor(String previousCursor) {
+		this.previousCursor = previousCursor;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeePage [employeeList=" + employeeList + ", nextCursor=" + nextCursor + ", previousCursor="
+				+ previousCursor + "]";
+	}
+
+}
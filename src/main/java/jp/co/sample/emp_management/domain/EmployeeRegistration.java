@@ -0,0 +1,50 @@
+package jp.co.sample.emp_management.domain;
+
+/**
+ * 非同期の従業員登録で受け付けた、登録待ちの従業員情報を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeRegistration {
+	/** 受付番号 */
+	private final String token;
+	/** 従業員情報(従業員IDと画像のキーは登録時に設定します) */
+	private final Employee employee;
+	/** 表示用の画像 */
+	private final ProcessedImage image;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param token
+	 *            受付番号
+	 * @param employee
+	 *            従業員情報
+	 * @param image
+	 *            表示用の画像
+	 */
+	public EmployeeRegistration(String token, Employee employee, ProcessedImage image) {
+		this.token = token;
+		this.employee = employee;
+		this.image = image;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public Employee getEmployee() {
+		return employee;
+	}
+
+	public ProcessedImage getImage() {
+		return image;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeRegistration [token=" + token + ", mailAddress=" + employee.getMailAddress() + "]";
+	}
+
+}
@@ -0,0 +1,100 @@
+package jp.co.sample.emp_management.domain;
+
+/**
+ * 非同期の従業員登録の状態を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeRegistrationStatus {
+
+	/** 登録待ち */
+	public static final String QUEUED = "queued";
+	/** 登録済み */
+	public static final String COMPLETED = "completed";
+	/** 登録できなかった */
+	public static final String FAILED = "failed";
+
+	/** 受付番号 */
+	private final String token;
+	/** 状態(queued, completed, failed) */
+	private final String status;
+	/** 登録した従業員ID 登録済みでない場合はnull */
+	private final Integer employeeId;
+	/** 登録できなかった理由 登録できなかった場合以外はnull */
+	private final String message;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param token
+	 *            受付番号
+	 * @param status
+	 *            状態
+	 * @param employeeId
+	 *            登録した従業員ID
+	 * @param message
+	 *            登録できなかった理由
+	 */
+	public EmployeeRegistrationStatus(String token, String status, Integer employeeId, String message) {
+		this.token = token;
+		this.status = status;
+		this.employeeId = employeeId;
+		this.message = message;
+	}
+
+	/**
+	 * 登録待ちの状態を生成します.
+	 *
+	 * @param token 受付番号
+	 * @return 登録待ちの状態
+	 */
+	public static EmployeeRegistrationStatus queued(String token) {
+		return new EmployeeRegistrationStatus(token, QUEUED, null, null);
+	}
+
+	/**
+	 * 登録済みの状態を生成します.
+	 *
+	 * @param token      受付番号
+	 * @param employeeId 登録した従業員ID
+	 * @return 登録済みの状態
+	 */
+	public static EmployeeRegistrationStatus completed(String token, Integer employeeId) {
+		return new EmployeeRegistrationStatus(token, COMPLETED, employeeId, null);
+	}
+
+	/**
+	 * 登録できなかった状態を生成します.
+	 *
+	 * @param token   受付番号
+	 * @param message 登録できなかった理由
+	 * @return 登録できなかった状態
+	 */
+	public static EmployeeRegistrationStatus failed(String token, String message) {
+		return new EmployeeRegistrationStatus(token, FAILED, null, message);
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public Integer getEmployeeId() {
+		return employeeId;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeRegistrationStatus [token=" + token + ", status=" + status + ", employeeId=" + employeeId
+				+ ", message=" + message + "]";
+	}
+
+}
@@ -0,0 +1,85 @@
+package jp.co.sample.emp_management.domain;
+
+import java.util.List;
+
+/**
+ * 従業員名検索の結果を表すドメイン.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeSearchResult {
+	/** 表示する従業員一覧 */
+	private List<EmployeeSummary> employeeList;
+	/** 該当する従業員が存在せず、従業員一覧の先頭ページを代わりに表示する場合はtrue */
+	private boolean fellBack;
+	/** 検索ワードに該当した従業員の総数 */
+	private int totalCount;
+	/** 従業員一覧の先頭ページを表示する場合の次のページのカーソル 次のページが無い場合はnull */
+	private String nextCursor;
+
+	/**
+	 * 引数無しのコンストラクタ.
+	 */
+	public EmployeeSearchResult() {
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param employeeList
+	 *            表示する従業員一覧
+	 * @param fellBack
+	 *            従業員一覧の先頭ページを代わりに表示する場合はtrue
+	 * @param totalCount
+	 *            検索ワードに該当した従業員の総数
+	 * @param nextCursor
+	 *            従業員一覧の先頭ページを表示する場合の次のページのカーソル
+	 */
+	public EmployeeSearchResult(List<EmployeeSummary> employeeList, boolean fellBack, int totalCount,
+			String nextCursor) {
+		this.employeeList = employeeList;
+		this.fellBack = fellBack;
+		this.totalCount = totalCount;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<EmployeeSummary> getEmployeeList() {
+		return employeeList;
+	}
+
+	public void setEmployeeList(List<EmployeeSummary> employeeList) {
+		this.employeeList = employeeList;
+	}
+
+	public boolean isFellBack() {
+		return fellBack;
+	}
+
+	public void setFellBack(boolean fellBack) {
+		this.fellBack = fellBack;
+	}
+
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public void setTotalCount(int totalCount) {
+		this.totalCount = totalCount;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeSearchResult [employeeList=" + employeeList + ", fellBack=" + fellBack + ", totalCount="
+				+ totalCount + ", nextCursor=" + nextCursor + "]";
+	}
+
+}
@@ -0,0 +1,106 @@
+package jp.co.sample.emp_management.domain;
+
+import java.util.Date;
+
+/**
+ * 従業員一覧表示用の従業員情報を表すドメイン.
+ *
+ * 一覧画面で表示する項目のみを保持し、画像などの大きな項目は持ちません.
+ *
+ * @author yu.konishi
+ *
+ */
+public class EmployeeSummary {
+	/** id */
+	private Integer id;
+	/** 従業員名 */
+	private String name;
+	/** 入社日 */
+	private Date hireDate;
+	/** 扶養人数 */
+	private Integer dependentsCount;
+	/** 版番号 行を更新するたびに増えます */
+	private Integer version;
+	/** 更新日時 */
+	private Date updatedAt;
+
+	/**
+	 * 引数無しのコンストラクタ.
+	 */
+	public EmployeeSummary() {
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param id
+	 *            ID
+	 * @param name
+	 *            従業員名
+	 * @param hireDate
+	 *            入社日
+	 * @param dependentsCount
+	 *            扶養人数
+	 */
+	public EmployeeSummary(Integer id, String name, Date hireDate, Integer dependentsCount) {
+		this.id = id;
+		this.name = name;
+		this.hireDate = hireDate;
+		this.dependentsCount = dependentsCount;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Date getHireDate() {
+		return hireDate;
+	}
+
+	public void setHireDate(Date hireDate) {
+		this.hireDate = hireDate;
+	}
+
+	public Integer getDependentsCount() {
+		return dependentsCount;
+	}
+
+	public void setDependentsCount(Integer dependentsCount) {
+		this.dependentsCount = dependentsCount;
+	}
+
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
+	public Date getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeeSummary [id=" + id + ", name=" + name + ", hireDate=" + hireDate + ", dependentsCount="
+				+ dependentsCount + ", version=" + version + ", updatedAt=" + updatedAt + "]";
+	}
+
+}
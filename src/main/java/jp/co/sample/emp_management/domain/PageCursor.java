@@ -0,0 +1,85 @@
+package jp.co.sample.emp_management.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * キーセットページングでページの境界となる従業員を表すカーソル.
+ *
+ * 並び順のキーである入社日とIDを保持し、画面には不透明な文字列として受け渡します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class PageCursor {
+	/** 入社日 */
+	private final Date hireDate;
+	/** id */
+	private final Integer id;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param hireDate
+	 *            入社日
+	 * @param id
+	 *            ID
+	 */
+	public PageCursor(Date hireDate, Integer id) {
+		this.hireDate = hireDate;
+		this.id = id;
+	}
+
+	/**
+	 * 従業員の入社日とIDからカーソルを生成します.
+	 *
+	 * @param employee 従業員情報
+	 * @return カーソル
+	 */
+	public static PageCursor of(EmployeeSummary employee) {
+		return new PageCursor(employee.getHireDate(), employee.getId());
+	}
+
+	/**
+	 * カーソルを画面に受け渡す文字列に変換します.
+	 *
+	 * @return カーソルの文字列
+	 */
+	public String encode() {
+		String value = hireDate.getTime() + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * 画面から受け取った文字列をカーソルに変換します.
+	 *
+	 * @param cursor カーソルの文字列
+	 * @return カーソル 文字列が不正な場合はnullを返します
+	 */
+	public static PageCursor decode(String cursor) {
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+			int separatorIndex = value.indexOf(':');
+			long hireDateMillis = Long.parseLong(value.substring(0, separatorIndex));
+			int id = Integer.parseInt(value.substring(separatorIndex + 1));
+			return new PageCursor(new Date(hireDateMillis), id);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	public Date getHireDate() {
+		return hireDate;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "PageCursor [hireDate=" + hireDate + ", id=" + id + "]";
+	}
+
+}
@@ -0,0 +1,62 @@
+package jp.co.sample.emp_management.domain;
+
+/**
+ * アップロードされた画像から生成した表示用の画像を表すドメイン.
+ *
+ * 元の画像のメタデータ(撮影日時や位置情報など)は含みません.
+ *
+ * @author yu.konishi
+ *
+ */
+public class ProcessedImage {
+	/** 拡張子(png または jpg) */
+	private final String extension;
+	/** 表示用の画像 */
+	private final byte[] displayImage;
+	/** 元の画像の幅(ピクセル) */
+	private final int originalWidth;
+	/** 元の画像の高さ(ピクセル) */
+	private final int originalHeight;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param extension
+	 *            拡張子(png または jpg)
+	 * @param displayImage
+	 *            表示用の画像
+	 * @param originalWidth
+	 *            元の画像の幅(ピクセル)
+	 * @param originalHeight
+	 *            元の画像の高さ(ピクセル)
+	 */
+	public ProcessedImage(String extension, byte[] displayImage, int originalWidth, int originalHeight) {
+		this.extension = extension;
+		this.displayImage = displayImage;
+		this.originalWidth = originalWidth;
+		this.originalHeight = originalHeight;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public byte[] getDisplayImage() {
+		return displayImage;
+	}
+
+	public int getOriginalWidth() {
+		return originalWidth;
+	}
+
+	public int getOriginalHeight() {
+		return originalHeight;
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessedImage [extension=" + extension + ", displayImage=" + displayImage.length + "bytes, originalWidth="
+				+ originalWidth + ", originalHeight=" + originalHeight + "]";
+	}
+
+}
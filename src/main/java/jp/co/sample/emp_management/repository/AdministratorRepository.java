@@ -80,4 +80,16 @@ public class AdministratorRepository {
 		return administratorList.get(0);
 	}
 
+	/**
+	 * 管理者のパスワード(ハッシュ値)を更新します.
+	 * 
+	 * @param id       管理者ID
+	 * @param password パスワードのハッシュ値
+	 */
+	public void updatePassword(Integer id, String password) {
+		String sql = "update administrators set password=:password where id=:id";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("id", id).addValue("password", password);
+		template.update(sql, param);
+	}
+
 }
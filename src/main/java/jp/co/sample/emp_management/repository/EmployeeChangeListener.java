@@ -0,0 +1,151 @@
+package jp.co.sample.emp_management.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import jp.co.sample.emp_management.domain.EmployeeChangedEvent;
+
+/**
+ * 他のアプリケーションサーバーでの従業員情報の変更をPostgreSQLのLISTENで受け取るリスナー.
+ *
+ * コネクションプールとは別の専用のコネクションでemployee_changedチャネルをLISTENし、
+ * 受け取った通知をEmployeeChangedEventとして発行します.
+ * 接続が切れた場合は再接続し、切れている間の通知を受け取れないため全てのキャッシュの破棄を通知します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class EmployeeChangeListener implements SmartLifecycle {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmployeeChangeListener.class);
+
+	/** 通知を待つ最大時間(ミリ秒) */
+	private static final int POLL_TIMEOUT_MILLIS = 10000;
+
+	/** 再接続までの待ち時間(ミリ秒) */
+	private static final long RECONNECT_INTERVAL_MILLIS = 5000;
+
+	@Autowired
+	private DataSourceProperties dataSourceProperties;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/** LISTENする場合はtrue */
+	@Value("${employee.cache.invalidation.listen}")
+	private boolean enabled;
+
+	/** 実行中の場合はtrue */
+	private volatile boolean running;
+
+	/** LISTENするスレッド */
+	private Thread listenerThread;
+
+	/** LISTENしているコネクション */
+	private volatile Connection listenerConnection;
+
+	@Override
+	public synchronized void start() {
+		if (!enabled || running) {
+			return;
+		}
+		running = true;
+		listenerThread = new Thread(this::listen, "employee-change-listener");
+		listenerThread.setDaemon(true);
+		listenerThread.start();
+	}
+
+	@Override
+	public synchronized void stop() {
+		running = false;
+		if (listenerThread != null) {
+			listenerThread.interrupt();
+			listenerThread = null;
+		}
+		Connection connection = listenerConnection;
+		if (connection != null) {
+			// 通知の待機を中断させるためにコネクションを閉じます
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				LOGGER.debug("LISTENしているコネクションを閉じられませんでした", e);
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * 停止されるまでLISTENし、受け取った通知をイベントとして発行します.
+	 */
+	private void listen() {
+		while (running) {
+			try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+					dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+				listenerConnection = connection;
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + EmployeeRepository.CHANGE_CHANNEL);
+				}
+				LOGGER.info("{}チャネルのLISTENを開始しました", EmployeeRepository.CHANGE_CHANNEL);
+				eventPublisher.publishEvent(new EmployeeChangedEvent(EmployeeChangedEvent.RESET, null));
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+					if (notifications == null) {
+						continue;
+					}
+					for (PGNotification notification : notifications) {
+						publish(notification.getParameter());
+					}
+				}
+			} catch (SQLException e) {
+				if (!running) {
+					return;
+				}
+				LOGGER.warn("{}チャネルのLISTENに失敗しました。{}ミリ秒後に再接続します", EmployeeRepository.CHANGE_CHANNEL,
+						RECONNECT_INTERVAL_MILLIS, e);
+				try {
+					Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+				} catch (InterruptedException interruptedException) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 通知のペイロードをイベントとして発行します.
+	 *
+	 * @param payload 通知のペイロード
+	 */
+	private void publish(String payload) {
+		EmployeeChangedEvent event = EmployeeChangedEvent.fromPayload(payload);
+		if (event == null) {
+			LOGGER.warn("不正な通知を受け取りました: {}", payload);
+			return;
+		}
+		try {
+			eventPublisher.publishEvent(event);
+		} catch (RuntimeException e) {
+			LOGGER.warn("通知の処理に失敗しました: {}", payload, e);
+		}
+	}
+}
@@ -1,16 +1,30 @@
 package jp.co.sample.emp_management.repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.stereotype.Repository;
 
 import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeChangedEvent;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
 
 /**
  * employeesテーブルを操作するリポジトリ.
@@ -21,10 +35,15 @@ import jp.co.sample.emp_management.domain.Employee;
 @Repository
 public class EmployeeRepository {
 
+	/** 従業員情報の変更を通知するチャネル */
+	public static final String CHANGE_CHANNEL = "employee_changed";
+
 	/**
 	 * Employeeオブジェクトを生成するローマッパー.
+	 * 
+	 * src/jmh/javaのベンチマークから参照するためパッケージプライベートにしています.
 	 */
-	private static final RowMapper<Employee> EMPLOYEE_ROW_MAPPER = (rs, i) -> {
+	static final RowMapper<Employee> EMPLOYEE_ROW_MAPPER = (rs, i) -> {
 		Employee employee = new Employee();
 		employee.setId(rs.getInt("id"));
 		employee.setName(rs.getString("name"));
@@ -41,6 +60,50 @@ public class EmployeeRepository {
 		return employee;
 	};
 
+	/**
+	 * 一覧表示用のEmployeeSummaryオブジェクトを生成するローマッパー.
+	 */
+	private static final RowMapper<EmployeeSummary> EMPLOYEE_SUMMARY_ROW_MAPPER = (rs, i) -> {
+		EmployeeSummary employeeSummary = new EmployeeSummary();
+		employeeSummary.setId(rs.getInt("id"));
+		employeeSummary.setName(rs.getString("name"));
+		employeeSummary.setHireDate(rs.getDate("hire_date"));
+		employeeSummary.setDependentsCount(rs.getInt("dependents_count"));
+		return employeeSummary;
+	};
+
+	/**
+	 * 版番号と更新日時を含むEmployeeオブジェクトを生成するローマッパー.
+	 */
+	private static final RowMapper<Employee> VERSIONED_EMPLOYEE_ROW_MAPPER = (rs, i) -> {
+		Employee employee = EMPLOYEE_ROW_MAPPER.mapRow(rs, i);
+		employee.setVersion(rs.getInt("version"));
+		employee.setUpdatedAt(rs.getTimestamp("updated_at"));
+		return employee;
+	};
+
+	/**
+	 * 版番号と更新日時を含むEmployeeSummaryオブジェクトを生成するローマッパー.
+	 * 
+	 * ページングと検索の結果はJSON APIのETag、Last-Modifiedの計算に使うため、版番号も取得します.
+	 */
+	private static final RowMapper<EmployeeSummary> VERSIONED_EMPLOYEE_SUMMARY_ROW_MAPPER = (rs, i) -> {
+		EmployeeSummary employeeSummary = EMPLOYEE_SUMMARY_ROW_MAPPER.mapRow(rs, i);
+		employeeSummary.setVersion(rs.getInt("version"));
+		employeeSummary.setUpdatedAt(rs.getTimestamp("updated_at"));
+		return employeeSummary;
+	};
+
+	/**
+	 * 画像移行用にIDと画像のみを持つEmployeeオブジェクトを生成するローマッパー.
+	 */
+	private static final RowMapper<Employee> EMPLOYEE_IMAGE_ROW_MAPPER = (rs, i) -> {
+		Employee employee = new Employee();
+		employee.setId(rs.getInt("id"));
+		employee.setImage(rs.getString("image"));
+		return employee;
+	};
+
 	@Autowired
 	private NamedParameterJdbcTemplate template;
 
@@ -49,10 +112,10 @@ public class EmployeeRepository {
 	 * 
 	 * @return 全従業員一覧 従業員が存在しない場合はサイズ0件の従業員一覧を返します
 	 */
-	public List<Employee> findAll() {
-		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees ORDER BY hire_date;";
+	public List<EmployeeSummary> findAll() {
+		String sql = "SELECT id,name,hire_date,dependents_count FROM employees ORDER BY hire_date;";
 
-		List<Employee> developmentList = template.query(sql, EMPLOYEE_ROW_MAPPER);
+		List<EmployeeSummary> developmentList = template.query(sql, EMPLOYEE_SUMMARY_ROW_MAPPER);
 
 		return developmentList;
 	}
@@ -65,37 +128,141 @@ public class EmployeeRepository {
 	 * @exception 従業員が存在しない場合は例外を発生します
 	 */
 	public Employee load(Integer id) {
-		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees WHERE id=:id";
+		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count,version,updated_at FROM employees WHERE id=:id";
 
 		SqlParameterSource param = new MapSqlParameterSource().addValue("id", id);
 
-		Employee development = template.queryForObject(sql, param, EMPLOYEE_ROW_MAPPER);
+		Employee development = template.queryForObject(sql, param, VERSIONED_EMPLOYEE_ROW_MAPPER);
 
 		return development;
 	}
 
+	/**
+	 * 全ての従業員情報をID順に1件ずつ読み込み、処理を行います.
+	 * 
+	 * 結果を一覧に溜めず、fetchSize件ずつサーバーから取り出す前方向のみのカーソルで読み込むため、
+	 * 件数に依らずメモリ使用量は一定です.
+	 * PostgreSQLではトランザクション内でのみカーソルが使われるため、トランザクション内で呼び出してください.
+	 * 
+	 * @param includeImage 画像を読み込む場合はtrue falseの場合、画像はnullになります
+	 * @param fetchSize    1回にサーバーから取り出す件数
+	 * @param action       従業員ごとに行う処理
+	 */
+	public void forEachEmployee(boolean includeImage, int fetchSize, Consumer<Employee> action) {
+		String sql = "SELECT id,name," + (includeImage ? "image" : "NULL AS image")
+				+ ",gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees ORDER BY id";
+		template.getJdbcOperations().query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			return statement;
+		}, (RowCallbackHandler) rs -> action.accept(EMPLOYEE_ROW_MAPPER.mapRow(rs, rs.getRow())));
+	}
+
 	/**
 	 * 従業員情報を変更します.
 	 */
 	public void update(Employee employee) {
 		SqlParameterSource param = new BeanPropertySqlParameterSource(employee);
 
-		String updateSql = "UPDATE employees SET dependents_count=:dependentsCount WHERE id=:id";
+		String updateSql = "UPDATE employees SET dependents_count=:dependentsCount,version=version+1,updated_at=now() WHERE id=:id";
 		template.update(updateSql, param);
+		notifyChange(new EmployeeChangedEvent(EmployeeChangedEvent.UPDATE, employee.getId()));
 	}
 	
 	/**
-	 * 検索ワードが名前に含まれている従業員情報を取得します.
+	 * 従業員の画像を変更します.
+	 * 
+	 * @param id    従業員ID
+	 * @param image 画像のキー
+	 */
+	public void updateImage(Integer id, String image) {
+		SqlParameterSource param = new MapSqlParameterSource().addValue("id", id).addValue("image", image);
+		String updateSql = "UPDATE employees SET image=:image,version=version+1,updated_at=now() WHERE id=:id";
+		template.update(updateSql, param);
+		notifyChange(new EmployeeChangedEvent(EmployeeChangedEvent.UPDATE, id));
+	}
+
+	/**
+	 * 画像ストアに移行されていない画像を持つ従業員を取得します.
+	 * 
+	 * @param afterId    このIDより大きいIDの従業員を取得します
+	 * @param limit      最大取得件数
+	 * @return IDと画像のみを持つ従業員情報 存在しない場合はサイズ0件の従業員一覧を返します
+	 */
+	public List<Employee> findNotMigratedImages(Integer afterId, Integer limit) {
+		String sql = "SELECT id,image FROM employees WHERE id > :afterId AND image !~ '^[0-9a-f]{64}\\.(png|jpg)$' ORDER BY id LIMIT :limit";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("afterId", afterId).addValue("limit", limit);
+		List<Employee> employeeList = template.query(sql, param, EMPLOYEE_IMAGE_ROW_MAPPER);
+		return employeeList;
+	}
+
+	/**
+	 * 検索ワードが名前に含まれている従業員情報を、名前の類似度が高い順に取得します.
+	 * 
+	 * pg_trgmのGINインデックス(employees_name_trgm_idx)を使って検索します.
+	 * 3文字未満の検索ワードはトライグラムを作れずインデックスを使えないため、EmployeeServiceはN-gram索引で検索します.
+	 * 検索ワードに含まれる「%」「_」「\」は通常の文字として扱います.
+	 * 該当した従業員の総数もウィンドウ関数で同じクエリから取得します.
+	 * 
 	 * @param searchWord 検索ワード
-	 * @return 該当した従業員情報　従業員が存在しない場合はサイズ0件の従業員一覧を返します
+	 * @param limit      最大取得件数
+	 * @param offset     読み飛ばす件数
+	 * @return 該当した従業員情報と総数　従業員が存在しない場合はサイズ0件の従業員一覧を持つ検索結果を返します
+	 */
+	public EmployeeSearchResult findBySearchWord(String searchWord, Integer limit, Integer offset){
+		String sql = "SELECT id,name,hire_date,dependents_count,version,updated_at,count(*) OVER() AS total_count FROM employees WHERE name LIKE :pattern ESCAPE '\\' "
+				+ "ORDER BY similarity(name,:searchWord) DESC,hire_date,id LIMIT :limit OFFSET :offset;";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("pattern", "%" + escapeLike(searchWord) + "%")
+				.addValue("searchWord", searchWord).addValue("limit", limit).addValue("offset", offset);
+		EmployeeSearchResult searchResult = template.query(sql, param, rs -> {
+			List<EmployeeSummary> employeeList = new ArrayList<>();
+			int totalCount = 0;
+			while (rs.next()) {
+				employeeList.add(VERSIONED_EMPLOYEE_SUMMARY_ROW_MAPPER.mapRow(rs, employeeList.size()));
+				totalCount = rs.getInt("total_count");
+			}
+			return new EmployeeSearchResult(employeeList, false, totalCount, null);
+		});
+		return searchResult;
+	}
+
+	/**
+	 * IDの一覧から従業員情報を取得します.
+	 * 
+	 * @param idList IDの一覧
+	 * @return 従業員情報 並び順は不定です 従業員が存在しない場合はサイズ0件の従業員一覧を返します
 	 */
-	public List<Employee> findBySearchWord(String searchWord){
-		searchWord = "%" + searchWord + "%";
-		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees WHERE name LIKE :searchWord ORDER BY hire_date;";
-		SqlParameterSource param = new MapSqlParameterSource().addValue("searchWord", searchWord);
-		List<Employee> employeeList = template.query(sql, param,EMPLOYEE_ROW_MAPPER);
+	public List<EmployeeSummary> findByIds(List<Integer> idList) {
+		if (idList.isEmpty()) {
+			return new ArrayList<>();
+		}
+		String sql = "SELECT id,name,hire_date,dependents_count,version,updated_at FROM employees WHERE id IN (:idList);";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("idList", idList);
+		List<EmployeeSummary> employeeList = template.query(sql, param, VERSIONED_EMPLOYEE_SUMMARY_ROW_MAPPER);
 		return employeeList;
 	}
+
+	/**
+	 * pg_trgm拡張が使えるか確認します.
+	 * 
+	 * @return pg_trgm拡張がインストールされている場合はtrue
+	 */
+	public boolean isTrigramAvailable() {
+		String sql = "SELECT EXISTS(SELECT 1 FROM pg_extension WHERE extname='pg_trgm');";
+		Boolean available = template.queryForObject(sql, new MapSqlParameterSource(), Boolean.class);
+		return Boolean.TRUE.equals(available);
+	}
+
+	/**
+	 * LIKEのパターンで特別な意味を持つ文字をエスケープします.
+	 * 
+	 * @param value 文字列
+	 * @return エスケープした文字列
+	 */
+	static String escapeLike(String value) {
+		return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
 	
 	/**
 	 * 従業員情報を挿入します.
@@ -106,18 +273,104 @@ public class EmployeeRepository {
 		SqlParameterSource param = new BeanPropertySqlParameterSource(employee);
 		String sql = "insert into employees(id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count)values(:id,:name,:image,:gender,:hireDate,:mailAddress,:zipCode,:address,:telephone,:salary,:characteristics,:dependentsCount);";
 		template.update(sql, param);
+		notifyChange(new EmployeeChangedEvent(EmployeeChangedEvent.INSERT, employee.getId()));
+	}
+
+	/**
+	 * 従業員情報をまとめて挿入します.
+	 * 
+	 * 1件ずつ挿入するとデータベースとの往復が件数分発生するため、JDBCのバッチ更新で送信します.
+	 * 1件ずつの変更は通知しないため、挿入後に呼び出し側で通知してください.
+	 * 一括登録(EmployeeImportService)のように件数が多い場合はnotifyReset()で全てのキャッシュを破棄させ、
+	 * 非同期の登録(EmployeeService.insertAll)のように少数の場合はnotifyInserted()で挿入した従業員IDを通知します.
+	 * 
+	 * @param employeeList 従業員情報一覧
+	 */
+	public void insertAll(List<Employee> employeeList) {
+		String sql = "insert into employees(id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count)values(:id,:name,:image,:gender,:hireDate,:mailAddress,:zipCode,:address,:telephone,:salary,:characteristics,:dependentsCount);";
+		template.batchUpdate(sql, SqlParameterSourceUtils.createBatch(employeeList));
+	}
+
+	/**
+	 * 指定したメールアドレスのうち、既に登録されているメールアドレスを取得します.
+	 * 
+	 * @param mailAddressList メールアドレス一覧
+	 * @return 登録されているメールアドレス 該当しない場合はサイズ0件のセットを返します
+	 */
+	public Set<String> findExistingMailAddresses(Collection<String> mailAddressList) {
+		if (mailAddressList.isEmpty()) {
+			return new HashSet<>();
+		}
+		String sql = "SELECT mail_address FROM employees WHERE mail_address IN (:mailAddressList);";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("mailAddressList", mailAddressList);
+		return new HashSet<>(template.queryForList(sql, param, String.class));
+	}
+
+	/**
+	 * 従業員情報を登録したことを他のアプリケーションサーバーに通知します.
+	 * 
+	 * insertAll()で挿入した少数の従業員情報を、全てのキャッシュを破棄させずに通知する場合に使います.
+	 * 1回のSQLで全ての従業員IDを通知します.
+	 * 
+	 * @param idList 登録した従業員ID
+	 */
+	public void notifyInserted(List<Integer> idList) {
+		if (idList.isEmpty()) {
+			return;
+		}
+		List<String> payloadList = new ArrayList<>();
+		for (Integer id : idList) {
+			payloadList.add(new EmployeeChangedEvent(EmployeeChangedEvent.INSERT, id).toPayload());
+		}
+		String sql = "SELECT pg_notify(:channel, payload) FROM unnest(ARRAY[:payloadList]::text[]) AS payload;";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("channel", CHANGE_CHANNEL)
+				.addValue("payloadList", payloadList);
+		template.queryForList(sql, param);
+	}
+
+	/**
+	 * 全ての従業員情報が変更された可能性があることを他のアプリケーションサーバーに通知します.
+	 */
+	public void notifyReset() {
+		notifyChange(new EmployeeChangedEvent(EmployeeChangedEvent.RESET, null));
+	}
+
+	/**
+	 * 従業員情報の変更を他のアプリケーションサーバーに通知します.
+	 * 
+	 * NOTIFYはトランザクションがコミットされた時点で配信され、ロールバックされた場合は配信されません.
+	 * 
+	 * @param event 変更内容
+	 */
+	private void notifyChange(EmployeeChangedEvent event) {
+		String sql = "SELECT pg_notify(:channel, :payload);";
+		SqlParameterSource param = new MapSqlParameterSource().addValue("channel", CHANGE_CHANNEL)
+				.addValue("payload", event.toPayload());
+		template.queryForList(sql, param);
 	}
 	
 	/**
-	 * 従業員情報の数を取得します.
+	 * 従業員IDのシーケンスから次の値を取得します.
 	 * 
-	 * @return 従業員情報の数	
+	 * @return シーケンスの次の値
 	 */
-	public Integer getMaxId() {
-		String sql = "SELECT MAX(id) FROM employees;";
+	public Long getNextIdSequence() {
+		String sql = "SELECT nextval('employees_id_seq');";
 		SqlParameterSource param = new MapSqlParameterSource();
-		Integer dataSize = template.queryForObject(sql, param, Integer.class);
-		return dataSize;
+		Long nextValue = template.queryForObject(sql, param, Long.class);
+		return nextValue;
+	}
+	
+	/**
+	 * 従業員IDのシーケンスのINCREMENT BYを取得します.
+	 * 
+	 * @return シーケンスのINCREMENT BY
+	 */
+	public Long getIdSequenceIncrement() {
+		String sql = "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = 'employees_id_seq';";
+		SqlParameterSource param = new MapSqlParameterSource();
+		Long increment = template.queryForObject(sql, param, Long.class);
+		return increment;
 	}
 	
 	/**
@@ -126,10 +379,10 @@ public class EmployeeRepository {
 	 * @param mailAddress メールアドレス
 	 * @return 従業員情報 存在しない場合はnullを返します
 	 */
-	public Employee findByMailAddress(String mailAddress) {
-		String sql = "select id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count from employees where mail_address=:mailAddress";
+	public EmployeeSummary findByMailAddress(String mailAddress) {
+		String sql = "select id,name,hire_date,dependents_count from employees where mail_address=:mailAddress";
 		SqlParameterSource param = new MapSqlParameterSource().addValue("mailAddress", mailAddress);
-		List<Employee> employeeList = template.query(sql, param, EMPLOYEE_ROW_MAPPER);
+		List<EmployeeSummary> employeeList = template.query(sql, param, EMPLOYEE_SUMMARY_ROW_MAPPER);
 		if (employeeList.size() == 0) {
 			return null;
 		}
@@ -142,10 +395,46 @@ public class EmployeeRepository {
 	 * @param pageNum ページ番号
 	 * @return 最大10件の従業員情報
 	 */
-	public List<Employee> findLimit10(Integer pageNum){
-		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count from employees ORDER BY hire_date LIMIT 10 OFFSET :pageNum;";
+	public List<EmployeeSummary> findLimit10(Integer pageNum){
+		String sql = "SELECT id,name,hire_date,dependents_count from employees ORDER BY hire_date,id LIMIT 10 OFFSET :pageNum;";
 		SqlParameterSource param = new MapSqlParameterSource().addValue("pageNum",(pageNum-1) * 10);
-		List<Employee> employeeList = template.query(sql, param,EMPLOYEE_ROW_MAPPER);
+		List<EmployeeSummary> employeeList = template.query(sql, param,EMPLOYEE_SUMMARY_ROW_MAPPER);
+		return employeeList;
+	}
+
+	/**
+	 * カーソルより後ろの従業員情報を入社日、IDの順で取得します.
+	 * 
+	 * (hire_date, id)の複合インデックスを使うため、何ページ目でも取得にかかる時間は変わりません.
+	 * 
+	 * @param cursor 前のページの最後の従業員を表すカーソル nullの場合は先頭から取得します
+	 * @param limit  最大取得件数
+	 * @return 従業員情報 従業員が存在しない場合はサイズ0件の従業員一覧を返します
+	 */
+	public List<EmployeeSummary> findAfter(PageCursor cursor, Integer limit) {
+		MapSqlParameterSource param = new MapSqlParameterSource().addValue("limit", limit);
+		String sql = "SELECT id,name,hire_date,dependents_count,version,updated_at FROM employees ORDER BY hire_date,id LIMIT :limit;";
+		if (cursor != null) {
+			param.addValue("hireDate", cursor.getHireDate()).addValue("id", cursor.getId());
+			sql = "SELECT id,name,hire_date,dependents_count,version,updated_at FROM employees WHERE (hire_date,id) > (:hireDate,:id) ORDER BY hire_date,id LIMIT :limit;";
+		}
+		List<EmployeeSummary> employeeList = template.query(sql, param, VERSIONED_EMPLOYEE_SUMMARY_ROW_MAPPER);
+		return employeeList;
+	}
+
+	/**
+	 * カーソルより前の従業員情報を入社日、IDの順で取得します.
+	 * 
+	 * @param cursor 次のページの最初の従業員を表すカーソル
+	 * @param limit  最大取得件数
+	 * @return カーソルの直前の最大limit件の従業員情報 従業員が存在しない場合はサイズ0件の従業員一覧を返します
+	 */
+	public List<EmployeeSummary> findBefore(PageCursor cursor, Integer limit) {
+		SqlParameterSource param = new MapSqlParameterSource().addValue("hireDate", cursor.getHireDate())
+				.addValue("id", cursor.getId()).addValue("limit", limit);
+		String sql = "SELECT id,name,hire_date,dependents_count,version,updated_at FROM employees WHERE (hire_date,id) < (:hireDate,:id) ORDER BY hire_date DESC,id DESC LIMIT :limit;";
+		List<EmployeeSummary> employeeList = template.query(sql, param, VERSIONED_EMPLOYEE_SUMMARY_ROW_MAPPER);
+		Collections.reverse(employeeList);
 		return employeeList;
 	}
 }
@@ -0,0 +1,139 @@
+package jp.co.sample.emp_management.repository;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * ローカルのファイルシステムに従業員画像を保存するストア.
+ *
+ * 画像はSHA-256のハッシュ値をキーとして、
+ * 「ハッシュ値の先頭2文字/ハッシュ値.拡張子」のパスに保存します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Repository
+public class FileSystemImageStore implements ImageStore {
+
+	/** キーの形式 */
+	private static final Pattern KEY_PATTERN = Pattern.compile("^[0-9a-f]{64}\\.(png|jpg)$");
+
+	/** 16進数の文字 */
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/** 画像を保存するディレクトリ */
+	private final Path directory;
+
+	/**
+	 * 保存先ディレクトリを指定して生成します.
+	 *
+	 * @param directory 画像を保存するディレクトリ
+	 */
+	public FileSystemImageStore(@Value("${image.store.directory}") String directory) {
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+	}
+
+	@Override
+	public String store(byte[] image, String extension) throws IOException {
+		String key = toHex(sha256(image)) + "." + extension;
+		if (!KEY_PATTERN.matcher(key).matches()) {
+			throw new IllegalArgumentException("拡張子が不正です: " + extension);
+		}
+		write(resolve(key), image);
+		return key;
+	}
+
+	@Override
+	public Resource load(String key) {
+		if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+			return null;
+		}
+		Path path = resolve(key);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		return new FileSystemResource(path);
+	}
+
+	@Override
+	public String getContentType(String key) {
+		if (key.endsWith(".jpg")) {
+			return "image/jpeg";
+		}
+		return "image/png";
+	}
+
+	/**
+	 * ファイルが存在しない場合に、一時ファイルに書き込んでから移動して保存します.
+	 *
+	 * @param path 保存先のパス
+	 * @param data 保存するバイト列
+	 * @throws IOException 保存に失敗した場合
+	 */
+	private static void write(Path path, byte[] data) throws IOException {
+		if (Files.exists(path)) {
+			return;
+		}
+		Files.createDirectories(path.getParent());
+		Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			Files.write(tempFile, data);
+			Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException e) {
+			// 同じ内容の画像が同時に保存された場合は先に保存された画像をそのまま使います
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * キーから保存先のパスを取得します.
+	 *
+	 * @param key 画像のキー
+	 * @return 保存先のパス
+	 */
+	private Path resolve(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	/**
+	 * SHA-256のハッシュ値を計算します.
+	 *
+	 * @param data データ
+	 * @return ハッシュ値
+	 */
+	private static byte[] sha256(byte[] data) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(data);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * バイト列を16進数の文字列に変換します.
+	 *
+	 * @param bytes バイト列
+	 * @return 16進数の文字列
+	 */
+	private static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+		}
+		return new String(chars);
+	}
+}
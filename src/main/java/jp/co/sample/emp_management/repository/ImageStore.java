@@ -0,0 +1,45 @@
+package jp.co.sample.emp_management.repository;
+
+import java.io.IOException;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * 従業員画像を保存するストア.
+ * 
+ * 画像は内容のハッシュ値から作られるキーで管理し、
+ * employeesテーブルにはキーのみを保存します.
+ * 
+ * @author yu.konishi
+ *
+ */
+public interface ImageStore {
+
+	/**
+	 * 画像を保存します.
+	 * 
+	 * 同じ内容の画像が既に保存されている場合は保存せずに同じキーを返します.
+	 * 
+	 * @param image     画像のバイト列
+	 * @param extension 拡張子(png または jpg)
+	 * @return 画像のキー
+	 * @throws IOException 保存に失敗した場合
+	 */
+	String store(byte[] image, String extension) throws IOException;
+
+	/**
+	 * キーから画像を取得します.
+	 * 
+	 * @param key 画像のキー
+	 * @return 画像 キーが不正な場合や存在しない場合はnullを返します
+	 */
+	Resource load(String key);
+
+	/**
+	 * キーから画像のContent-Typeを取得します.
+	 * 
+	 * @param key 画像のキー
+	 * @return Content-Type
+	 */
+	String getContentType(String key);
+}
@@ -0,0 +1,146 @@
+package jp.co.sample.emp_management.repository;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * employeesテーブルをR2DBCで参照するリポジトリ.
+ *
+ * EmployeeRepositoryと同じ列を同じドメインに詰め替えますが、スレッドを止めずにPostgreSQLから読み込み、
+ * 行を受け取るたびに返します. 読み込む速さは購読する側の要求(バックプレッシャー)に合わせるため、
+ * 遅いクライアントに全件を返す場合も結果をメモリに溜めません.
+ * コネクションは購読が終わるか取り消された時点でspring.r2dbc.poolのプールに返します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Repository
+public class ReactiveEmployeeRepository {
+
+	private final ConnectionFactory connectionFactory;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param connectionFactory R2DBCのコネクションファクトリ(spring.r2dbc)
+	 */
+	public ReactiveEmployeeRepository(ConnectionFactory connectionFactory) {
+		this.connectionFactory = connectionFactory;
+	}
+
+	/**
+	 * 主キーから従業員情報を取得します.
+	 *
+	 * @param id 検索したい従業員ID
+	 * @return 検索された従業員情報 存在しない場合は空
+	 */
+	public Mono<Employee> load(Integer id) {
+		String sql = "SELECT id,name,image,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count FROM employees WHERE id=$1";
+		return query(sql, ReactiveEmployeeRepository::toEmployee, id).next();
+	}
+
+	/**
+	 * カーソルより後ろの従業員情報を入社日、IDの順で取得します.
+	 *
+	 * @param cursor 前のページの最後の従業員を表すカーソル nullの場合は先頭から取得します
+	 * @param limit  最大取得件数 nullの場合は最後まで取得します
+	 * @return 従業員情報
+	 */
+	public Flux<EmployeeSummary> findAfter(PageCursor cursor, Integer limit) {
+		// PostgreSQLではLIMIT NULLは件数を制限しません
+		if (cursor == null) {
+			String sql = "SELECT id,name,hire_date,dependents_count FROM employees ORDER BY hire_date,id LIMIT $1";
+			return query(sql, ReactiveEmployeeRepository::toEmployeeSummary, limit);
+		}
+		String sql = "SELECT id,name,hire_date,dependents_count FROM employees WHERE (hire_date,id) > ($1,$2) ORDER BY hire_date,id LIMIT $3";
+		return query(sql, ReactiveEmployeeRepository::toEmployeeSummary, toLocalDate(cursor.getHireDate()),
+				cursor.getId(), limit);
+	}
+
+	/**
+	 * 検索ワードが名前に含まれる従業員情報を入社日、IDの順で取得します.
+	 *
+	 * pg_trgm拡張が無い環境でも動くよう、類似度による並べ替えは行いません.
+	 *
+	 * @param searchWord 検索ワード
+	 * @param limit      最大取得件数 nullの場合は最後まで取得します
+	 * @param offset     読み飛ばす件数
+	 * @return 該当した従業員情報
+	 */
+	public Flux<EmployeeSummary> findBySearchWord(String searchWord, Integer limit, Integer offset) {
+		String sql = "SELECT id,name,hire_date,dependents_count FROM employees WHERE name LIKE $1 ESCAPE '\\' "
+				+ "ORDER BY hire_date,id LIMIT $2 OFFSET $3";
+		return query(sql, ReactiveEmployeeRepository::toEmployeeSummary,
+				"%" + EmployeeRepository.escapeLike(searchWord) + "%", limit, offset);
+	}
+
+	/**
+	 * SQLを実行し、行を受け取るたびに変換して返します.
+	 *
+	 * @param sql    SQL(パラメーターは$1、$2…)
+	 * @param mapper 行の変換
+	 * @param params パラメーター nullはInteger型のNULLとして渡します
+	 * @return 変換した行
+	 */
+	private <T> Flux<T> query(String sql, Function<Row, T> mapper, Object... params) {
+		return Flux.usingWhen(Mono.from(connectionFactory.create()), connection -> {
+			Statement statement = connection.createStatement(sql);
+			for (int i = 0; i < params.length; i++) {
+				if (params[i] == null) {
+					statement.bindNull(i, Integer.class);
+				} else {
+					statement.bind(i, params[i]);
+				}
+			}
+			return Flux.from(statement.execute()).flatMap(result -> result.map((row, metadata) -> mapper.apply(row)));
+		}, Connection::close);
+	}
+
+	private static Employee toEmployee(Row row) {
+		Employee employee = new Employee();
+		employee.setId(row.get("id", Integer.class));
+		employee.setName(row.get("name", String.class));
+		employee.setImage(row.get("image", String.class));
+		employee.setGender(row.get("gender", String.class));
+		employee.setHireDate(toDate(row.get("hire_date", LocalDate.class)));
+		employee.setMailAddress(row.get("mail_address", String.class));
+		employee.setZipCode(row.get("zip_code", String.class));
+		employee.setAddress(row.get("address", String.class));
+		employee.setTelephone(row.get("telephone", String.class));
+		employee.setSalary(row.get("salary", Integer.class));
+		employee.setCharacteristics(row.get("characteristics", String.class));
+		employee.setDependentsCount(row.get("dependents_count", Integer.class));
+		return employee;
+	}
+
+	private static EmployeeSummary toEmployeeSummary(Row row) {
+		return new EmployeeSummary(row.get("id", Integer.class), row.get("name", String.class),
+				toDate(row.get("hire_date", LocalDate.class)), row.get("dependents_count", Integer.class));
+	}
+
+	/**
+	 * JDBCのgetDateと同じjava.sql.Dateに変換します.
+	 *
+	 * @param date 日付
+	 * @return 日付 nullの場合はnull
+	 */
+	private static java.sql.Date toDate(LocalDate date) {
+		return date == null ? null : java.sql.Date.valueOf(date);
+	}
+
+	private static LocalDate toLocalDate(java.util.Date date) {
+		return new java.sql.Date(date.getTime()).toLocalDate();
+	}
+}
@@ -0,0 +1,275 @@
+package jp.co.sample.emp_management.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 実行したSQLを記録するデータソース.
+ *
+ * コネクション、ステートメント、結果セットをプロキシで包み、SQLごとにバインドしたパラメーターの数、
+ * 実行してから結果を読み終わるまでの時間、取得または更新した行数をSqlStatementRecorderに記録します.
+ * 閾値を超えたSQLは警告ログに出力します.
+ *
+ * @author yu.konishi
+ *
+ */
+public final class RecordingDataSource {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecordingDataSource.class);
+
+	private RecordingDataSource() {
+	}
+
+	/**
+	 * データソースを包みます.
+	 *
+	 * @param dataSource           包むデータソース
+	 * @param slowThresholdMillis 警告ログに出力するSQLの実行時間(ミリ秒) 0以下の場合は出力しません
+	 * @return 実行したSQLを記録するデータソース
+	 */
+	public static DataSource wrap(DataSource dataSource, long slowThresholdMillis) {
+		long slowThresholdNanos = slowThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)
+				: Long.MAX_VALUE;
+		return newProxy(DataSource.class, new Handler(dataSource) {
+			@Override
+			Object invoke(Object proxy, Method method, Object[] args, String name) throws Throwable {
+				Object result = invokeDelegate(method, args);
+				if ("getConnection".equals(name)) {
+					return wrapConnection((Connection) result, slowThresholdNanos);
+				}
+				return result;
+			}
+		});
+	}
+
+	private static Connection wrapConnection(Connection connection, long slowThresholdNanos) {
+		return newProxy(Connection.class, new Handler(connection) {
+			@Override
+			Object invoke(Object proxy, Method method, Object[] args, String name) throws Throwable {
+				Object result = invokeDelegate(method, args);
+				if ("prepareStatement".equals(name) || "prepareCall".equals(name)) {
+					return wrapStatement((Statement) result, (String) args[0], slowThresholdNanos);
+				}
+				if ("createStatement".equals(name)) {
+					return wrapStatement((Statement) result, null, slowThresholdNanos);
+				}
+				return result;
+			}
+		});
+	}
+
+	private static Statement wrapStatement(Statement statement, String sql, long slowThresholdNanos) {
+		Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+				: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+		return newProxy(type, new StatementHandler(statement, sql, slowThresholdNanos));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T newProxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[] { type },
+				handler);
+	}
+
+	/**
+	 * 実行したSQLを記録し、閾値を超えた場合は警告ログに出力します.
+	 */
+	private static void finish(String sql, int bindCount, int batchSize, long startNanos, long rows,
+			long slowThresholdNanos) {
+		long durationNanos = System.nanoTime() - startNanos;
+		SqlStatementRecord record = new SqlStatementRecord(sql, bindCount, batchSize, durationNanos, rows);
+		SqlStatementRecorder.record(record);
+		if (durationNanos >= slowThresholdNanos) {
+			LOGGER.warn("実行に時間がかかったSQLがあります({}ミリ秒, {}行, バインド数{}): {}",
+					String.format("%.1f", record.getDurationMillis()), rows, bindCount, sql);
+		}
+	}
+
+	/**
+	 * 呼び出しを包んだオブジェクトに委譲するハンドラー.
+	 *
+	 * unwrapとisWrapperForは、プロキシ自身で済む場合以外は包んだオブジェクトに委譲します.
+	 */
+	private abstract static class Handler implements InvocationHandler {
+
+		final Object delegate;
+
+		Handler(Object delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			switch (name) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Recording[" + delegate + "]";
+			case "unwrap":
+				return ((Class<?>) args[0]).isInstance(proxy) ? proxy : invokeDelegate(method, args);
+			case "isWrapperFor":
+				return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invokeDelegate(method, args);
+			default:
+				return invoke(proxy, method, args, name);
+			}
+		}
+
+		abstract Object invoke(Object proxy, Method method, Object[] args, String name) throws Throwable;
+
+		Object invokeDelegate(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(delegate, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * バインドしたパラメーターの数を数え、実行したSQLを記録するハンドラー.
+	 */
+	private static class StatementHandler extends Handler {
+
+		private final String sql;
+
+		private final long slowThresholdNanos;
+
+		/** バインドしたパラメーターの数(最大のパラメーター番号) */
+		private int bindCount;
+
+		/** addBatchしたパラメーターの数の合計 */
+		private int batchBindCount;
+
+		/** addBatchした件数 */
+		private int batchSize;
+
+		StatementHandler(Statement delegate, String sql, long slowThresholdNanos) {
+			super(delegate);
+			this.sql = sql;
+			this.slowThresholdNanos = slowThresholdNanos;
+		}
+
+		@Override
+		Object invoke(Object proxy, Method method, Object[] args, String name) throws Throwable {
+			if (name.startsWith("execute")) {
+				return execute(method, args);
+			}
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+					&& PreparedStatement.class.isAssignableFrom(method.getDeclaringClass())) {
+				bindCount = Math.max(bindCount, (Integer) args[0]);
+			} else if ("clearParameters".equals(name)) {
+				bindCount = 0;
+			} else if ("addBatch".equals(name)) {
+				batchBindCount += args == null ? bindCount : 0;
+				batchSize++;
+			} else if ("clearBatch".equals(name)) {
+				batchBindCount = 0;
+				batchSize = 0;
+			}
+			return invokeDelegate(method, args);
+		}
+
+		private Object execute(Method method, Object[] args) throws Throwable {
+			String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+					: sql;
+			boolean batch = "executeBatch".equals(method.getName()) || "executeLargeBatch".equals(method.getName());
+			int executedBindCount = batch ? batchBindCount : bindCount;
+			int executedBatchSize = batch ? batchSize : 0;
+			if (batch) {
+				batchBindCount = 0;
+				batchSize = 0;
+			}
+			long startNanos = System.nanoTime();
+			Object result;
+			try {
+				result = invokeDelegate(method, args);
+			} catch (Throwable e) {
+				finish(executedSql, executedBindCount, executedBatchSize, startNanos, -1, slowThresholdNanos);
+				throw e;
+			}
+			if (result instanceof ResultSet) {
+				// 結果を読み終わって閉じたときに記録します
+				return newProxy(ResultSet.class,
+						new ResultSetHandler((ResultSet) result, executedSql, executedBindCount, startNanos,
+								slowThresholdNanos));
+			}
+			finish(executedSql, executedBindCount, executedBatchSize, startNanos, countRows(result),
+					slowThresholdNanos);
+			return result;
+		}
+
+		private long countRows(Object result) throws Throwable {
+			if (result instanceof Number) {
+				return ((Number) result).longValue();
+			}
+			if (result instanceof int[]) {
+				long rows = 0;
+				for (int count : (int[]) result) {
+					if (count < 0) {
+						// SUCCESS_NO_INFOの場合は行数が分かりません
+						return -1;
+					}
+					rows += count;
+				}
+				return rows;
+			}
+			if (Boolean.FALSE.equals(result)) {
+				return ((Statement) delegate).getUpdateCount();
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * 読み込んだ行数を数え、閉じたときに実行したSQLを記録するハンドラー.
+	 */
+	private static class ResultSetHandler extends Handler {
+
+		private final String sql;
+
+		private final int bindCount;
+
+		private final long startNanos;
+
+		private final long slowThresholdNanos;
+
+		private long rows;
+
+		private boolean finished;
+
+		ResultSetHandler(ResultSet delegate, String sql, int bindCount, long startNanos, long slowThresholdNanos) {
+			super(delegate);
+			this.sql = sql;
+			this.bindCount = bindCount;
+			this.startNanos = startNanos;
+			this.slowThresholdNanos = slowThresholdNanos;
+		}
+
+		@Override
+		Object invoke(Object proxy, Method method, Object[] args, String name) throws Throwable {
+			Object result = invokeDelegate(method, args);
+			if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+				rows++;
+			} else if ("close".equals(name) && !finished) {
+				finished = true;
+				finish(sql, bindCount, 0, startNanos, rows, slowThresholdNanos);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package jp.co.sample.emp_management.repository;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * データソースをRecordingDataSourceで包み、実行したSQLを記録できるようにします.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class RecordingDataSourcePostProcessor implements BeanPostProcessor {
+
+	/** 警告ログに出力するSQLの実行時間(ミリ秒) */
+	private final long slowThresholdMillis;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param slowThresholdMillis 警告ログに出力するSQLの実行時間(ミリ秒) 0以下の場合は出力しません
+	 */
+	public RecordingDataSourcePostProcessor(@Value("${sql.slow-query-threshold-millis}") long slowThresholdMillis) {
+		this.slowThresholdMillis = slowThresholdMillis;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof DataSource) {
+			return RecordingDataSource.wrap((DataSource) bean, slowThresholdMillis);
+		}
+		return bean;
+	}
+}
@@ -0,0 +1,91 @@
+package jp.co.sample.emp_management.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+
+/**
+ * 従業員、管理者のリポジトリのメソッドごとに実行時間と件数を記録するアスペクト.
+ *
+ * 実行時間をrepository.query、取得した件数(一覧の場合は件数、1件取得の場合は0か1)を
+ * repository.rowsとして、repository(クラス名)とquery(メソッド名)のタグを付けて記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * リポジトリのメソッドを実行し、実行時間と件数を記録します.
+	 *
+	 * @param joinPoint 実行するメソッド
+	 * @return メソッドの戻り値
+	 * @throws Throwable メソッドが例外を発生させた場合
+	 */
+	@Around("execution(public * jp.co.sample.emp_management.repository.EmployeeRepository.*(..))"
+			+ " || execution(public * jp.co.sample.emp_management.repository.AdministratorRepository.*(..))")
+	public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+		String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+		String query = joinPoint.getSignature().getName();
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			Object result = joinPoint.proceed();
+			long rows = countRows(((MethodSignature) joinPoint.getSignature()).getReturnType(), result);
+			if (rows >= 0) {
+				DistributionSummary.builder("repository.rows").description("リポジトリのメソッドが取得した件数")
+						.tags("repository", repository, "query", query).register(meterRegistry).record(rows);
+			}
+			return result;
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder("repository.query").description("リポジトリのメソッドの実行時間")
+					.tags("repository", repository, "query", query, "exception", exception).register(meterRegistry));
+		}
+	}
+
+	/**
+	 * メソッドの戻り値から取得した件数を求めます.
+	 *
+	 * @param returnType メソッドの戻り値の型
+	 * @param result     メソッドの戻り値
+	 * @return 件数 件数を表さない戻り値(更新系のメソッドなど)の場合は-1
+	 */
+	private static long countRows(Class<?> returnType, Object result) {
+		if (returnType == void.class || returnType == boolean.class || Number.class.isAssignableFrom(returnType)) {
+			// 更新系のメソッド、判定結果、シーケンスの値は件数を表しません
+			return -1;
+		}
+		if (result == null) {
+			return 0;
+		}
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof Map) {
+			return ((Map<?, ?>) result).size();
+		}
+		if (result instanceof EmployeeSearchResult) {
+			return ((EmployeeSearchResult) result).getEmployeeList().size();
+		}
+		return 1;
+	}
+}
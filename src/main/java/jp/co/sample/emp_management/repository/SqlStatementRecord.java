@@ -0,0 +1,80 @@
+package jp.co.sample.emp_management.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 実行したSQLの記録.
+ *
+ * @author yu.konishi
+ *
+ */
+public class SqlStatementRecord {
+
+	/** SQL */
+	private final String sql;
+
+	/** バインドしたパラメーターの数 バッチの場合は全件の合計 */
+	private final int bindCount;
+
+	/** バッチの件数 バッチで無い場合は0 */
+	private final int batchSize;
+
+	/** 実行してから結果を読み終わるまでの時間(ナノ秒) */
+	private final long durationNanos;
+
+	/** 取得した行数または更新した行数 分からない場合は-1 */
+	private final long rows;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param sql           SQL
+	 * @param bindCount     バインドしたパラメーターの数
+	 * @param batchSize     バッチの件数
+	 * @param durationNanos 実行してから結果を読み終わるまでの時間(ナノ秒)
+	 * @param rows          取得した行数または更新した行数
+	 */
+	public SqlStatementRecord(String sql, int bindCount, int batchSize, long durationNanos, long rows) {
+		this.sql = sql;
+		this.bindCount = bindCount;
+		this.batchSize = batchSize;
+		this.durationNanos = durationNanos;
+		this.rows = rows;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public int getBindCount() {
+		return bindCount;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * 実行してから結果を読み終わるまでの時間をミリ秒で取得します.
+	 *
+	 * @return 時間(ミリ秒)
+	 */
+	public double getDurationMillis() {
+		return durationNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	@Override
+	public String toString() {
+		return "SqlStatementRecord [sql=" + sql + ", bindCount=" + bindCount + ", batchSize=" + batchSize
+				+ ", durationMillis=" + getDurationMillis() + ", rows=" + rows + "]";
+	}
+
+}
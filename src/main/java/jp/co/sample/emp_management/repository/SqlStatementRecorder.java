@@ -0,0 +1,61 @@
+package jp.co.sample.emp_management.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 現在のスレッドで実行したSQLを記録します.
+ *
+ * startからstopまでの間にRecordingDataSourceを通して実行したSQLを記録します.
+ * HTTPリクエストごとの記録に使うほか、テストで実行されたSQLの件数を確認するために使います.
+ *
+ * <pre>
+ * SqlStatementRecorder.start();
+ * try {
+ * 	employeeRepository.load(1);
+ * } finally {
+ * 	List&lt;SqlStatementRecord&gt; recordList = SqlStatementRecorder.stop();
+ * }
+ * </pre>
+ *
+ * @author yu.konishi
+ *
+ */
+public final class SqlStatementRecorder {
+
+	/** 記録中のSQL 記録していない場合はnull */
+	private static final ThreadLocal<List<SqlStatementRecord>> RECORD_LIST = new ThreadLocal<>();
+
+	private SqlStatementRecorder() {
+	}
+
+	/**
+	 * 現在のスレッドで記録を開始します. 記録中の場合はそれまでの記録を破棄します.
+	 */
+	public static void start() {
+		RECORD_LIST.set(new ArrayList<>());
+	}
+
+	/**
+	 * 現在のスレッドの記録を終了します.
+	 *
+	 * @return 記録したSQL 実行した順に並びます 記録していなかった場合はサイズ0件の一覧を返します
+	 */
+	public static List<SqlStatementRecord> stop() {
+		List<SqlStatementRecord> recordList = RECORD_LIST.get();
+		RECORD_LIST.remove();
+		return recordList == null ? new ArrayList<>() : recordList;
+	}
+
+	/**
+	 * 記録中の場合、実行したSQLを追加します.
+	 *
+	 * @param record 実行したSQL
+	 */
+	static void record(SqlStatementRecord record) {
+		List<SqlStatementRecord> recordList = RECORD_LIST.get();
+		if (recordList != null) {
+			recordList.add(record);
+		}
+	}
+}
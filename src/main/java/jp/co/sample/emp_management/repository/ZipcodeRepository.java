@@ -0,0 +1,214 @@
+package jp.co.sample.emp_management.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StreamUtils;
+
+/**
+ * 郵便番号データから住所を検索するリポジトリ.
+ *
+ * 起動時に「郵便番号,住所」形式のUTF-8のファイルを読み込み、
+ * 郵便番号(7桁の数値)の昇順に並べたint配列と、ファイル内の住所の位置を表すint配列を作ります.
+ * 住所の文字列は読み込んだファイルの内容から検索時に取り出すため、
+ * zipcode.data-fileで指定したファイルはメモリマップして読み込み、ヒープに展開しません.
+ * ファイルを指定しない場合はクラスパスのzipcode/zipcode.csv(動作確認用の一部のデータ)を読み込み、警告を出力します.
+ * zipcode.require-data-fileがtrueの場合は、ファイルを指定しないと起動に失敗します.
+ * 全国のデータはZipcodeDataConverterでKEN_ALL.CSVから作成します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Repository
+public class ZipcodeRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ZipcodeRepository.class);
+
+	/** 同梱している郵便番号データ */
+	private static final String BUNDLED_DATA = "zipcode/zipcode.csv";
+
+	/** 郵便番号の桁数 */
+	private static final int ZIPCODE_LENGTH = 7;
+
+	/** 郵便番号データのファイルのパス 空の場合は同梱しているデータを使います */
+	@Value("${zipcode.data-file:}")
+	private String dataFile;
+
+	/** trueの場合は郵便番号データのファイルの指定を必須にします */
+	@Value("${zipcode.require-data-file:false}")
+	private boolean requireDataFile;
+
+	/** 郵便番号データの内容 */
+	private ByteBuffer data;
+
+	/** 郵便番号の昇順に並べた郵便番号 */
+	private int[] zipcodes;
+
+	/** zipcodesと同じ順に並べた住所の開始位置 */
+	private int[] addressOffsets;
+
+	/** zipcodesと同じ順に並べた住所のバイト数 */
+	private int[] addressLengths;
+
+	/**
+	 * 郵便番号データを読み込みます.
+	 * 
+	 * @throws IOException 郵便番号データを読み込めなかった場合
+	 * @throws IllegalStateException ファイルの指定が必須なのに指定されていない場合
+	 */
+	@PostConstruct
+	public void load() throws IOException {
+		long startTime = System.currentTimeMillis();
+		if (dataFile.isEmpty()) {
+			if (requireDataFile) {
+				throw new IllegalStateException("zipcode.data-fileに郵便番号データのファイルを指定してください"
+						+ "(KEN_ALL.CSVをZipcodeDataConverterで変換して作成します)");
+			}
+			LOGGER.warn("zipcode.data-fileが指定されていないため、動作確認用の一部の郵便番号データのみを使います. "
+					+ "ほとんどの郵便番号で住所を検索できません. KEN_ALL.CSVをZipcodeDataConverterで変換して指定してください");
+		}
+		data = dataFile.isEmpty() ? readBundledData() : mapFile(dataFile);
+		buildIndex();
+		LOGGER.info("郵便番号データを{}件読み込みました({}ms)", zipcodes.length, System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * 郵便番号から住所を検索します.
+	 * 
+	 * @param zipcode 7桁の数値に変換した郵便番号
+	 * @return 住所 該当しない場合はサイズ0件の一覧を返します
+	 */
+	public List<String> findAddresses(int zipcode) {
+		List<String> addressList = new ArrayList<>();
+		int index = Arrays.binarySearch(zipcodes, zipcode);
+		if (index < 0) {
+			return addressList;
+		}
+		// 1つの郵便番号に複数の住所がある場合があるため、同じ郵便番号の先頭まで戻ります
+		while (index > 0 && zipcodes[index - 1] == zipcode) {
+			index--;
+		}
+		for (; index < zipcodes.length && zipcodes[index] == zipcode; index++) {
+			addressList.add(decode(addressOffsets[index], addressLengths[index]));
+		}
+		return addressList;
+	}
+
+	/**
+	 * 同梱している郵便番号データを読み込みます.
+	 * 
+	 * @return 郵便番号データの内容
+	 * @throws IOException 読み込めなかった場合
+	 */
+	private ByteBuffer readBundledData() throws IOException {
+		try (InputStream inputStream = new ClassPathResource(BUNDLED_DATA).getInputStream()) {
+			return ByteBuffer.wrap(StreamUtils.copyToByteArray(inputStream));
+		}
+	}
+
+	/**
+	 * 郵便番号データのファイルをメモリマップします.
+	 * 
+	 * マップした領域はチャネルを閉じた後も参照できます.
+	 * 
+	 * @param path ファイルのパス
+	 * @return 郵便番号データの内容
+	 * @throws IOException 読み込めなかった場合
+	 */
+	private ByteBuffer mapFile(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * 郵便番号データの各行から郵便番号と住所の位置を取り出し、郵便番号の昇順に並べます.
+	 * 
+	 * 空行、#で始まる行、郵便番号が7桁でない行は読み飛ばします.
+	 */
+	private void buildIndex() {
+		int limit = data.limit();
+		int lineCount = 0;
+		for (int i = 0; i < limit; i++) {
+			if (data.get(i) == '\n') {
+				lineCount++;
+			}
+		}
+		int[] offsets = new int[lineCount + 1];
+		int[] lengths = new int[lineCount + 1];
+		// 郵便番号を上位32ビット、行の番号を下位32ビットに詰めて並べ替えます
+		long[] keys = new long[lineCount + 1];
+		int entryCount = 0;
+		int lineStart = 0;
+		while (lineStart < limit) {
+			int lineEnd = lineStart;
+			while (lineEnd < limit && data.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			int contentEnd = lineEnd;
+			if (contentEnd > lineStart && data.get(contentEnd - 1) == '\r') {
+				contentEnd--;
+			}
+			int zipcode = 0;
+			int digitCount = 0;
+			int position = lineStart;
+			for (; position < contentEnd && data.get(position) != ','; position++) {
+				byte b = data.get(position);
+				if (b >= '0' && b <= '9') {
+					zipcode = zipcode * 10 + (b - '0');
+					digitCount++;
+				} else if (b != '-') {
+					digitCount = -1;
+					break;
+				}
+			}
+			if (digitCount == ZIPCODE_LENGTH && position < contentEnd) {
+				offsets[entryCount] = position + 1;
+				lengths[entryCount] = contentEnd - position - 1;
+				keys[entryCount] = ((long) zipcode << 32) | entryCount;
+				entryCount++;
+			}
+			lineStart = lineEnd + 1;
+		}
+		Arrays.sort(keys, 0, entryCount);
+		zipcodes = new int[entryCount];
+		addressOffsets = new int[entryCount];
+		addressLengths = new int[entryCount];
+		for (int i = 0; i < entryCount; i++) {
+			int entry = (int) keys[i];
+			zipcodes[i] = (int) (keys[i] >>> 32);
+			addressOffsets[i] = offsets[entry];
+			addressLengths[i] = lengths[entry];
+		}
+	}
+
+	/**
+	 * 郵便番号データの指定した範囲を文字列に変換します.
+	 * 
+	 * @param offset 開始位置
+	 * @param length バイト数
+	 * @return 文字列
+	 */
+	private String decode(int offset, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = data.get(offset + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import jp.co.sample.emp_management.domain.Administrator;
@@ -26,6 +27,12 @@ public class AdministratorService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 	
+	@Autowired
+	private PasswordVerifier passwordVerifier;
+	
+	@Autowired
+	private LoginThrottle loginThrottle;
+	
 	/**
 	 * 管理者情報を登録します.
 	 * 
@@ -38,14 +45,40 @@ public class AdministratorService {
 	
 	/**
 	 * ログインをします.
+	 * 
+	 * パスワードの照合を待つ間にコネクションを占有しないよう、トランザクションを使いません.
+	 * 登録されているハッシュ値のコストが現在のコストより小さい場合は計算し直して更新します.
+	 * メールアドレスまたはパスワードが空の場合は照合せずに失敗とし、IPアドレスの失敗回数に数えます.
+	 * 
 	 * @param mailAddress メールアドレス
 	 * @param password パスワード
-	 * @return 管理者情報　存在しない場合はnullが返ります
+	 * @param remoteAddress 接続元IPアドレス
+	 * @return 管理者情報　存在しない場合やパスワードが一致しない場合はnullが返ります
+	 * @throws LoginRejectedException 失敗回数が上限に達している場合や、パスワードの照合が混雑している場合
 	 */
-	public Administrator login(String mailAddress, String passward) {
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public Administrator login(String mailAddress, String passward, String remoteAddress) {
+		// 空のメールアドレスはメールアドレスごとの失敗回数には数えません
+		String throttleKey = mailAddress == null || mailAddress.trim().isEmpty() ? null : mailAddress;
+		if (!loginThrottle.isAllowed(throttleKey, remoteAddress)) {
+			throw new LoginRejectedException("ログインの失敗回数が上限に達しています");
+		}
+		if (throttleKey == null || passward == null || passward.isEmpty()) {
+			loginThrottle.recordFailure(throttleKey, remoteAddress);
+			return null;
+		}
 		Administrator administrator = administratorRepository.findByMailAddress(mailAddress);
-		if(!passwordEncoder.matches(passward, administrator.getPassword())) {
-			administrator = null;
+		String encodedPassword = administrator == null ? null : administrator.getPassword();
+		if (!passwordVerifier.matches(passward, encodedPassword)) {
+			loginThrottle.recordFailure(mailAddress, remoteAddress);
+			return null;
+		}
+		loginThrottle.recordSuccess(mailAddress);
+		// 登録されているハッシュ値のコストが現在のコストより小さい場合は計算し直して保存します
+		String rehashedPassword = passwordVerifier.rehashIfNeeded(passward, encodedPassword);
+		if (rehashedPassword != null) {
+			administratorRepository.updatePassword(administrator.getId(), rehashedPassword);
+			administrator.setPassword(rehashedPassword);
 		}
 		return administrator;
 	}
@@ -0,0 +1,90 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * 実行環境でのBCryptの計算時間を計測し、ハッシュ値のコスト(ストレッチング回数の2の対数)を決めるクラス.
+ *
+ * コストが1増えると計算時間は2倍になるため、最小コストから順に計測し、
+ * 目標時間を超えない最大のコストを選びます.
+ *
+ * @author yu.konishi
+ *
+ */
+public class BCryptCostCalibrator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+	/** BCryptのハッシュ値からコストを取り出すパターン($2a$10$...) */
+	private static final Pattern BCRYPT_COST_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+	/** BCryptで扱えるコストの範囲 */
+	private static final int BCRYPT_MIN_COST = 4;
+	private static final int BCRYPT_MAX_COST = 31;
+
+	/** 計測に使うパスワード */
+	private static final String SAMPLE_PASSWORD = "calibration-password";
+
+	private BCryptCostCalibrator() {
+	}
+
+	/**
+	 * 1回の照合が目標時間を超えない最大のコストを計測して求めます.
+	 *
+	 * @param targetMillis 1回の照合の目標時間(ミリ秒)
+	 * @param minCost      最小のコスト 目標時間を超える場合もこのコスト以上にします
+	 * @param maxCost      最大のコスト
+	 * @return コスト
+	 */
+	public static int calibrate(long targetMillis, int minCost, int maxCost) {
+		if (minCost < BCRYPT_MIN_COST || maxCost > BCRYPT_MAX_COST || minCost > maxCost) {
+			throw new IllegalArgumentException(
+					"BCryptのコストは" + BCRYPT_MIN_COST + "以上" + BCRYPT_MAX_COST + "以下の範囲で指定してください");
+		}
+		// JITコンパイル前の計測で遅く見積もらないよう、最小のコストで先に計算しておきます
+		measureMillis(BCRYPT_MIN_COST);
+		int cost = minCost;
+		long elapsedMillis = measureMillis(cost);
+		while (cost < maxCost && elapsedMillis * 2 <= targetMillis) {
+			cost++;
+			elapsedMillis = measureMillis(cost);
+		}
+		LOGGER.info("BCryptのコストを{}にしました(1回の照合 {}ms、目標 {}ms)", cost, elapsedMillis, targetMillis);
+		return cost;
+	}
+
+	/**
+	 * BCryptのハッシュ値からコストを取り出します.
+	 *
+	 * @param encodedPassword ハッシュ値
+	 * @return コスト BCryptのハッシュ値でない場合は-1を返します
+	 */
+	public static int costOf(String encodedPassword) {
+		if (encodedPassword == null) {
+			return -1;
+		}
+		Matcher matcher = BCRYPT_COST_PATTERN.matcher(encodedPassword);
+		if (!matcher.find()) {
+			return -1;
+		}
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	/**
+	 * 指定したコストでハッシュ値を1回計算する時間を計測します.
+	 *
+	 * @param cost コスト
+	 * @return 計算時間(ミリ秒)
+	 */
+	private static long measureMillis(int cost) {
+		String salt = BCrypt.gensalt(cost);
+		long startTime = System.nanoTime();
+		BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+}
@@ -0,0 +1,157 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV(カンマ区切り)またはTSV(タブ区切り)のファイルを1行ずつ読み込むクラス.
+ *
+ * ファイル全体をメモリに読み込まず、1レコードずつ返します.
+ * 「"」で囲まれた値の中の区切り文字と改行、「""」によるエスケープ、CRLFの改行、先頭のBOMに対応します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class DelimitedFileReader implements Closeable {
+
+	/** BOM */
+	private static final int BOM = '\uFEFF';
+
+	private final Reader reader;
+
+	/** 区切り文字 */
+	private final char delimiter;
+
+	/** 先読みした文字 先読みしていない場合は-2 */
+	private int peeked = -2;
+
+	/** 読み込み中の行番号(1始まり) */
+	private int lineNumber = 1;
+
+	/** 直前に読み込んだレコードの開始行番号 */
+	private int recordLineNumber;
+
+	/** ファイルの先頭を読み込む前の場合はtrue */
+	private boolean atStart = true;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param reader    読み込むファイル 呼び出し側でバッファリングしてください
+	 * @param delimiter 区切り文字
+	 */
+	public DelimitedFileReader(Reader reader, char delimiter) {
+		this.reader = reader;
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * DelimitedFileWriter.escapeFormulaで先頭に付けた「'」を取り除きます.
+	 *
+	 * @param value 値
+	 * @return 「'」の後が数式として扱われる文字の場合は「'」を取り除いた値 それ以外の場合はそのままの値
+	 */
+	public static String unescapeFormula(String value) {
+		if (value == null || value.length() < 2 || value.charAt(0) != '\''
+				|| DelimitedFileWriter.FORMULA_PREFIXES.indexOf(value.charAt(1)) < 0) {
+			return value;
+		}
+		return value.substring(1);
+	}
+
+	/**
+	 * 次のレコードを読み込みます.
+	 *
+	 * @return 値の一覧 ファイルの終わりに達した場合はnullを返します
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public List<String> readRecord() throws IOException {
+		int c = read();
+		if (atStart) {
+			atStart = false;
+			if (c == BOM) {
+				c = read();
+			}
+		}
+		if (c == -1) {
+			return null;
+		}
+		recordLineNumber = lineNumber;
+		List<String> valueList = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					// 閉じられていない「"」はファイルの終わりまでを値とします
+					valueList.add(value.toString());
+					return valueList;
+				}
+				if (c == '"') {
+					int next = read();
+					if (next == '"') {
+						value.append('"');
+					} else {
+						quoted = false;
+						unread(next);
+					}
+				} else {
+					if (c == '\n') {
+						lineNumber++;
+					}
+					value.append((char) c);
+				}
+			} else if (c == '"' && value.length() == 0) {
+				quoted = true;
+			} else if (c == delimiter) {
+				valueList.add(value.toString());
+				value.setLength(0);
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					int next = read();
+					if (next != '\n') {
+						unread(next);
+					}
+				}
+				if (c != -1) {
+					lineNumber++;
+				}
+				valueList.add(value.toString());
+				return valueList;
+			} else {
+				value.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * 直前に読み込んだレコードの開始行番号を返します.
+	 *
+	 * @return 行番号(1始まり)
+	 */
+	public int getRecordLineNumber() {
+		return recordLineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private int read() throws IOException {
+		if (peeked != -2) {
+			int c = peeked;
+			peeked = -2;
+			return c;
+		}
+		return reader.read();
+	}
+
+	private void unread(int c) {
+		peeked = c;
+	}
+}
@@ -0,0 +1,105 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV(カンマ区切り)またはTSV(タブ区切り)のファイルを1行ずつ書き出すクラス.
+ *
+ * 区切り文字、「"」、改行を含む値は「"」で囲み、値の中の「"」は「""」にします.
+ * DelimitedFileReaderで読み込める形式で書き出します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class DelimitedFileWriter implements Closeable, Flushable {
+
+	/** 改行 */
+	private static final String LINE_SEPARATOR = "\r\n";
+
+	/** 表計算ソフトが数式として扱う先頭の文字 */
+	static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+	private final Writer writer;
+
+	/** 区切り文字 */
+	private final char delimiter;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param writer    書き出し先 呼び出し側でバッファリングしてください
+	 * @param delimiter 区切り文字
+	 */
+	public DelimitedFileWriter(Writer writer, char delimiter) {
+		this.writer = writer;
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * 1レコードを書き出します.
+	 *
+	 * @param values 値 nullの場合は空の値を書き出します
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	public void writeRecord(String... values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				writer.write(delimiter);
+			}
+			writeValue(values[i]);
+		}
+		writer.write(LINE_SEPARATOR);
+	}
+
+	/**
+	 * 表計算ソフトで開いた際に数式として実行されないよう、値の先頭に「'」を付けます(CSVインジェクション対策).
+	 *
+	 * 「=」「+」「-」「@」、タブ、CRで始まる値が対象です. DelimitedFileReader.unescapeFormulaで元に戻せます.
+	 *
+	 * @param value 値
+	 * @return 数式として扱われる値の場合は先頭に「'」を付けた値 それ以外の場合はそのままの値
+	 */
+	public static String escapeFormula(String value) {
+		if (value == null || value.isEmpty() || FORMULA_PREFIXES.indexOf(value.charAt(0)) < 0) {
+			return value;
+		}
+		return "'" + value;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	/**
+	 * 値を必要に応じて「"」で囲んで書き出します.
+	 *
+	 * @param value 値
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	private void writeValue(String value) throws IOException {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		boolean needsQuote = false;
+		for (int i = 0; i < value.length() && !needsQuote; i++) {
+			char c = value.charAt(i);
+			needsQuote = c == delimiter || c == '"' || c == '\r' || c == '\n';
+		}
+		if (!needsQuote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+}
@@ -0,0 +1,177 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+/**
+ * 全ての従業員情報をCSV、Excel(XLSX)ファイルに出力するサービス.
+ *
+ * データベースのカーソルから1件ずつ読み込み、そのまま出力先に書き出すため、件数に依らずメモリ使用量は一定です.
+ * 見出し行は一括登録と同じ項目名のため、出力したファイルはそのまま一括登録に使えます(IDの列は無視されます).
+ * 入力された文字列が数式として実行されないよう、CSVでは「=」などで始まる値の先頭に「'」を付け(一括登録で取り除きます)、
+ * Excelでは全て文字列のセルとして書き出します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Service
+@Transactional(readOnly = true)
+public class EmployeeExportService {
+
+	/** 見出し行 */
+	private static final String[] HEADERS = { "id", "name", "gender", "hire_date", "mail_address", "zip_code", "address",
+			"telephone", "salary", "characteristics", "dependents_count" };
+
+	/** 画像の見出し */
+	private static final String IMAGE_HEADER = "image";
+
+	/** Excelでメモリ上に保持する行数 これを超えた行は一時ファイルに書き出されます */
+	private static final int XLSX_WINDOW_SIZE = 100;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	/** 1回にデータベースから取り出す件数 */
+	@Value("${employee.export.fetch-size}")
+	private int fetchSize;
+
+	/**
+	 * 全ての従業員情報をUTF-8(BOM付き)のCSVファイルとして書き出します.
+	 *
+	 * @param outputStream 書き出し先
+	 * @param includeImage 画像のキーを出力する場合はtrue
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	public void exportCsv(OutputStream outputStream, boolean includeImage) throws IOException {
+		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		// Excelで開いた際に文字化けしないようBOMを付けます
+		bufferedWriter.write('\uFEFF');
+		DelimitedFileWriter writer = new DelimitedFileWriter(bufferedWriter, ',');
+		writer.writeRecord(headers(includeImage));
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+		try {
+			employeeRepository.forEachEmployee(includeImage, fetchSize, employee -> {
+				try {
+					writer.writeRecord(toValues(employee, includeImage, dateFormat));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+	}
+
+	/**
+	 * 全ての従業員情報をExcel(XLSX)ファイルとして書き出します.
+	 *
+	 * @param outputStream 書き出し先
+	 * @param includeImage 画像のキーを出力する場合はtrue
+	 * @throws IOException 書き出しに失敗した場合
+	 */
+	public void exportXlsx(OutputStream outputStream, boolean includeImage) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_SIZE);
+		workbook.setCompressTempFiles(true);
+		try {
+			Sheet sheet = workbook.createSheet("従業員");
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+			Row headerRow = sheet.createRow(0);
+			String[] headers = headers(includeImage);
+			for (int i = 0; i < headers.length; i++) {
+				headerRow.createCell(i).setCellValue(headers[i]);
+			}
+			int[] rowNumber = { 1 };
+			employeeRepository.forEachEmployee(includeImage, fetchSize, employee -> {
+				Row row = sheet.createRow(rowNumber[0]++);
+				int column = 0;
+				row.createCell(column++).setCellValue(employee.getId());
+				row.createCell(column++).setCellValue(employee.getName());
+				row.createCell(column++).setCellValue(employee.getGender());
+				Cell hireDateCell = row.createCell(column++);
+				hireDateCell.setCellValue(employee.getHireDate());
+				hireDateCell.setCellStyle(dateStyle);
+				row.createCell(column++).setCellValue(employee.getMailAddress());
+				row.createCell(column++).setCellValue(employee.getZipCode());
+				row.createCell(column++).setCellValue(employee.getAddress());
+				row.createCell(column++).setCellValue(employee.getTelephone());
+				row.createCell(column++).setCellValue(employee.getSalary());
+				row.createCell(column++).setCellValue(employee.getCharacteristics());
+				row.createCell(column++).setCellValue(employee.getDependentsCount());
+				if (includeImage) {
+					row.createCell(column).setCellValue(employee.getImage());
+				}
+			});
+			workbook.write(outputStream);
+		} finally {
+			// 一時ファイルを削除します
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * 見出し行を返します.
+	 *
+	 * @param includeImage 画像のキーを出力する場合はtrue
+	 * @return 見出し行
+	 */
+	private static String[] headers(boolean includeImage) {
+		if (!includeImage) {
+			return HEADERS.clone();
+		}
+		String[] headers = new String[HEADERS.length + 1];
+		System.arraycopy(HEADERS, 0, headers, 0, HEADERS.length);
+		headers[HEADERS.length] = IMAGE_HEADER;
+		return headers;
+	}
+
+	/**
+	 * 従業員情報をCSVの1行の値に変換します.
+	 *
+	 * 文字列の項目は数式として実行されないよう、DelimitedFileWriter.escapeFormulaで変換します.
+	 *
+	 * @param employee     従業員情報
+	 * @param includeImage 画像のキーを出力する場合はtrue
+	 * @param dateFormat   入社日の形式
+	 * @return 1行の値
+	 */
+	private static String[] toValues(Employee employee, boolean includeImage, SimpleDateFormat dateFormat) {
+		String[] values = new String[includeImage ? HEADERS.length + 1 : HEADERS.length];
+		int column = 0;
+		values[column++] = String.valueOf(employee.getId());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getName());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getGender());
+		values[column++] = dateFormat.format(employee.getHireDate());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getMailAddress());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getZipCode());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getAddress());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getTelephone());
+		values[column++] = String.valueOf(employee.getSalary());
+		values[column++] = DelimitedFileWriter.escapeFormula(employee.getCharacteristics());
+		values[column++] = String.valueOf(employee.getDependentsCount());
+		if (includeImage) {
+			values[column] = DelimitedFileWriter.escapeFormula(employee.getImage());
+		}
+		return values;
+	}
+}
@@ -0,0 +1,149 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+/**
+ * 従業員IDを採番するコンポーネント.
+ *
+ * シーケンス(employees_id_seq)から1回のnextvalでallocation-size件のIDをまとめて確保し(pooled方式)、
+ * 確保したIDをロックを使わずに払い出します. 次の範囲の確保は1スレッドずつ行います.
+ * シーケンスの値はデータベースで一意になるため、複数のアプリケーションサーバーから同時に採番しても重複しません.
+ *
+ * allocation-sizeとシーケンスのINCREMENT BYが異なると、サーバーごとに確保した範囲が重なりIDが重複するため、
+ * 起動時(データベースに接続できない場合は最初に範囲を確保する時)に一致することを確認します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class EmployeeIdAllocator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmployeeIdAllocator.class);
+
+	private final EmployeeRepository employeeRepository;
+
+	/** 1回のnextvalで確保するIDの件数(シーケンスのINCREMENT BYと同じ値) */
+	private final int allocationSize;
+
+	/** 払い出し中のIDの範囲 */
+	private final AtomicReference<IdBlock> currentBlock = new AtomicReference<>(new IdBlock(1, 0));
+
+	/** allocation-sizeとシーケンスのINCREMENT BYが一致することを確認済みか */
+	private boolean incrementVerified;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param employeeRepository 従業員リポジトリ
+	 * @param allocationSize     1回のnextvalで確保するIDの件数
+	 */
+	public EmployeeIdAllocator(EmployeeRepository employeeRepository,
+			@Value("${employee.id.allocation-size}") int allocationSize) {
+		if (allocationSize < 1) {
+			throw new IllegalArgumentException("employee.id.allocation-sizeは1以上にしてください");
+		}
+		this.employeeRepository = employeeRepository;
+		this.allocationSize = allocationSize;
+	}
+
+	/**
+	 * 起動時にallocation-sizeとシーケンスのINCREMENT BYが一致することを確認します.
+	 *
+	 * データベースに接続できない場合は、最初に範囲を確保する時に確認します.
+	 *
+	 * @throws IllegalStateException 一致しない場合
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void verifyIncrement() {
+		try {
+			verifyIncrementIfNeeded();
+		} catch (DataAccessException e) {
+			LOGGER.warn("従業員IDのシーケンスを確認できませんでした. 最初に採番する時に確認します", e);
+		}
+	}
+
+	/**
+	 * 従業員IDを払い出します.
+	 *
+	 * 確保済みのIDを使い切った場合はシーケンスから次の範囲を確保します.
+	 * 次の範囲の確保は1スレッドずつ行い、待っていたスレッドは確保された範囲から払い出すため、
+	 * シーケンスの値を無駄に消費しません.
+	 *
+	 * @return 従業員ID
+	 * @throws IllegalStateException allocation-sizeとシーケンスのINCREMENT BYが一致しない場合
+	 */
+	public Integer allocate() {
+		IdBlock block = currentBlock.get();
+		long id = block.next.getAndIncrement();
+		if (id <= block.last) {
+			return Math.toIntExact(id);
+		}
+		return allocateFromNextBlock(block);
+	}
+
+	/**
+	 * シーケンスから次の範囲を確保して払い出します.
+	 *
+	 * @param exhaustedBlock 使い切った範囲
+	 * @return 従業員ID
+	 */
+	private synchronized Integer allocateFromNextBlock(IdBlock exhaustedBlock) {
+		IdBlock block = currentBlock.get();
+		if (block != exhaustedBlock) {
+			// 待っている間に他のスレッドが次の範囲を確保しています
+			long id = block.next.getAndIncrement();
+			if (id <= block.last) {
+				return Math.toIntExact(id);
+			}
+		}
+		verifyIncrementIfNeeded();
+		long last = employeeRepository.getNextIdSequence();
+		IdBlock newBlock = new IdBlock(last - allocationSize + 1, last);
+		long id = newBlock.next.getAndIncrement();
+		currentBlock.set(newBlock);
+		return Math.toIntExact(id);
+	}
+
+	/**
+	 * まだ確認していなければ、allocation-sizeとシーケンスのINCREMENT BYが一致することを確認します.
+	 *
+	 * @throws IllegalStateException 一致しない場合
+	 */
+	private void verifyIncrementIfNeeded() {
+		if (incrementVerified) {
+			return;
+		}
+		Long increment = employeeRepository.getIdSequenceIncrement();
+		if (increment == null || increment != allocationSize) {
+			throw new IllegalStateException("employee.id.allocation-size(" + allocationSize
+					+ ")とemployees_id_seqのINCREMENT BY(" + increment + ")が一致しません. 一致しないとIDが重複します");
+		}
+		incrementVerified = true;
+	}
+
+	/**
+	 * 確保したIDの範囲を表すクラス.
+	 */
+	private static final class IdBlock {
+		/** 次に払い出すID */
+		private final AtomicLong next;
+		/** 範囲の最後のID */
+		private final long last;
+
+		private IdBlock(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+		}
+	}
+}
@@ -0,0 +1,394 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeChangedEvent;
+import jp.co.sample.emp_management.domain.EmployeeImportError;
+import jp.co.sample.emp_management.domain.EmployeeImportResult;
+import jp.co.sample.emp_management.form.InsertEmployeeForm;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+import jp.co.sample.emp_management.repository.ImageStore;
+
+/**
+ * CSV、TSVファイルから従業員情報を一括登録するサービス.
+ *
+ * ファイルを1行ずつ読み込み、登録画面と同じ入力チェックを行った上で、
+ * chunk-size件ごとに1つのトランザクションでまとめて挿入します.
+ * 1行目は見出し行とし、列の順序は問いません.
+ * 入力チェックでエラーになった行は登録せず、行番号とエラーメッセージを結果として返します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Service
+public class EmployeeImportService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmployeeImportService.class);
+
+	/** 見出し行の項目名とフォームのプロパティ名 */
+	private static final Map<String, String> HEADER_MAP = new HashMap<>();
+
+	/** 必須の項目(フォームのプロパティ名) */
+	private static final String[] REQUIRED_PROPERTIES = { "name", "gender", "hireDate", "mailAddress", "zipCode",
+			"address", "telephone", "salary", "characteristics", "dependentsCount" };
+
+	/** 画像のキーを指定する項目のプロパティ名 */
+	private static final String IMAGE_PROPERTY = "image";
+
+	static {
+		String[][] headers = { { "name", "氏名" }, { "gender", "性別" }, { "hireDate", "入社日" },
+				{ "mailAddress", "メールアドレス" }, { "zipCode", "郵便番号" }, { "address", "住所" }, { "telephone", "電話番号" },
+				{ "salary", "給料" }, { "characteristics", "特性" }, { "dependentsCount", "扶養人数" }, { IMAGE_PROPERTY, "写真" } };
+		for (String[] header : headers) {
+			HEADER_MAP.put(normalizeHeader(header[0]), header[0]);
+			HEADER_MAP.put(header[1], header[0]);
+		}
+	}
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EmployeeIdAllocator employeeIdAllocator;
+
+	@Autowired
+	private ImageStore imageStore;
+
+	@Autowired
+	private InsertEmployeeFormValidator insertEmployeeFormValidator;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/** 1回のトランザクションで挿入する件数 */
+	@Value("${employee.import.chunk-size}")
+	private int chunkSize;
+
+	/** 結果に含めるエラーの最大件数 */
+	@Value("${employee.import.max-reported-errors}")
+	private int maxReportedErrors;
+
+	/** 画像を指定しない従業員に使う画像(クラスパス上のパス) */
+	@Value("${employee.import.default-image}")
+	private String defaultImage;
+
+	/**
+	 * CSV、TSVファイルから従業員情報を一括登録します.
+	 *
+	 * 1行目にタブが含まれる場合はTSV、それ以外の場合はCSVとして読み込みます.
+	 *
+	 * @param inputStream ファイルの内容
+	 * @param charset     ファイルの文字コード
+	 * @return 登録結果
+	 * @throws IOException ファイルの読み込みに失敗した場合
+	 */
+	public EmployeeImportResult importEmployees(InputStream inputStream, Charset charset) throws IOException {
+		EmployeeImportResult result = new EmployeeImportResult();
+		BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, charset));
+		bufferedReader.mark(8192);
+		String firstLine = bufferedReader.readLine();
+		if (firstLine == null) {
+			addError(result, new EmployeeImportError(0, null, "ファイルが空です"));
+			return result;
+		}
+		bufferedReader.reset();
+		char delimiter = firstLine.indexOf('\t') >= 0 ? '\t' : ',';
+
+		try (DelimitedFileReader reader = new DelimitedFileReader(bufferedReader, delimiter)) {
+			List<String> headerList = reader.readRecord();
+			Map<String, Integer> columnMap = toColumnMap(headerList, result);
+			if (columnMap == null) {
+				return result;
+			}
+			String defaultImageKey = null;
+			Set<String> mailAddressSet = new HashSet<>();
+			Map<Integer, ImportEmployeeForm> chunk = new LinkedHashMap<>();
+			List<String> valueList;
+			while ((valueList = reader.readRecord()) != null) {
+				if (valueList.size() == 1 && valueList.get(0).trim().isEmpty()) {
+					continue;
+				}
+				result.setTotalCount(result.getTotalCount() + 1);
+				ImportEmployeeForm form = toForm(valueList, columnMap);
+				if (!validate(form, reader.getRecordLineNumber(), mailAddressSet, result)) {
+					continue;
+				}
+				if (form.getImageKey() == null && defaultImageKey == null) {
+					defaultImageKey = storeDefaultImage();
+				}
+				chunk.put(reader.getRecordLineNumber(), form);
+				if (chunk.size() >= chunkSize) {
+					insertChunk(chunk, defaultImageKey, result);
+					chunk.clear();
+				}
+			}
+			insertChunk(chunk, defaultImageKey, result);
+		} finally {
+			if (result.getImportedCount() > 0) {
+				employeeRepository.notifyReset();
+				eventPublisher.publishEvent(new EmployeeChangedEvent(EmployeeChangedEvent.RESET, null));
+			}
+		}
+		LOGGER.info("従業員を一括登録しました(読み込み {}件、登録 {}件、エラー {}件)", result.getTotalCount(), result.getImportedCount(),
+				result.getErrorCount());
+		return result;
+	}
+
+	/**
+	 * 見出し行から、フォームのプロパティ名と列の位置の対応を作ります.
+	 *
+	 * @param headerList 見出し行
+	 * @param result     必須の項目が無い場合にエラーを追加する登録結果
+	 * @return プロパティ名と列の位置 必須の項目が無い場合はnull
+	 */
+	private Map<String, Integer> toColumnMap(List<String> headerList, EmployeeImportResult result) {
+		Map<String, Integer> columnMap = new HashMap<>();
+		for (int i = 0; i < headerList.size(); i++) {
+			String property = HEADER_MAP.get(normalizeHeader(headerList.get(i)));
+			if (property != null) {
+				columnMap.put(property, i);
+			}
+		}
+		boolean valid = true;
+		for (String property : REQUIRED_PROPERTIES) {
+			if (!columnMap.containsKey(property)) {
+				addError(result, new EmployeeImportError(1, property, "見出し行に" + property + "の列がありません"));
+				valid = false;
+			}
+		}
+		return valid ? columnMap : null;
+	}
+
+	/**
+	 * 1行の値をフォームに変換します.
+	 *
+	 * 電話番号の「-」区切りと入社日の「/」区切りは、登録画面のフォームと同じ形式に変換します.
+	 *
+	 * @param valueList 1行の値
+	 * @param columnMap プロパティ名と列の位置
+	 * @return フォーム
+	 */
+	private ImportEmployeeForm toForm(List<String> valueList, Map<String, Integer> columnMap) {
+		ImportEmployeeForm form = new ImportEmployeeForm();
+		form.setName(value(valueList, columnMap, "name"));
+		form.setGender(value(valueList, columnMap, "gender"));
+		form.setHireDate(value(valueList, columnMap, "hireDate").replace('/', '-'));
+		form.setMailAddress(value(valueList, columnMap, "mailAddress"));
+		form.setZipCode(value(valueList, columnMap, "zipCode"));
+		form.setAddress(value(valueList, columnMap, "address"));
+		form.setTelephone(value(valueList, columnMap, "telephone").replace('-', ','));
+		form.setSalary(value(valueList, columnMap, "salary"));
+		form.setCharacteristics(value(valueList, columnMap, "characteristics"));
+		form.setDependentsCount(value(valueList, columnMap, "dependentsCount"));
+		String imageKey = value(valueList, columnMap, IMAGE_PROPERTY);
+		form.setImageKey(imageKey.isEmpty() ? null : imageKey);
+		return form;
+	}
+
+	/**
+	 * 登録画面と同じ入力チェックと、メールアドレスのファイル内での重複チェックを行います.
+	 *
+	 * @param form           フォーム
+	 * @param lineNumber     行番号
+	 * @param mailAddressSet これまでの行のメールアドレス
+	 * @param result         エラーを追加する登録結果
+	 * @return エラーが無い場合はtrue
+	 */
+	private boolean validate(ImportEmployeeForm form, int lineNumber, Set<String> mailAddressSet,
+			EmployeeImportResult result) {
+		BeanPropertyBindingResult errors = new BeanPropertyBindingResult(form, "insertEmployeeForm");
+		new SpringValidatorAdapter(validator).validate(form, errors);
+		insertEmployeeFormValidator.validate(form, errors);
+		if (!errors.hasFieldErrors("mailAddress") && !mailAddressSet.add(form.getMailAddress())) {
+			errors.rejectValue("mailAddress", "duplicate", "このメールアドレスはファイル内で重複しています");
+		}
+		if (form.getImageKey() != null && imageStore.load(form.getImageKey()) == null) {
+			errors.rejectValue(IMAGE_PROPERTY, "notFound", "写真に指定された画像が存在しません");
+		}
+		for (FieldError fieldError : errors.getFieldErrors()) {
+			addError(result, new EmployeeImportError(lineNumber, fieldError.getField(), fieldError.getDefaultMessage()));
+		}
+		return !errors.hasErrors();
+	}
+
+	/**
+	 * 入力チェック済みのフォームを1つのトランザクションでまとめて挿入します.
+	 *
+	 * 既に登録されているメールアドレスの行は挿入せずにエラーとします.
+	 * 挿入に失敗した場合はトランザクション内の全ての行をエラーとし、次のトランザクションに進みます.
+	 *
+	 * @param chunk           行番号とフォーム
+	 * @param defaultImageKey 画像を指定しない従業員に使う画像のキー
+	 * @param result          登録件数とエラーを追加する登録結果
+	 */
+	private void insertChunk(Map<Integer, ImportEmployeeForm> chunk, String defaultImageKey,
+			EmployeeImportResult result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		List<EmployeeImportError> chunkErrorList = new ArrayList<>();
+		try {
+			int insertedCount = transactionTemplate.execute(status -> {
+				List<String> mailAddressList = new ArrayList<>();
+				for (ImportEmployeeForm form : chunk.values()) {
+					mailAddressList.add(form.getMailAddress());
+				}
+				Set<String> existingMailAddressSet = employeeRepository.findExistingMailAddresses(mailAddressList);
+				List<Employee> employeeList = new ArrayList<>();
+				for (Map.Entry<Integer, ImportEmployeeForm> entry : chunk.entrySet()) {
+					ImportEmployeeForm form = entry.getValue();
+					if (existingMailAddressSet.contains(form.getMailAddress())) {
+						chunkErrorList.add(
+								new EmployeeImportError(entry.getKey(), "mailAddress", "このメールアドレスは既に登録されています"));
+						continue;
+					}
+					employeeList.add(toEmployee(form, defaultImageKey));
+				}
+				employeeRepository.insertAll(employeeList);
+				return employeeList.size();
+			});
+			result.setImportedCount(result.getImportedCount() + insertedCount);
+		} catch (DataAccessException e) {
+			LOGGER.warn("従業員の一括登録に失敗しました", e);
+			chunkErrorList.clear();
+			for (Integer lineNumber : chunk.keySet()) {
+				chunkErrorList.add(new EmployeeImportError(lineNumber, null, "登録に失敗しました"));
+			}
+		}
+		for (EmployeeImportError error : chunkErrorList) {
+			addError(result, error);
+		}
+	}
+
+	/**
+	 * フォームを従業員情報に変換し、従業員IDを採番します.
+	 *
+	 * @param form            フォーム
+	 * @param defaultImageKey 画像を指定しない従業員に使う画像のキー
+	 * @return 従業員情報
+	 */
+	private Employee toEmployee(ImportEmployeeForm form, String defaultImageKey) {
+		Employee employee = new Employee();
+		employee.setId(employeeIdAllocator.allocate());
+		employee.setName(form.getName());
+		employee.setImage(form.getImageKey() == null ? defaultImageKey : form.getImageKey());
+		employee.setGender(form.getGender());
+		employee.setHireDate(Date.valueOf(form.getHireDate()));
+		employee.setMailAddress(form.getMailAddress());
+		employee.setZipCode(form.getZipCode());
+		employee.setAddress(form.getAddress());
+		employee.setTelephone(form.getTelephone().replace(",", "-"));
+		employee.setSalary(Integer.parseInt(form.getSalary()));
+		employee.setCharacteristics(form.getCharacteristics());
+		employee.setDependentsCount(Integer.parseInt(form.getDependentsCount()));
+		return employee;
+	}
+
+	/**
+	 * 画像を指定しない従業員に使う画像を画像ストアに保存します.
+	 *
+	 * 画像ストアは内容からキーを決めるため、何度保存しても同じキーになります.
+	 *
+	 * @return 画像のキー
+	 * @throws IOException 画像の読み込みまたは保存に失敗した場合
+	 */
+	private String storeDefaultImage() throws IOException {
+		try (InputStream inputStream = new ClassPathResource(defaultImage).getInputStream()) {
+			String extension = defaultImage.substring(defaultImage.lastIndexOf('.') + 1);
+			return imageStore.store(StreamUtils.copyToByteArray(inputStream), extension);
+		}
+	}
+
+	/**
+	 * エラーの件数を数え、上限に達していなければエラーの一覧に追加します.
+	 *
+	 * @param result 登録結果
+	 * @param error  エラー
+	 */
+	private void addError(EmployeeImportResult result, EmployeeImportError error) {
+		result.setErrorCount(result.getErrorCount() + 1);
+		if (result.getErrorList().size() < maxReportedErrors) {
+			result.getErrorList().add(error);
+		}
+	}
+
+	/**
+	 * 1行の値から指定した項目の値を取り出します.
+	 *
+	 * @param valueList 1行の値
+	 * @param columnMap プロパティ名と列の位置
+	 * @param property  プロパティ名
+	 * @return 前後の空白を除いた値 列が無い場合は空文字
+	 */
+	private static String value(List<String> valueList, Map<String, Integer> columnMap, String property) {
+		Integer column = columnMap.get(property);
+		if (column == null || column >= valueList.size()) {
+			return "";
+		}
+		// 出力したCSVで数式対策に付けた「'」を取り除きます
+		return DelimitedFileReader.unescapeFormula(valueList.get(column).trim());
+	}
+
+	/**
+	 * 見出しの項目名を、大文字小文字、「_」、空白を区別せずに比較するため正規化します.
+	 *
+	 * @param header 項目名
+	 * @return 正規化した項目名
+	 */
+	private static String normalizeHeader(String header) {
+		return header.replace("_", "").replace(" ", "").trim().toLowerCase();
+	}
+
+	/**
+	 * 画像のキーを持つ一括登録用のフォーム.
+	 *
+	 * 画像はファイルではなく、画像ストアに保存済みの画像のキーで指定します.
+	 */
+	private static class ImportEmployeeForm extends InsertEmployeeForm {
+		/** 画像のキー 指定しない場合はnull */
+		private String imageKey;
+
+		public String getImageKey() {
+			return imageKey;
+		}
+
+		public void setImageKey(String imageKey) {
+			this.imageKey = imageKey;
+		}
+	}
+}
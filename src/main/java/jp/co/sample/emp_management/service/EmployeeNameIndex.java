@@ -0,0 +1,180 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+/**
+ * 従業員名の前方一致検索を行うメモリ上の索引.
+ *
+ * 正規化した従業員名を昇順に並べた配列を保持し、二分探索で前方一致する範囲を求めます.
+ * 検索はロックを取らずに行い、登録時は新しい配列を作って差し替えます.
+ * 初回の検索時にemployeesテーブルから読み込みます.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class EmployeeNameIndex {
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	/** 索引 初回の検索まではnull */
+	private volatile Entry[] entries;
+
+	/**
+	 * 従業員名の候補を取得します.
+	 *
+	 * 入力がローマ字の場合はひらがなに変換した入力でも検索します.
+	 *
+	 * @param query 入力された文字列
+	 * @param limit 最大件数
+	 * @return 前方一致した従業員名 索引の並び順で重複を除いて返します
+	 */
+	public List<String> suggest(String query, int limit) {
+		Entry[] currentEntries = getEntries();
+		String key = KanaNormalizer.normalize(query);
+		if (key.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Set<String> nameSet = new LinkedHashSet<>();
+		collect(currentEntries, key, limit, nameSet);
+		String hiraganaKey = KanaNormalizer.romajiToHiragana(key);
+		if (hiraganaKey != null && !hiraganaKey.isEmpty() && nameSet.size() < limit) {
+			collect(currentEntries, hiraganaKey, limit, nameSet);
+		}
+		return new ArrayList<>(nameSet);
+	}
+
+	/**
+	 * 登録された従業員名を索引に追加します.
+	 *
+	 * @param id   従業員ID
+	 * @param name 従業員名
+	 */
+	public synchronized void add(Integer id, String name) {
+		Entry[] currentEntries = entries;
+		if (currentEntries == null) {
+			// 未読み込みの場合は初回の検索時にまとめて読み込みます
+			return;
+		}
+		Entry entry = new Entry(KanaNormalizer.normalize(name), name, id);
+		int index = Arrays.binarySearch(currentEntries, entry, Entry.ORDER);
+		if (index >= 0) {
+			return;
+		}
+		int insertionPoint = -index - 1;
+		Entry[] newEntries = new Entry[currentEntries.length + 1];
+		System.arraycopy(currentEntries, 0, newEntries, 0, insertionPoint);
+		newEntries[insertionPoint] = entry;
+		System.arraycopy(currentEntries, insertionPoint, newEntries, insertionPoint + 1,
+				currentEntries.length - insertionPoint);
+		entries = newEntries;
+	}
+
+	/**
+	 * 索引を破棄します.
+	 *
+	 * 次回の検索時にemployeesテーブルから読み込み直します.
+	 */
+	public synchronized void clear() {
+		entries = null;
+	}
+
+	/**
+	 * 索引を取得します. 未読み込みの場合はemployeesテーブルから読み込みます.
+	 *
+	 * @return 索引
+	 */
+	private Entry[] getEntries() {
+		Entry[] currentEntries = entries;
+		if (currentEntries != null) {
+			return currentEntries;
+		}
+		synchronized (this) {
+			if (entries == null) {
+				List<EmployeeSummary> employeeList = employeeRepository.findAll();
+				Entry[] newEntries = new Entry[employeeList.size()];
+				for (int i = 0; i < newEntries.length; i++) {
+					EmployeeSummary employee = employeeList.get(i);
+					newEntries[i] = new Entry(KanaNormalizer.normalize(employee.getName()), employee.getName(),
+							employee.getId());
+				}
+				Arrays.sort(newEntries, Entry.ORDER);
+				entries = newEntries;
+			}
+			return entries;
+		}
+	}
+
+	/**
+	 * キーに前方一致する従業員名を集めます.
+	 *
+	 * @param currentEntries 索引
+	 * @param key            正規化済みのキー
+	 * @param limit          最大件数
+	 * @param nameSet        従業員名の格納先
+	 */
+	private static void collect(Entry[] currentEntries, String key, int limit, Set<String> nameSet) {
+		int index = lowerBound(currentEntries, key);
+		for (; index < currentEntries.length && nameSet.size() < limit; index++) {
+			if (!currentEntries[index].key.startsWith(key)) {
+				break;
+			}
+			nameSet.add(currentEntries[index].name);
+		}
+	}
+
+	/**
+	 * キー以上となる最初の位置を二分探索で求めます.
+	 *
+	 * @param currentEntries 索引
+	 * @param key            正規化済みのキー
+	 * @return キー以上となる最初の位置
+	 */
+	private static int lowerBound(Entry[] currentEntries, String key) {
+		int low = 0;
+		int high = currentEntries.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (currentEntries[middle].key.compareTo(key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * 索引の1件を表すクラス.
+	 */
+	private static final class Entry {
+		/** 正規化した従業員名、ID順の並び順 */
+		private static final Comparator<Entry> ORDER = Comparator.comparing((Entry entry) -> entry.key)
+				.thenComparing(entry -> entry.id);
+
+		/** 正規化した従業員名 */
+		private final String key;
+		/** 従業員名 */
+		private final String name;
+		/** 従業員ID */
+		private final Integer id;
+
+		private Entry(String key, String name, Integer id) {
+			this.key = key;
+			this.name = name;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+/**
+ * 従業員名の部分一致検索を行うメモリ上のN-gram索引.
+ *
+ * pg_trgm拡張が使えないデータベースで、LIKE '%検索ワード%'による全件走査の代わりに使います.
+ * 日本語の名前は短いため、2文字ずつ(1文字の名前は1文字)に区切った転置索引を作り、
+ * 候補を絞り込んでから名前に検索ワードが含まれるか確認します.
+ * 検索は読み込みロックで並行に行い、登録と破棄のみ書き込みロックを取ります.
+ * 初回の検索時(破棄した後は次の検索時)にemployeesテーブルから読み込み、読み込みと索引の作成はロックの外で行います.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class EmployeeNgramIndex {
+
+	/** N-gramの文字数 */
+	private static final int GRAM_SIZE = 2;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	/** 索引の読み書きのロック 検索は読み込みロックで並行に行います */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** employeesテーブルからの読み込みを1スレッドずつ行うためのロック */
+	private final Object loadLock = new Object();
+
+	/** 索引 未読み込みの場合はnull */
+	private Index index;
+
+	/** 読み込み中の場合はtrue */
+	private boolean loading;
+
+	/** 読み込み中に登録された従業員ID、従業員名 読み込み後に索引に追加します */
+	private final Map<Integer, String> pendingMap = new LinkedHashMap<>();
+
+	/** 索引を破棄するたびに増やす番号 読み込み中に破棄された場合は読み込んだ索引を使いません */
+	private long generation;
+
+	/**
+	 * 検索ワードが名前に含まれる従業員IDを、名前の類似度が高い順に取得します.
+	 *
+	 * 類似度はpg_trgmのsimilarityと同様に、N-gramの集合の重なり具合で求めます.
+	 *
+	 * @param searchWord 検索ワード
+	 * @return 従業員ID 該当しない場合はサイズ0件の一覧を返します
+	 */
+	public List<Integer> search(String searchWord) {
+		if (searchWord.isEmpty()) {
+			return new ArrayList<>();
+		}
+		while (true) {
+			lock.readLock().lock();
+			try {
+				if (index != null) {
+					return index.search(searchWord);
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+			load();
+		}
+	}
+
+	/**
+	 * 登録された従業員を索引に追加します.
+	 *
+	 * @param id   従業員ID
+	 * @param name 従業員名
+	 */
+	public void add(Integer id, String name) {
+		lock.writeLock().lock();
+		try {
+			if (index != null) {
+				index.put(id, name);
+			} else if (loading) {
+				// 読み込み中のfindAllに含まれない可能性があるため、読み込み後に追加します
+				pendingMap.put(id, name);
+			}
+			// 未読み込みの場合は初回の検索時にまとめて読み込みます
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 索引を破棄します.
+	 *
+	 * 次回の検索時にemployeesテーブルから読み込み直します.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			index = null;
+			pendingMap.clear();
+			generation++;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 未読み込みの場合はemployeesテーブルから読み込みます.
+	 *
+	 * 読み込みと索引の作成は索引のロックを取らずに行い、作成した索引を書き込みロックで差し替えます.
+	 * 読み込み中に索引が破棄された場合は差し替えません.
+	 */
+	private void load() {
+		synchronized (loadLock) {
+			long loadGeneration;
+			lock.writeLock().lock();
+			try {
+				if (index != null) {
+					return;
+				}
+				loading = true;
+				loadGeneration = generation;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			Index newIndex = null;
+			try {
+				Index loadedIndex = new Index();
+				for (EmployeeSummary employee : employeeRepository.findAll()) {
+					loadedIndex.put(employee.getId(), employee.getName());
+				}
+				newIndex = loadedIndex;
+			} finally {
+				lock.writeLock().lock();
+				try {
+					if (newIndex != null && generation == loadGeneration) {
+						for (Map.Entry<Integer, String> entry : pendingMap.entrySet()) {
+							newIndex.put(entry.getKey(), entry.getValue());
+						}
+						index = newIndex;
+					}
+					pendingMap.clear();
+					loading = false;
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 従業員名とN-gramの転置索引.
+	 */
+	private static final class Index {
+
+		/** 従業員IDと従業員名 */
+		private final Map<Integer, String> nameMap = new HashMap<>();
+
+		/** N-gramと、そのN-gramを名前に含む従業員IDの転置索引 */
+		private final Map<String, Set<Integer>> postingMap = new HashMap<>();
+
+		/** 1文字と、その文字を名前に含む従業員IDの転置索引(1文字の検索ワード用) */
+		private final Map<Character, Set<Integer>> charPostingMap = new HashMap<>();
+
+		/**
+		 * 検索ワードが名前に含まれる従業員IDを、名前の類似度が高い順に取得します.
+		 *
+		 * @param searchWord 検索ワード
+		 * @return 従業員ID
+		 */
+		private List<Integer> search(String searchWord) {
+			Set<Integer> candidateSet = findCandidates(searchWord);
+			Set<String> searchGramSet = toGrams(searchWord);
+			List<Integer> idList = new ArrayList<>();
+			Map<Integer, Double> similarityMap = new HashMap<>();
+			for (Integer id : candidateSet) {
+				String name = nameMap.get(id);
+				if (name.contains(searchWord)) {
+					idList.add(id);
+					similarityMap.put(id, similarity(searchGramSet, toGrams(name)));
+				}
+			}
+			idList.sort(Comparator.comparing((Integer id) -> similarityMap.get(id)).reversed()
+					.thenComparing(Comparator.naturalOrder()));
+			return idList;
+		}
+
+		/**
+		 * 従業員を索引に登録します.
+		 *
+		 * @param id   従業員ID
+		 * @param name 従業員名
+		 */
+		private void put(Integer id, String name) {
+			nameMap.put(id, name);
+			for (String gram : toGrams(name)) {
+				postingMap.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+			}
+			for (int i = 0; i < name.length(); i++) {
+				charPostingMap.computeIfAbsent(name.charAt(i), key -> new HashSet<>()).add(id);
+			}
+		}
+
+		/**
+		 * 検索ワードのN-gramを全て含む従業員IDを候補として取得します.
+		 *
+		 * @param searchWord 検索ワード
+		 * @return 候補の従業員ID
+		 */
+		private Set<Integer> findCandidates(String searchWord) {
+			if (searchWord.length() < GRAM_SIZE) {
+				Set<Integer> idSet = charPostingMap.get(searchWord.charAt(0));
+				return idSet == null ? new HashSet<>() : idSet;
+			}
+			List<Set<Integer>> postingList = new ArrayList<>();
+			for (String gram : toGrams(searchWord)) {
+				Set<Integer> idSet = postingMap.get(gram);
+				if (idSet == null) {
+					return new HashSet<>();
+				}
+				postingList.add(idSet);
+			}
+			// 件数の少ない転置リストから順に積集合を取ります
+			postingList.sort(Comparator.comparing(Set::size));
+			Set<Integer> candidateSet = new HashSet<>(postingList.get(0));
+			for (int i = 1; i < postingList.size() && !candidateSet.isEmpty(); i++) {
+				candidateSet.retainAll(postingList.get(i));
+			}
+			return candidateSet;
+		}
+	}
+
+	/**
+	 * 文字列をN-gramの集合に分割します. N-gramの文字数より短い場合は文字列そのものを返します.
+	 *
+	 * @param value 文字列
+	 * @return N-gramの集合
+	 */
+	private static Set<String> toGrams(String value) {
+		if (value.length() < GRAM_SIZE) {
+			return new HashSet<>(Arrays.asList(value));
+		}
+		Set<String> gramSet = new HashSet<>();
+		for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+			gramSet.add(value.substring(i, i + GRAM_SIZE));
+		}
+		return gramSet;
+	}
+
+	/**
+	 * 2つのN-gramの集合の類似度(共通するN-gramの数 / N-gramの総数)を求めます.
+	 *
+	 * @param gramSet1 N-gramの集合
+	 * @param gramSet2 N-gramの集合
+	 * @return 類似度
+	 */
+	private static double similarity(Set<String> gramSet1, Set<String> gramSet2) {
+		int commonCount = 0;
+		for (String gram : gramSet1) {
+			if (gramSet2.contains(gram)) {
+				commonCount++;
+			}
+		}
+		return (double) commonCount / (gramSet1.size() + gramSet2.size() - commonCount);
+	}
+}
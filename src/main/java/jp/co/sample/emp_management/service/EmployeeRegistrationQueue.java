@@ -0,0 +1,276 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeRegistration;
+import jp.co.sample.emp_management.domain.EmployeeRegistrationStatus;
+import jp.co.sample.emp_management.domain.ProcessedImage;
+import jp.co.sample.emp_management.form.InsertEmployeeForm;
+
+/**
+ * 従業員登録を待ち行列で受け付け、専用のスレッドでまとめて登録するコンポーネント.
+ *
+ * employee.registration.asyncがtrueの場合、登録画面からの登録は入力チェックと画像の変換の後にこの待ち行列に入り、
+ * 受付番号を返してすぐに応答します. 登録するスレッドは待ち行列からbatch-size件ずつ取り出して1つのトランザクションで登録し、
+ * 失敗した場合は1件ずつ登録し直して失敗した従業員だけを登録できなかった状態にします.
+ * 待ち行列が一杯の場合は受け付けずにRegistrationRejectedExceptionを発生させます.
+ * 待ち行列はメモリ上にあるため、アプリケーションが異常終了した場合は登録待ちの従業員情報が失われます.
+ * 待ち行列の件数はemployee.registration.queueとして記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class EmployeeRegistrationQueue {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmployeeRegistrationQueue.class);
+
+	/** 待ち行列が一杯の場合のメッセージ */
+	private static final String BUSY_MESSAGE = "登録が混雑しています。しばらくしてから登録してください";
+
+	/** 待ち行列から取り出すのを待つ最大時間(ミリ秒) 停止の確認はこの間隔で行います */
+	private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+	/** 停止時に登録待ちの従業員情報の登録を待つ最大時間(秒) */
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private final EmployeeService employeeService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/** 非同期で登録する場合はtrue */
+	private final boolean enabled;
+
+	/** 登録するスレッド数 */
+	private final int workerCount;
+
+	/** 1回のトランザクションで登録する最大件数 */
+	private final int batchSize;
+
+	/** 登録待ちの従業員情報 */
+	private final BlockingQueue<EmployeeRegistration> queue;
+
+	/** 受付番号ごとの登録の状態 */
+	private final Cache<String, EmployeeRegistrationStatus> statusCache;
+
+	/** 登録待ちのメールアドレス */
+	private final Set<String> pendingMailAddressSet = ConcurrentHashMap.newKeySet();
+
+	/** 登録するスレッド */
+	private ExecutorService workers;
+
+	/** 実行中の場合はtrue */
+	private volatile boolean running;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param employeeService         従業員情報を登録するサービス
+	 * @param enabled                 非同期で登録する場合はtrue
+	 * @param queueCapacity           登録待ちの件数の上限
+	 * @param workerCount             登録するスレッド数
+	 * @param batchSize               1回のトランザクションで登録する最大件数
+	 * @param statusRetentionMinutes  登録の状態を保持する時間(分)
+	 */
+	public EmployeeRegistrationQueue(EmployeeService employeeService,
+			@Value("${employee.registration.async}") boolean enabled,
+			@Value("${employee.registration.queue-capacity}") int queueCapacity,
+			@Value("${employee.registration.workers}") int workerCount,
+			@Value("${employee.registration.batch-size}") int batchSize,
+			@Value("${employee.registration.status-retention-minutes}") long statusRetentionMinutes) {
+		this.employeeService = employeeService;
+		this.enabled = enabled;
+		this.workerCount = workerCount;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.statusCache = Caffeine.newBuilder().expireAfterWrite(statusRetentionMinutes, TimeUnit.MINUTES)
+				.build();
+	}
+
+	/**
+	 * 非同期で登録する場合に、登録するスレッドを開始します.
+	 */
+	@PostConstruct
+	public synchronized void start() {
+		if (!enabled || running) {
+			return;
+		}
+		if (meterRegistry != null) {
+			meterRegistry.gauge("employee.registration.queue", queue, BlockingQueue::size);
+		}
+		running = true;
+		AtomicInteger threadNumber = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+			Thread thread = new Thread(runnable, "employee-registration-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workerCount; i++) {
+			workers.execute(this::drain);
+		}
+	}
+
+	/**
+	 * 新たな受け付けを止め、登録待ちの従業員情報を登録してからスレッドを停止します.
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		workers.shutdown();
+		try {
+			if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				workers.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			workers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		if (!queue.isEmpty()) {
+			LOGGER.warn("{}件の従業員情報を登録できないまま停止しました: {}", queue.size(), queue);
+		}
+	}
+
+	/**
+	 * 非同期で登録するか判定します.
+	 *
+	 * @return 非同期で登録する場合はtrue
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 従業員情報を受け付けます.
+	 *
+	 * @param form  入力チェック済みの従業員情報用フォーム
+	 * @param image 表示用の画像
+	 * @return 登録待ちの状態(受付番号を含みます)
+	 * @throws RegistrationRejectedException 待ち行列が一杯の場合、または停止中の場合
+	 */
+	public EmployeeRegistrationStatus submit(InsertEmployeeForm form, ProcessedImage image) {
+		if (!running) {
+			throw new RegistrationRejectedException(BUSY_MESSAGE);
+		}
+		String token = UUID.randomUUID().toString();
+		Employee employee = EmployeeService.toEmployee(form);
+		EmployeeRegistrationStatus status = EmployeeRegistrationStatus.queued(token);
+		// 登録するスレッドが先に状態を更新した場合に上書きしないよう、待ち行列に入れる前に状態を保存します
+		statusCache.put(token, status);
+		pendingMailAddressSet.add(employee.getMailAddress());
+		if (!queue.offer(new EmployeeRegistration(token, employee, image))) {
+			statusCache.invalidate(token);
+			pendingMailAddressSet.remove(employee.getMailAddress());
+			throw new RegistrationRejectedException(BUSY_MESSAGE);
+		}
+		return status;
+	}
+
+	/**
+	 * 登録の状態を取得します.
+	 *
+	 * @param token 受付番号
+	 * @return 登録の状態 受付番号が存在しない場合や保持する時間を過ぎた場合はnull
+	 */
+	public EmployeeRegistrationStatus getStatus(String token) {
+		return statusCache.getIfPresent(token);
+	}
+
+	/**
+	 * メールアドレスが登録待ちか判定します.
+	 *
+	 * @param mailAddress メールアドレス
+	 * @return 登録待ちの場合はtrue
+	 */
+	public boolean isPending(String mailAddress) {
+		return pendingMailAddressSet.contains(mailAddress);
+	}
+
+	/**
+	 * 停止されて待ち行列が空になるまで、待ち行列から取り出した従業員情報を登録します.
+	 */
+	private void drain() {
+		List<EmployeeRegistration> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				EmployeeRegistration registration = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (registration == null) {
+					continue;
+				}
+				batch.add(registration);
+				queue.drainTo(batch, batchSize - 1);
+				register(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				LOGGER.error("従業員の登録中に予期しないエラーが発生しました", e);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * 従業員情報を1つのトランザクションで登録し、失敗した場合は1件ずつ登録し直します.
+	 *
+	 * @param batch 登録する従業員情報
+	 */
+	void register(List<EmployeeRegistration> batch) {
+		List<EmployeeRegistrationStatus> statusList;
+		try {
+			statusList = employeeService.insertAll(batch);
+		} catch (RuntimeException e) {
+			if (batch.size() == 1) {
+				LOGGER.warn("従業員の登録に失敗しました: {}", batch, e);
+				statusList = Collections.singletonList(
+						EmployeeRegistrationStatus.failed(batch.get(0).getToken(), "登録に失敗しました"));
+			} else {
+				LOGGER.warn("{}件の従業員の登録に失敗したため、1件ずつ登録し直します", batch.size(), e);
+				statusList = new ArrayList<>();
+				for (EmployeeRegistration registration : batch) {
+					try {
+						statusList.addAll(employeeService.insertAll(Collections.singletonList(registration)));
+					} catch (RuntimeException retryException) {
+						LOGGER.warn("従業員の登録に失敗しました: {}", registration, retryException);
+						statusList.add(EmployeeRegistrationStatus.failed(registration.getToken(), "登録に失敗しました"));
+					}
+				}
+			}
+		}
+		for (EmployeeRegistrationStatus status : statusList) {
+			statusCache.put(status.getToken(), status);
+		}
+		for (EmployeeRegistration registration : batch) {
+			pendingMailAddressSet.remove(registration.getEmployee().getMailAddress());
+		}
+	}
+}
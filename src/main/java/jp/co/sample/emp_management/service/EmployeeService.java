@@ -1,22 +1,53 @@
 package jp.co.sample.emp_management.service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Date;
-import java.util.Base64;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jp.co.sample.emp_management.config.ReplicaRoutingDataSource;
 import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeChangedEvent;
+import jp.co.sample.emp_management.domain.EmployeePage;
+import jp.co.sample.emp_management.domain.EmployeeRegistration;
+import jp.co.sample.emp_management.domain.EmployeeRegistrationStatus;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
+import jp.co.sample.emp_management.domain.ProcessedImage;
 import jp.co.sample.emp_management.form.InsertEmployeeForm;
 import jp.co.sample.emp_management.repository.EmployeeRepository;
+import jp.co.sample.emp_management.repository.ImageStore;
 
 /**
  * 従業員情報を操作するサービス.
  * 
+ * 参照のみのメソッドはreadOnlyのトランザクションで実行し、レプリカが設定されている場合はレプリカから取得します.
+ * 変更後にキャッシュを破棄する場合は、レプリカに反映される前の内容を再びキャッシュしないよう
+ * しばらくの間プライマリから取得します.
+ * 
  * @author igamasayuki
  *
  */
@@ -24,16 +55,72 @@ import jp.co.sample.emp_management.repository.EmployeeRepository;
 @Transactional
 public class EmployeeService {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmployeeService.class);
+
+	/** 1ページに表示する従業員の件数 */
+	private static final int PAGE_SIZE = 10;
+
+	/** 従業員詳細のキャッシュ名(キーは従業員ID) */
+	public static final String DETAIL_CACHE = "employeeDetail";
+
+	/** 従業員一覧のページのキャッシュ名(キーはページ番号またはカーソル) */
+	public static final String PAGE_CACHE = "employeePages";
+
+	/** 従業員一覧の先頭ページのキャッシュのキー */
+	private static final String FIRST_PAGE_KEY = "cursor:null:null";
+
 	@Autowired
 	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ImageStore imageStore;
+
+	@Autowired
+	private EmployeeIdAllocator employeeIdAllocator;
+
+	@Autowired
+	private EmployeeNameIndex employeeNameIndex;
+
+	@Autowired
+	private EmployeeNgramIndex employeeNgramIndex;
+
+	/** 名前検索の方式(auto, trigram, ngram) */
+	@Value("${employee.search.mode}")
+	private String searchMode;
+
+	/** トライグラム索引で検索できる検索ワードの最小文字数 これより短い場合はGINインデックスを使えないため全件走査になります */
+	private static final int TRIGRAM_MIN_LENGTH = 3;
+
+	/** 名前検索にトライグラム索引を使う場合はtrue 未判定の場合はnull */
+	private volatile Boolean trigramSearch;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	/** レプリカへの振り分け レプリカを使わない場合はnull */
+	private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+	/**
+	 * データソースからレプリカへの振り分けを取り出します.
+	 * 
+	 * @param dataSource データソース
+	 * @throws SQLException 取り出せなかった場合
+	 */
+	@Autowired
+	public void setDataSource(DataSource dataSource) throws SQLException {
+		replicaRoutingDataSource = dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+				? dataSource.unwrap(ReplicaRoutingDataSource.class)
+				: null;
+	}
 	
 	/**
 	 * 従業員情報を全件取得します.
 	 * 
 	 * @return　従業員情報一覧
 	 */
-	public List<Employee> showList() {
-		List<Employee> employeeList = employeeRepository.findAll();
+	@Transactional(readOnly = true)
+	public List<EmployeeSummary> showList() {
+		List<EmployeeSummary> employeeList = employeeRepository.findAll();
 		return employeeList;
 	}
 	
@@ -44,11 +131,33 @@ public class EmployeeService {
 	 * @return 従業員情報
 	 * @throws 検索されない場合は例外が発生します
 	 */
+	@Transactional(readOnly = true)
+	@Cacheable(cacheNames = DETAIL_CACHE, key = "#id")
 	public Employee showDetail(Integer id) {
 		Employee employee = employeeRepository.load(id);
 		return employee;
 	}
 	
+	/**
+	 * 従業員の画像を取得します.
+	 * 
+	 * @param key 画像のキー
+	 * @return 画像 存在しない場合はnullが返ります
+	 */
+	public Resource loadImage(String key) {
+		return imageStore.load(key);
+	}
+
+	/**
+	 * 従業員の画像のContent-Typeを取得します.
+	 * 
+	 * @param key 画像のキー
+	 * @return Content-Type
+	 */
+	public String getImageContentType(String key) {
+		return imageStore.getContentType(key);
+	}
+
 	/**
 	 * 従業員情報を更新します.
 	 * 
@@ -56,52 +165,261 @@ public class EmployeeService {
 	 */
 	public void update(Employee employee) {
 		employeeRepository.update(employee);
+		afterCommit(() -> {
+			usePrimaryAfterChange();
+			cacheManager.getCache(DETAIL_CACHE).evict(employee.getId());
+			// 扶養人数は一覧にも表示するため、全てのページを破棄します
+			cacheManager.getCache(PAGE_CACHE).clear();
+		});
 	}
 	
 	/**
-	 * 検索ワードが含まれる名前の従業員情報を取得します.
+	 * 検索ワードが含まれる名前の従業員情報を、名前の類似度が高い順に1ページ分取得します.
+	 * 
+	 * pg_trgm拡張が使える場合はデータベースのトライグラム索引で、
+	 * 使えない場合はメモリ上のN-gram索引で検索します.
+	 * トライグラム索引は3文字未満の検索ワードには使えず全件走査になるため、
+	 * 日本語の姓に多い1、2文字の検索ワードはpg_trgm拡張が使える場合もN-gram索引で検索します.
+	 * 検索ワードが空文字の場合と、該当する従業員が存在しない場合は従業員一覧の先頭ページを返します.
+	 * 
 	 * @param searchWord 検索ワード
-	 * @return　該当した従業員情報　検索ワードが空文字の場合は全従業員情報
+	 * @param pageNum ページ番号
+	 * @return　検索結果
 	 */
-	public List<Employee> searchName(String searchWord){
-		List<Employee> employeeList;
+	@Transactional(readOnly = true)
+	public EmployeeSearchResult searchName(String searchWord, Integer pageNum){
 		if(searchWord.isEmpty()) {
-			employeeList = employeeRepository.findAll();
+			EmployeePage firstPage = showFirstPage();
+			return new EmployeeSearchResult(firstPage.getEmployeeList(), false, 0, firstPage.getNextCursor());
+		}
+		int offset = (pageNum - 1) * PAGE_SIZE;
+		EmployeeSearchResult searchResult;
+		if(isTrigramSearch() && searchWord.codePointCount(0, searchWord.length()) >= TRIGRAM_MIN_LENGTH) {
+			searchResult = employeeRepository.findBySearchWord(searchWord, PAGE_SIZE, offset);
 		} else {
-			employeeList = employeeRepository.findBySearchWord(searchWord);
+			searchResult = searchNameByNgram(searchWord, offset);
 		}
-		return employeeList;
+		if(searchResult.getEmployeeList().isEmpty() && pageNum == 1) {
+			EmployeePage firstPage = showFirstPage();
+			return new EmployeeSearchResult(firstPage.getEmployeeList(), true, 0, firstPage.getNextCursor());
+		}
+		return searchResult;
+	}
+
+	/**
+	 * メモリ上のN-gram索引で検索ワードが含まれる名前の従業員情報を1ページ分取得します.
+	 * 
+	 * @param searchWord 検索ワード
+	 * @param offset 読み飛ばす件数
+	 * @return　検索結果
+	 */
+	private EmployeeSearchResult searchNameByNgram(String searchWord, int offset) {
+		List<Integer> idList = employeeNgramIndex.search(searchWord);
+		int totalCount = idList.size();
+		if(offset >= totalCount) {
+			return new EmployeeSearchResult(new ArrayList<>(), false, totalCount, null);
+		}
+		idList = idList.subList(offset, Math.min(offset + PAGE_SIZE, totalCount));
+		Map<Integer, EmployeeSummary> employeeMap = new HashMap<>();
+		for(EmployeeSummary employee : employeeRepository.findByIds(idList)) {
+			employeeMap.put(employee.getId(), employee);
+		}
+		List<EmployeeSummary> employeeList = new ArrayList<>();
+		for(Integer id : idList) {
+			if(employeeMap.containsKey(id)) {
+				employeeList.add(employeeMap.get(id));
+			}
+		}
+		return new EmployeeSearchResult(employeeList, false, totalCount, null);
+	}
+
+	/**
+	 * 名前検索にpg_trgm拡張のトライグラム索引を使うか判定します.
+	 * 
+	 * @return トライグラム索引を使う場合はtrue
+	 */
+	private boolean isTrigramSearch() {
+		Boolean trigramSearch = this.trigramSearch;
+		if(trigramSearch == null) {
+			if("auto".equals(searchMode)) {
+				trigramSearch = employeeRepository.isTrigramAvailable();
+			} else {
+				trigramSearch = "trigram".equals(searchMode);
+			}
+			this.trigramSearch = trigramSearch;
+		}
+		return trigramSearch;
 	}
 	
 	/**
 	 * 従業員情報を登録します.
 	 * 
-	 * @param employee　従業員情報
+	 * 画像はアップロードされたファイルではなく、ImageProcessorで生成した表示用の画像を保存します.
+	 * 
+	 * @param form　従業員情報
+	 * @param image 表示用の画像
 	 */
-	public synchronized void insert(InsertEmployeeForm form){
+	public void insert(InsertEmployeeForm form, ProcessedImage image){
+		Employee employee = toEmployee(form);
+		employee.setId(employeeIdAllocator.allocate());
+		storeImage(employee, image);
+		employeeRepository.insert(employee);
+		// コミットされた従業員のみを名前の候補に追加します
+		afterCommit(() -> {
+			employeeNameIndex.add(employee.getId(), employee.getName());
+			employeeNgramIndex.add(employee.getId(), employee.getName());
+			// 登録した従業員以降のページがずれるため、全てのページを破棄します
+			usePrimaryAfterChange();
+			cacheManager.getCache(PAGE_CACHE).clear();
+		});
+	}
+
+	/**
+	 * 非同期の従業員登録で受け付けた従業員情報を1つのトランザクションでまとめて登録します.
+	 * 
+	 * 既に登録されているメールアドレスと、受け付けた中で重複するメールアドレスの従業員は登録しません.
+	 * 挿入に失敗した場合は例外が発生し、全ての従業員情報が登録されません.
+	 * 
+	 * @param registrationList 受け付けた従業員情報
+	 * @return 受け付けた順の登録結果
+	 */
+	public List<EmployeeRegistrationStatus> insertAll(List<EmployeeRegistration> registrationList) {
+		List<String> mailAddressList = new ArrayList<>();
+		for (EmployeeRegistration registration : registrationList) {
+			mailAddressList.add(registration.getEmployee().getMailAddress());
+		}
+		Set<String> existingMailAddressSet = employeeRepository.findExistingMailAddresses(mailAddressList);
+		List<EmployeeRegistrationStatus> statusList = new ArrayList<>();
+		List<Employee> employeeList = new ArrayList<>();
+		List<Integer> idList = new ArrayList<>();
+		for (EmployeeRegistration registration : registrationList) {
+			Employee employee = registration.getEmployee();
+			if (!existingMailAddressSet.add(employee.getMailAddress())) {
+				statusList.add(EmployeeRegistrationStatus.failed(registration.getToken(), "このメールアドレスは既に登録されています"));
+				continue;
+			}
+			employee.setId(employeeIdAllocator.allocate());
+			storeImage(employee, registration.getImage());
+			employeeList.add(employee);
+			idList.add(employee.getId());
+			statusList.add(EmployeeRegistrationStatus.completed(registration.getToken(), employee.getId()));
+		}
+		employeeRepository.insertAll(employeeList);
+		employeeRepository.notifyInserted(idList);
+		afterCommit(() -> {
+			for (Employee employee : employeeList) {
+				employeeNameIndex.add(employee.getId(), employee.getName());
+				employeeNgramIndex.add(employee.getId(), employee.getName());
+			}
+			usePrimaryAfterChange();
+			cacheManager.getCache(PAGE_CACHE).clear();
+		});
+		return statusList;
+	}
+
+	/**
+	 * 登録フォームを従業員情報に変換します.
+	 * 
+	 * 従業員IDと画像のキーは設定しません.
+	 * 
+	 * @param form 従業員情報用フォーム
+	 * @return 従業員情報
+	 */
+	static Employee toEmployee(InsertEmployeeForm form) {
 		Employee employee = new Employee();
 		BeanUtils.copyProperties(form, employee);
-		Integer dataSize = employeeRepository.getMaxId();
-		employee.setId(dataSize + 1);
 		employee.setHireDate(Date.valueOf(form.getHireDate()));
 		employee.setTelephone(form.getTelephone().replace(",", "-"));
 		employee.setSalary(Integer.parseInt(form.getSalary()));
 		employee.setDependentsCount(Integer.parseInt(form.getDependentsCount()));
-		
+		return employee;
+	}
+
+	/**
+	 * 表示用の画像を画像ストアに保存し、画像のキーを従業員情報に設定します.
+	 * 
+	 * 保存に失敗した場合は例外を発生させ、画像の無い従業員を登録せずにトランザクションをロールバックします.
+	 * 
+	 * @param employee 従業員情報
+	 * @param image    表示用の画像
+	 * @throws UncheckedIOException 画像ストアへの保存に失敗した場合(ディスクの空きが無い場合など)
+	 */
+	private void storeImage(Employee employee, ProcessedImage image) {
 		try {
-			String base64Image = Base64.getEncoder().encodeToString(form.getImage().getBytes());
-			String fileName = form.getImage().getOriginalFilename();
-			if(fileName.lastIndexOf("jpg") == fileName.length()-3) {
-				base64Image = "data:image/jpeg;base64," + base64Image;
-			} else if(fileName.lastIndexOf("png") == fileName.length()-3) {
-				base64Image = "data:image/png;base64," + base64Image;
-			}
-			employee.setImage(base64Image);
+			String key = imageStore.store(image.getDisplayImage(), image.getExtension());
+			employee.setImage(key);
 		} catch(IOException e) {
-			e.printStackTrace();
+			LOGGER.error("従業員の画像を画像ストアに保存できませんでした", e);
+			throw new UncheckedIOException("従業員の画像を画像ストアに保存できませんでした", e);
+		}
+	}
+
+	/**
+	 * 従業員情報の変更に合わせてキャッシュと名前の索引を更新します.
+	 * 
+	 * 他のアプリケーションサーバーでの変更はEmployeeChangeListenerから通知されます.
+	 * このサーバーでの変更も通知されますが、キャッシュの破棄と索引への追加は何度行っても結果は変わりません.
+	 * 
+	 * @param event 変更内容
+	 */
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		usePrimaryAfterChange();
+		if (EmployeeChangedEvent.RESET.equals(event.getOperation())) {
+			cacheManager.getCache(DETAIL_CACHE).clear();
+			cacheManager.getCache(PAGE_CACHE).clear();
+			employeeNameIndex.clear();
+			employeeNgramIndex.clear();
+			return;
+		}
+		cacheManager.getCache(DETAIL_CACHE).evict(event.getId());
+		cacheManager.getCache(PAGE_CACHE).clear();
+		if (EmployeeChangedEvent.INSERT.equals(event.getOperation())) {
+			for (EmployeeSummary employee : employeeRepository.findByIds(Collections.singletonList(event.getId()))) {
+				employeeNameIndex.add(employee.getId(), employee.getName());
+				employeeNgramIndex.add(employee.getId(), employee.getName());
+			}
+		}
+	}
+
+	/**
+	 * レプリカを使う場合、しばらくの間は参照のみのトランザクションもプライマリに振り分けます.
+	 * 
+	 * 遅延の上限以内のレプリカでも直前のコミットが反映されていない場合があるため、キャッシュを破棄する前に呼び、
+	 * 破棄した直後の読み込みで変更前の内容がキャッシュされるのを防ぎます.
+	 */
+	private void usePrimaryAfterChange() {
+		if (replicaRoutingDataSource != null) {
+			replicaRoutingDataSource.usePrimaryAfterChange();
 		}
-			
-		employeeRepository.insert(employee);
+	}
+
+	/**
+	 * 現在のトランザクションがコミットされた後に処理を実行します.
+	 * 
+	 * キャッシュはコミット前に破棄すると、コミット前の内容を他のリクエストが再びキャッシュしてしまうため、
+	 * コミット後に破棄します.
+	 * 
+	 * @param action コミット後に実行する処理
+	 */
+	private void afterCommit(Runnable action) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	/**
+	 * 入力された文字列から始まる従業員名の候補を取得します.
+	 * 
+	 * @param query 入力された文字列
+	 * @param limit 最大件数
+	 * @return 従業員名の候補
+	 */
+	public List<String> suggestName(String query, int limit) {
+		return employeeNameIndex.suggest(query, limit);
 	}
 	
 	/**
@@ -109,8 +427,8 @@ public class EmployeeService {
 	 * @param mailAddress メールアドレス
 	 * @return　従業員情報 　存在しない場合はnullが返ります
 	 */
-	public Employee checkMailAddress(String mailAddress) {
-		Employee employee = employeeRepository.findByMailAddress(mailAddress);
+	public EmployeeSummary checkMailAddress(String mailAddress) {
+		EmployeeSummary employee = employeeRepository.findByMailAddress(mailAddress);
 		return employee;
 	}
 	
@@ -120,8 +438,73 @@ public class EmployeeService {
 	 * @param pageNum ページ番号
 	 * @return 最大10件の従業員情報
 	 */
-	public List<Employee> showList10(Integer pageNum){
-		List<Employee> employeeList = employeeRepository.findLimit10(pageNum);
+	@Transactional(readOnly = true)
+	@Cacheable(cacheNames = PAGE_CACHE, key = "'page:' + #pageNum")
+	public List<EmployeeSummary> showList10(Integer pageNum){
+		List<EmployeeSummary> employeeList = employeeRepository.findLimit10(pageNum);
 		return employeeList;
 	}
+
+	/**
+	 * カーソルを基準に1ページ分の従業員情報を取得します.
+	 * 
+	 * afterとbeforeがどちらもnullの場合は先頭のページを取得します.
+	 * 
+	 * @param after  このカーソルより後ろのページを取得します
+	 * @param before このカーソルより前のページを取得します
+	 * @return 1ページ分の従業員情報
+	 */
+	@Transactional(readOnly = true)
+	@Cacheable(cacheNames = PAGE_CACHE, key = "'cursor:' + #after + ':' + #before")
+	public EmployeePage showPage(String after, String before) {
+		return loadPage(after, before);
+	}
+
+	/**
+	 * 従業員一覧の先頭ページをキャッシュから取得します.
+	 * 
+	 * キャッシュに無い場合はデータベースから取得してキャッシュします.
+	 * (同じクラスのメソッドから呼ぶとshowPageの@Cacheableが効かないため、キャッシュを直接使います)
+	 * 
+	 * @return 先頭ページの従業員情報
+	 */
+	private EmployeePage showFirstPage() {
+		return cacheManager.getCache(PAGE_CACHE).get(FIRST_PAGE_KEY, () -> loadPage(null, null));
+	}
+
+	/**
+	 * カーソルを基準に1ページ分の従業員情報をデータベースから取得します.
+	 * 
+	 * @param after  このカーソルより後ろのページを取得します
+	 * @param before このカーソルより前のページを取得します
+	 * @return 1ページ分の従業員情報
+	 */
+	private EmployeePage loadPage(String after, String before) {
+		PageCursor beforeCursor = before == null ? null : PageCursor.decode(before);
+		if (beforeCursor != null) {
+			List<EmployeeSummary> employeeList = employeeRepository.findBefore(beforeCursor, PAGE_SIZE + 1);
+			boolean hasPrevious = employeeList.size() > PAGE_SIZE;
+			if (hasPrevious) {
+				employeeList = employeeList.subList(1, employeeList.size());
+			}
+			if (employeeList.isEmpty()) {
+				return loadPage(null, null);
+			}
+			String previousCursor = hasPrevious ? PageCursor.of(employeeList.get(0)).encode() : null;
+			String nextCursor = PageCursor.of(employeeList.get(employeeList.size() - 1)).encode();
+			return new EmployeePage(employeeList, nextCursor, previousCursor);
+		}
+		PageCursor afterCursor = after == null ? null : PageCursor.decode(after);
+		List<EmployeeSummary> employeeList = employeeRepository.findAfter(afterCursor, PAGE_SIZE + 1);
+		boolean hasNext = employeeList.size() > PAGE_SIZE;
+		if (hasNext) {
+			employeeList = employeeList.subList(0, PAGE_SIZE);
+		}
+		String nextCursor = hasNext ? PageCursor.of(employeeList.get(employeeList.size() - 1)).encode() : null;
+		String previousCursor = null;
+		if (afterCursor != null && !employeeList.isEmpty()) {
+			previousCursor = PageCursor.of(employeeList.get(0)).encode();
+		}
+		return new EmployeePage(employeeList, nextCursor, previousCursor);
+	}
 }
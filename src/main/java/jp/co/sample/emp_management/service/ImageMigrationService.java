@@ -0,0 +1,108 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+import jp.co.sample.emp_management.repository.ImageStore;
+
+/**
+ * employees.imageに直接保存されている画像を画像ストアに移行するサービス.
+ *
+ * 「data:image/png;base64,...」形式の画像と、static/img配下のファイル名が
+ * 保存されている画像を画像ストアに保存し、employees.imageを画像のキーに置き換えます.
+ * 起動引数に「--image.migration.enabled=true」を指定した場合に起動時に実行されます.
+ *
+ * @author yu.konishi
+ *
+ */
+@Service
+@ConditionalOnProperty(name = "image.migration.enabled", havingValue = "true")
+public class ImageMigrationService implements ApplicationRunner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageMigrationService.class);
+
+	/** 一度に読み込む従業員の件数 */
+	private static final int CHUNK_SIZE = 20;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ImageStore imageStore;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		int migratedCount = migrate();
+		LOGGER.info("{}件の画像を画像ストアに移行しました", migratedCount);
+	}
+
+	/**
+	 * 画像ストアに移行されていない画像を移行します.
+	 *
+	 * 従業員ごとに画像を保存してからキーを更新するため、途中で失敗した場合も再実行できます.
+	 *
+	 * @return 移行した画像の件数
+	 */
+	public int migrate() {
+		int migratedCount = 0;
+		int lastId = 0;
+		List<Employee> employeeList;
+		do {
+			employeeList = employeeRepository.findNotMigratedImages(lastId, CHUNK_SIZE);
+			for (Employee employee : employeeList) {
+				lastId = employee.getId();
+				try {
+					String key = storeImage(employee.getImage());
+					if (key == null) {
+						LOGGER.warn("従業員ID:{}の画像は移行できない形式です", employee.getId());
+						continue;
+					}
+					employeeRepository.updateImage(employee.getId(), key);
+					migratedCount++;
+				} catch (IOException | IllegalArgumentException e) {
+					LOGGER.warn("従業員ID:{}の画像の移行に失敗しました", employee.getId(), e);
+				}
+			}
+		} while (employeeList.size() == CHUNK_SIZE);
+		return migratedCount;
+	}
+
+	/**
+	 * 移行前の画像を画像ストアに保存します.
+	 *
+	 * @param image 移行前の画像(data URIまたはstatic/img配下のファイル名)
+	 * @return 画像のキー 移行できない形式の場合はnullを返します
+	 * @throws IOException 画像の読み込みまたは保存に失敗した場合
+	 */
+	private String storeImage(String image) throws IOException {
+		if (image.startsWith("data:")) {
+			int commaIndex = image.indexOf(',');
+			String extension = image.startsWith("data:image/jpeg") ? "jpg" : "png";
+			return imageStore.store(Base64.getDecoder().decode(image.substring(commaIndex + 1)), extension);
+		}
+		if (image.endsWith(".png") || image.endsWith(".jpg")) {
+			ClassPathResource resource = new ClassPathResource("static/img/" + image);
+			if (image.contains("/") || !resource.exists()) {
+				return null;
+			}
+			try (InputStream inputStream = resource.getInputStream()) {
+				return imageStore.store(StreamUtils.copyToByteArray(inputStream), image.substring(image.length() - 3));
+			}
+		}
+		return null;
+	}
+}
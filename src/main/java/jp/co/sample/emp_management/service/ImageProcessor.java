@@ -0,0 +1,133 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jp.co.sample.emp_management.domain.ProcessedImage;
+
+/**
+ * アップロードされた画像の変換を専用のスレッドプールで行うコンポーネント.
+ *
+ * 画像の展開と縮小はCPUとメモリを多く使うため、同時に変換するスレッド数と待ち行列の長さを制限し、
+ * 待ち行列が一杯の場合や待ち時間が上限を超えた場合は変換せずにすぐ拒否します.
+ * 同時に展開される画像はスレッド数までのため、ヒープの使用量も上限が決まります.
+ * スレッドプールの実行中の件数と待ち行列の件数はexecutor.*(name=image-processor)として記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class ImageProcessor {
+
+	/** 混雑している場合のメッセージ */
+	private static final String BUSY_MESSAGE = "画像の処理が混雑しています。しばらくしてから登録してください";
+
+	private final ImageTransformer imageTransformer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/** 変換を待つ最大時間(ミリ秒) */
+	private final long timeoutMillis;
+
+	/** 変換を行うスレッドプール */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param imageTransformer 画像の変換を行うコンポーネント
+	 * @param threads          変換を行うスレッド数 0以下の場合はCPUのコア数の半分(最低1)
+	 * @param queueCapacity    変換を待つ件数の上限
+	 * @param timeoutMillis    変換を待つ最大時間(ミリ秒)
+	 */
+	public ImageProcessor(ImageTransformer imageTransformer, @Value("${image.processing.threads}") int threads,
+			@Value("${image.processing.queue-capacity}") int queueCapacity,
+			@Value("${image.processing.timeout-millis}") long timeoutMillis) {
+		if (threads < 1) {
+			threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		}
+		this.imageTransformer = imageTransformer;
+		this.timeoutMillis = timeoutMillis;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "image-processor-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * 画像から表示用の画像を生成します.
+	 *
+	 * @param source 画像(アップロードされたファイルなど)
+	 * @return 表示用の画像
+	 * @throws ImageRejectedException 画像が不正な場合、または変換が混雑していて受け付けられなかった場合
+	 */
+	public ProcessedImage process(InputStreamSource source) {
+		Future<ProcessedImage> future;
+		try {
+			future = executor.submit(() -> {
+				try (InputStream inputStream = source.getInputStream()) {
+					return imageTransformer.transform(inputStream);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			throw new ImageRejectedException(BUSY_MESSAGE, e);
+		}
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new ImageRejectedException(BUSY_MESSAGE, e);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ImageRejectedException(BUSY_MESSAGE, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ImageRejectedException) {
+				throw (ImageRejectedException) e.getCause();
+			}
+			if (e.getCause() instanceof IOException) {
+				throw new ImageRejectedException(ImageTransformer.UNREADABLE_MESSAGE, e.getCause());
+			}
+			throw new IllegalStateException("画像の変換に失敗しました", e.getCause());
+		}
+	}
+
+	/**
+	 * スレッドプールの状態を記録します.
+	 */
+	@PostConstruct
+	public void bindMetrics() {
+		new ExecutorServiceMetrics(executor, "image-processor", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	/**
+	 * スレッドプールを停止します.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
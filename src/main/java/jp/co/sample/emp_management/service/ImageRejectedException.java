@@ -0,0 +1,33 @@
+package jp.co.sample.emp_management.service;
+
+/**
+ * 形式や解像度が不正な画像、または画像処理の混雑により、アップロードされた画像を受け付けなかったことを表す例外.
+ *
+ * メッセージはそのまま入力エラーとして画面に表示します.
+ *
+ * @author yu.konishi
+ *
+ */
+public class ImageRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 拒否した理由
+	 */
+	public ImageRejectedException(String message) {
+		super(message);
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 拒否した理由
+	 * @param cause   原因となった例外
+	 */
+	public ImageRejectedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
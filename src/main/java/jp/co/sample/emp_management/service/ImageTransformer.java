@@ -0,0 +1,393 @@
+package jp.co.sample.emp_management.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jp.co.sample.emp_management.domain.ProcessedImage;
+
+/**
+ * アップロードされた画像から表示用の画像を生成するコンポーネント.
+ *
+ * 画像の形式はファイル名ではなく先頭のバイト列(マジックナンバー)から判定し、PNGとJPEGのみ受け付けます.
+ * 解像度はヘッダーだけを読んで確認し、上限を超える画像は展開せずに拒否します.
+ * 大きな画像は表示用の大きさの2倍程度まで間引きながら展開するため、展開後の画像のメモリ使用量は元の解像度に比例しません.
+ * 生成する画像には元の画像のメタデータ(撮影日時や位置情報など)を含めず、EXIFの向きは画素に反映します.
+ * 透過のある画像はPNG、それ以外はJPEGで出力します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class ImageTransformer {
+
+	/** 画像の形式が不正な場合のメッセージ */
+	static final String INVALID_FORMAT_MESSAGE = "pngファイル、またはjpgファイルを選択してください";
+
+	/** 画像を読み込めない場合のメッセージ */
+	static final String UNREADABLE_MESSAGE = "画像を読み込めませんでした";
+
+	/** PNGの先頭のバイト列 */
+	private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+	/** 形式とEXIFの向きを判定するために読む先頭のバイト数(EXIFのAPP1セグメントは最大64KiBです) */
+	private static final int HEADER_LENGTH = 72 * 1024;
+
+	/** EXIFのOrientationタグ */
+	private static final int ORIENTATION_TAG = 0x0112;
+
+	/** 受け付ける画像の画素数の上限 */
+	private final long maxPixels;
+
+	/** 表示用の画像の長辺の最大ピクセル数 */
+	private final int displaySize;
+
+	/** JPEGの画質(0.0～1.0) */
+	private final float jpegQuality;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param maxPixels     受け付ける画像の画素数の上限
+	 * @param displaySize   表示用の画像の長辺の最大ピクセル数
+	 * @param jpegQuality   JPEGの画質(0.0～1.0)
+	 */
+	public ImageTransformer(@Value("${image.processing.max-pixels}") long maxPixels,
+			@Value("${image.processing.display-size}") int displaySize,
+			@Value("${image.processing.jpeg-quality}") float jpegQuality) {
+		this.maxPixels = maxPixels;
+		this.displaySize = displaySize;
+		this.jpegQuality = jpegQuality;
+	}
+
+	/**
+	 * 画像から表示用の画像を生成します.
+	 *
+	 * @param inputStream 画像 呼び出し側で閉じてください
+	 * @return 表示用の画像
+	 * @throws ImageRejectedException 形式が不正な場合、解像度が上限を超えた場合、画像が壊れている場合
+	 * @throws IOException            画像の読み込みに失敗した場合
+	 */
+	public ProcessedImage transform(InputStream inputStream) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(inputStream);
+		byte[] header = new byte[HEADER_LENGTH];
+		in.mark(HEADER_LENGTH);
+		int headerLength = readFully(in, header);
+		in.reset();
+		String format = detectFormat(header, headerLength);
+		if (format == null) {
+			throw new ImageRejectedException(INVALID_FORMAT_MESSAGE);
+		}
+		int orientation = "jpeg".equals(format) ? readOrientation(header, headerLength) : 1;
+
+		int width;
+		int height;
+		BufferedImage source;
+		try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(in)) {
+			Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+			if (imageInputStream == null || !readers.hasNext()) {
+				throw new ImageRejectedException(UNREADABLE_MESSAGE);
+			}
+			ImageReader reader = readers.next();
+			try {
+				// メタデータは読み飛ばします
+				reader.setInput(imageInputStream, true, true);
+				width = reader.getWidth(0);
+				height = reader.getHeight(0);
+				if (width <= 0 || height <= 0) {
+					throw new ImageRejectedException(UNREADABLE_MESSAGE);
+				}
+				if ((long) width * height > maxPixels) {
+					throw new ImageRejectedException(
+							"画像の解像度が大きすぎます(" + String.format("%.1f", maxPixels / 1000000.0) + "メガピクセルまで)");
+				}
+				// 縮小の画質を保つため、表示用の大きさの2倍を下回らない範囲で間引いて展開します
+				int subsampling = Math.max(1, Math.max(width, height) / (displaySize * 2));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				source = reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		} catch (IIOException e) {
+			throw new ImageRejectedException(UNREADABLE_MESSAGE, e);
+		}
+
+		boolean alpha = source.getColorModel().hasAlpha();
+		String extension = alpha ? "png" : "jpg";
+		double scale = Math.min(1.0, (double) displaySize / Math.max(source.getWidth(), source.getHeight()));
+		int displayWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+		int displayHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+		BufferedImage display = scale(source, 0, 0, source.getWidth(), source.getHeight(), displayWidth,
+				displayHeight, alpha);
+		display = orient(display, orientation);
+		return new ProcessedImage(extension, encode(display, extension), width, height);
+	}
+
+	/**
+	 * 先頭のバイト列から画像の形式を判定します.
+	 *
+	 * @param header 先頭のバイト列
+	 * @param length 先頭のバイト列の長さ
+	 * @return ImageIOの形式名(jpeg または png) 対応していない形式の場合はnull
+	 */
+	static String detectFormat(byte[] header, int length) {
+		if (length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8 && (header[2] & 0xff) == 0xff) {
+			return "jpeg";
+		}
+		if (length >= PNG_SIGNATURE.length
+				&& Arrays.equals(Arrays.copyOf(header, PNG_SIGNATURE.length), PNG_SIGNATURE)) {
+			return "png";
+		}
+		return null;
+	}
+
+	/**
+	 * JPEGの先頭のバイト列からEXIFの向き(Orientation)を読み取ります.
+	 *
+	 * @param header 先頭のバイト列
+	 * @param length 先頭のバイト列の長さ
+	 * @return 向き(1～8) EXIFが無い場合や読み取れない場合は1
+	 */
+	static int readOrientation(byte[] header, int length) {
+		int position = 2;
+		while (position + 4 <= length) {
+			int marker = readShort(header, position, true);
+			int segmentLength = readShort(header, position + 2, true);
+			// 画像データ(SOS)より後ろにEXIFはありません
+			if ((marker & 0xff00) != 0xff00 || marker == 0xffda || segmentLength < 2) {
+				return 1;
+			}
+			int start = position + 4;
+			int end = Math.min(length, position + 2 + segmentLength);
+			if (marker == 0xffe1 && start + 6 <= end && header[start] == 'E' && header[start + 1] == 'x'
+					&& header[start + 2] == 'i' && header[start + 3] == 'f' && header[start + 4] == 0
+					&& header[start + 5] == 0) {
+				return readExifOrientation(header, start + 6, end);
+			}
+			position += 2 + segmentLength;
+		}
+		return 1;
+	}
+
+	/**
+	 * EXIFのTIFF構造の最初のIFDから向きを読み取ります.
+	 *
+	 * @param header バイト列
+	 * @param tiff   TIFFヘッダーの位置
+	 * @param end    EXIFの終わりの位置
+	 * @return 向き(1～8) 読み取れない場合は1
+	 */
+	private static int readExifOrientation(byte[] header, int tiff, int end) {
+		if (tiff + 8 > end) {
+			return 1;
+		}
+		boolean bigEndian;
+		if (header[tiff] == 'M' && header[tiff + 1] == 'M') {
+			bigEndian = true;
+		} else if (header[tiff] == 'I' && header[tiff + 1] == 'I') {
+			bigEndian = false;
+		} else {
+			return 1;
+		}
+		long ifd = tiff + (readInt(header, tiff + 4, bigEndian) & 0xffffffffL);
+		if (ifd + 2 > end) {
+			return 1;
+		}
+		int entryCount = readShort(header, (int) ifd, bigEndian);
+		for (int i = 0; i < entryCount; i++) {
+			int entry = (int) ifd + 2 + i * 12;
+			if (entry + 12 > end) {
+				return 1;
+			}
+			if (readShort(header, entry, bigEndian) == ORIENTATION_TAG) {
+				int orientation = readShort(header, entry + 8, bigEndian);
+				return orientation >= 1 && orientation <= 8 ? orientation : 1;
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * 画像の一部を指定した大きさに拡大縮小します.
+	 *
+	 * 縮小は半分ずつ段階的に行い、1回で大きく縮小した場合のジャギーを防ぎます.
+	 * 透過の無い画像は背景を白にします.
+	 *
+	 * @param image  画像
+	 * @param x      切り抜く範囲の左端
+	 * @param y      切り抜く範囲の上端
+	 * @param width  切り抜く範囲の幅
+	 * @param height 切り抜く範囲の高さ
+	 * @param targetWidth  拡大縮小後の幅
+	 * @param targetHeight 拡大縮小後の高さ
+	 * @param alpha  透過のある画像の場合はtrue
+	 * @return 拡大縮小した画像
+	 */
+	private static BufferedImage scale(BufferedImage image, int x, int y, int width, int height, int targetWidth,
+			int targetHeight, boolean alpha) {
+		int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		BufferedImage current = image;
+		do {
+			int nextWidth = width / 2 >= targetWidth ? width / 2 : targetWidth;
+			int nextHeight = height / 2 >= targetHeight ? height / 2 : targetHeight;
+			BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+			Graphics2D graphics = next.createGraphics();
+			try {
+				if (!alpha) {
+					graphics.setColor(Color.WHITE);
+					graphics.fillRect(0, 0, nextWidth, nextHeight);
+				}
+				graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				graphics.drawImage(current, 0, 0, nextWidth, nextHeight, x, y, x + width, y + height, null);
+			} finally {
+				graphics.dispose();
+			}
+			current = next;
+			x = 0;
+			y = 0;
+			width = nextWidth;
+			height = nextHeight;
+		} while (width != targetWidth || height != targetHeight);
+		return current;
+	}
+
+	/**
+	 * EXIFの向きに合わせて画像を回転、反転します.
+	 *
+	 * @param image       画像
+	 * @param orientation EXIFの向き(1～8)
+	 * @return 回転、反転した画像 向きが1の場合は元の画像
+	 */
+	static BufferedImage orient(BufferedImage image, int orientation) {
+		if (orientation <= 1 || orientation > 8) {
+			return image;
+		}
+		int width = image.getWidth();
+		int height = image.getHeight();
+		// 5～8は縦横が入れ替わります
+		boolean transpose = orientation >= 5;
+		BufferedImage oriented = new BufferedImage(transpose ? height : width, transpose ? width : height,
+				image.getType());
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int orientedX;
+				int orientedY;
+				switch (orientation) {
+				case 2: // 左右反転
+					orientedX = width - 1 - x;
+					orientedY = y;
+					break;
+				case 3: // 180度回転
+					orientedX = width - 1 - x;
+					orientedY = height - 1 - y;
+					break;
+				case 4: // 上下反転
+					orientedX = x;
+					orientedY = height - 1 - y;
+					break;
+				case 5: // 左上と右下を結ぶ対角線で反転
+					orientedX = y;
+					orientedY = x;
+					break;
+				case 6: // 時計回りに90度回転
+					orientedX = height - 1 - y;
+					orientedY = x;
+					break;
+				case 7: // 右上と左下を結ぶ対角線で反転
+					orientedX = height - 1 - y;
+					orientedY = width - 1 - x;
+					break;
+				default: // 反時計回りに90度回転
+					orientedX = y;
+					orientedY = width - 1 - x;
+					break;
+				}
+				oriented.setRGB(orientedX, orientedY, image.getRGB(x, y));
+			}
+		}
+		return oriented;
+	}
+
+	/**
+	 * 画像をメタデータを含めずに出力します.
+	 *
+	 * @param image     画像
+	 * @param extension 拡張子(png または jpg)
+	 * @return 画像のバイト列
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private byte[] encode(BufferedImage image, String extension) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		if ("png".equals(extension)) {
+			ImageIO.write(image, "png", outputStream);
+			return outputStream.toByteArray();
+		}
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+			writer.setOutput(imageOutputStream);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(jpegQuality);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * バイト列がいっぱいになるか、ストリームの終わりまで読み込みます.
+	 *
+	 * @param inputStream 入力ストリーム
+	 * @param buffer      読み込み先
+	 * @return 読み込んだバイト数
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+		int length = 0;
+		while (length < buffer.length) {
+			int read = inputStream.read(buffer, length, buffer.length - length);
+			if (read < 0) {
+				break;
+			}
+			length += read;
+		}
+		return length;
+	}
+
+	private static int readShort(byte[] bytes, int position, boolean bigEndian) {
+		if (bigEndian) {
+			return ((bytes[position] & 0xff) << 8) | (bytes[position + 1] & 0xff);
+		}
+		return ((bytes[position + 1] & 0xff) << 8) | (bytes[position] & 0xff);
+	}
+
+	private static int readInt(byte[] bytes, int position, boolean bigEndian) {
+		if (bigEndian) {
+			return (readShort(bytes, position, true) << 16) | readShort(bytes, position + 2, true);
+		}
+		return (readShort(bytes, position + 2, false) << 16) | readShort(bytes, position, false);
+	}
+}
@@ -0,0 +1,71 @@
+package jp.co.sample.emp_management.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+
+import jp.co.sample.emp_management.form.InsertEmployeeForm;
+
+/**
+ * アノテーションでは表せない従業員登録フォームの入力チェックを行うコンポーネント.
+ *
+ * 登録画面と一括登録で同じチェックを行うために使います.
+ * メールアドレスの重複と画像のチェックは呼び出し側で行います.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class InsertEmployeeFormValidator {
+
+	/** 給料の上限 */
+	private static final int MAX_SALARY = 500000;
+
+	/** 扶養人数の上限 */
+	private static final int MAX_DEPENDENTS_COUNT = 99;
+
+	/**
+	 * アノテーションによるチェックでエラーが無い項目を追加でチェックします.
+	 *
+	 * @param form   従業員情報用フォーム
+	 * @param errors エラーの格納先
+	 */
+	public void validate(InsertEmployeeForm form, Errors errors) {
+		if (!errors.hasFieldErrors("hireDate") && !isValidDate(form.getHireDate())) {
+			errors.rejectValue("hireDate", "invalid", "入社日が不正です");
+		}
+		if (!errors.hasFieldErrors("telephone")) {
+			if (!Pattern.matches("^0[1-9]0.*", form.getTelephone()) && form.getTelephone().replace(",", "").length() != 10) {
+				errors.rejectValue("telephone", "invalid", "電話番号が不正です");
+			}
+		}
+		if (!errors.hasFieldErrors("salary")) {
+			if (form.getSalary().length() > 6 || Integer.parseInt(form.getSalary()) > MAX_SALARY) {
+				errors.rejectValue("salary", "max", "給料は50万円以下で入力してください");
+			}
+		}
+		if (!errors.hasFieldErrors("dependentsCount")) {
+			if (form.getDependentsCount().length() > 2 || Integer.parseInt(form.getDependentsCount()) > MAX_DEPENDENTS_COUNT) {
+				errors.rejectValue("dependentsCount", "max", "扶養人数は99人以下で入力してください");
+			}
+		}
+	}
+
+	/**
+	 * 入社日がyyyy-MM-dd形式の存在する日付か確認します.
+	 *
+	 * @param hireDate 入社日
+	 * @return 存在する日付の場合はtrue
+	 */
+	private boolean isValidDate(String hireDate) {
+		try {
+			LocalDate.parse(hireDate);
+			return true;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+}
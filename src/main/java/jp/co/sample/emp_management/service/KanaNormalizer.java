@@ -0,0 +1,138 @@
+package jp.co.sample.emp_management.service;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 名前検索用に文字列を正規化するクラス.
+ *
+ * 全角/半角の違い、カタカナ/ひらがなの違い、大文字/小文字の違いを吸収し、
+ * ローマ字入力をひらがなに変換します.
+ *
+ * @author yu.konishi
+ *
+ */
+public final class KanaNormalizer {
+
+	/** ローマ字とひらがなの対応表 */
+	private static final Map<String, String> ROMAJI_MAP = new HashMap<>();
+
+	/** 対応表のローマ字の最大文字数 */
+	private static final int MAX_ROMAJI_LENGTH = 3;
+
+	static {
+		String[][] table = { { "a", "あ" }, { "i", "い" }, { "u", "う" }, { "e", "え" }, { "o", "お" },
+				{ "ka", "か" }, { "ki", "き" }, { "ku", "く" }, { "ke", "け" }, { "ko", "こ" },
+				{ "sa", "さ" }, { "shi", "し" }, { "si", "し" }, { "su", "す" }, { "se", "せ" }, { "so", "そ" },
+				{ "ta", "た" }, { "chi", "ち" }, { "ti", "ち" }, { "tsu", "つ" }, { "tu", "つ" }, { "te", "て" },
+				{ "to", "と" }, { "na", "な" }, { "ni", "に" }, { "nu", "ぬ" }, { "ne", "ね" }, { "no", "の" },
+				{ "ha", "は" }, { "hi", "ひ" }, { "fu", "ふ" }, { "hu", "ふ" }, { "he", "へ" }, { "ho", "ほ" },
+				{ "ma", "ま" }, { "mi", "み" }, { "mu", "む" }, { "me", "め" }, { "mo", "も" },
+				{ "ya", "や" }, { "yu", "ゆ" }, { "yo", "よ" },
+				{ "ra", "ら" }, { "ri", "り" }, { "ru", "る" }, { "re", "れ" }, { "ro", "ろ" },
+				{ "wa", "わ" }, { "wo", "を" }, { "nn", "ん" }, { "n'", "ん" },
+				{ "ga", "が" }, { "gi", "ぎ" }, { "gu", "ぐ" }, { "ge", "げ" }, { "go", "ご" },
+				{ "za", "ざ" }, { "ji", "じ" }, { "zi", "じ" }, { "zu", "ず" }, { "ze", "ぜ" }, { "zo", "ぞ" },
+				{ "da", "だ" }, { "di", "ぢ" }, { "du", "づ" }, { "de", "で" }, { "do", "ど" },
+				{ "ba", "ば" }, { "bi", "び" }, { "bu", "ぶ" }, { "be", "べ" }, { "bo", "ぼ" },
+				{ "pa", "ぱ" }, { "pi", "ぴ" }, { "pu", "ぷ" }, { "pe", "ぺ" }, { "po", "ぽ" },
+				{ "sha", "しゃ" }, { "sya", "しゃ" }, { "shu", "しゅ" }, { "syu", "しゅ" }, { "sho", "しょ" },
+				{ "syo", "しょ" }, { "cha", "ちゃ" }, { "tya", "ちゃ" }, { "chu", "ちゅ" }, { "tyu", "ちゅ" },
+				{ "cho", "ちょ" }, { "tyo", "ちょ" }, { "ja", "じゃ" }, { "jya", "じゃ" }, { "zya", "じゃ" },
+				{ "ju", "じゅ" }, { "jyu", "じゅ" }, { "zyu", "じゅ" }, { "jo", "じょ" }, { "jyo", "じょ" },
+				{ "zyo", "じょ" } };
+		for (String[] entry : table) {
+			ROMAJI_MAP.put(entry[0], entry[1]);
+		}
+		// 「きゃ」「にゅ」などの拗音
+		String[][] youonTable = { { "k", "き" }, { "n", "に" }, { "h", "ひ" }, { "m", "み" }, { "r", "り" },
+				{ "g", "ぎ" }, { "b", "び" }, { "p", "ぴ" } };
+		for (String[] entry : youonTable) {
+			ROMAJI_MAP.put(entry[0] + "ya", entry[1] + "ゃ");
+			ROMAJI_MAP.put(entry[0] + "yu", entry[1] + "ゅ");
+			ROMAJI_MAP.put(entry[0] + "yo", entry[1] + "ょ");
+		}
+	}
+
+	private KanaNormalizer() {
+	}
+
+	/**
+	 * 文字列を正規化します.
+	 *
+	 * NFKC正規化で全角英数字と半角カタカナを揃え、カタカナをひらがなに、英字を小文字に変換し、空白を取り除きます.
+	 *
+	 * @param value 文字列
+	 * @return 正規化した文字列
+	 */
+	public static String normalize(String value) {
+		String normalized = Normalizer.normalize(value, Normalizer.Form.NFKC);
+		StringBuilder builder = new StringBuilder(normalized.length());
+		for (int i = 0; i < normalized.length(); i++) {
+			char c = normalized.charAt(i);
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (c >= 'ァ' && c <= 'ヶ') {
+				c = (char) (c - 'ァ' + 'ぁ');
+			}
+			builder.append(Character.toLowerCase(c));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 正規化済みのローマ字の入力途中の文字列をひらがなに変換します.
+	 *
+	 * 末尾の入力途中の子音(「yamad」の「d」など)は取り除きます.
+	 *
+	 * @param romaji 正規化済みの文字列
+	 * @return ひらがな ローマ字として解釈できない場合はnullを返します
+	 */
+	public static String romajiToHiragana(String romaji) {
+		StringBuilder builder = new StringBuilder();
+		int i = 0;
+		while (i < romaji.length()) {
+			char c = romaji.charAt(i);
+			if (c < 'a' || c > 'z') {
+				if (c == '-') {
+					builder.append('ー');
+					i++;
+					continue;
+				}
+				return null;
+			}
+			// 「tt」「kk」などの促音
+			if (i + 1 < romaji.length() && c == romaji.charAt(i + 1) && c != 'n' && "aiueo".indexOf(c) < 0) {
+				builder.append('っ');
+				i++;
+				continue;
+			}
+			String kana = null;
+			int length = Math.min(MAX_ROMAJI_LENGTH, romaji.length() - i);
+			for (; length > 0; length--) {
+				kana = ROMAJI_MAP.get(romaji.substring(i, i + length));
+				if (kana != null) {
+					break;
+				}
+			}
+			if (kana == null) {
+				// 「n」の後に母音と「y」以外が続く場合は「ん」
+				if (c == 'n' && i + 1 < romaji.length()) {
+					builder.append('ん');
+					i++;
+					continue;
+				}
+				if (romaji.length() - i <= 2) {
+					// 入力途中の子音
+					break;
+				}
+				return null;
+			}
+			builder.append(kana);
+			i += length;
+		}
+		return builder.toString();
+	}
+}
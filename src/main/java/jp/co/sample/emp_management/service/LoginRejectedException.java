@@ -0,0 +1,31 @@
+package jp.co.sample.emp_management.service;
+
+/**
+ * 試行回数の超過やパスワード照合の混雑により、パスワードを照合せずにログインを拒否したことを表す例外.
+ *
+ * @author yu.konishi
+ *
+ */
+public class LoginRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 拒否した理由
+	 */
+	public LoginRejectedException(String message) {
+		super(message);
+	}
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 拒否した理由
+	 * @param cause   原因となった例外
+	 */
+	public LoginRejectedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,156 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ログインの失敗回数をメールアドレスごと、接続元IPアドレスごとに数え、試行を制限するコンポーネント.
+ *
+ * 直近の一定時間(スライディングウィンドウ)に上限回数失敗した場合、そのメールアドレスまたはIPアドレスからのログインを
+ * パスワードを照合せずに拒否します. 失敗した時刻は上限回数分のリングバッファに記録するため、
+ * 1件あたりのメモリ量は上限回数で決まり、一定時間失敗が無い記録は破棄します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class LoginThrottle {
+
+	/** 記録するメールアドレスとIPアドレスのそれぞれの最大件数 */
+	private static final int MAX_TRACKED_KEYS = 100000;
+
+	/** 失敗回数を数える時間(ナノ秒) */
+	private final long windowNanos;
+
+	/** メールアドレスごとの失敗回数の上限 */
+	private final int maxFailuresPerAccount;
+
+	/** IPアドレスごとの失敗回数の上限 */
+	private final int maxFailuresPerAddress;
+
+	/** 現在時刻(ナノ秒)を返す時計 */
+	private final LongSupplier clock;
+
+	/** メールアドレスごとの失敗した時刻 */
+	private final Cache<String, FailureWindow> accountFailures;
+
+	/** IPアドレスごとの失敗した時刻 */
+	private final Cache<String, FailureWindow> addressFailures;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param windowSeconds         失敗回数を数える時間(秒)
+	 * @param maxFailuresPerAccount メールアドレスごとの失敗回数の上限
+	 * @param maxFailuresPerAddress IPアドレスごとの失敗回数の上限
+	 */
+	@Autowired
+	public LoginThrottle(@Value("${login.throttle.window-seconds}") long windowSeconds,
+			@Value("${login.throttle.max-failures-per-account}") int maxFailuresPerAccount,
+			@Value("${login.throttle.max-failures-per-address}") int maxFailuresPerAddress) {
+		this(windowSeconds, maxFailuresPerAccount, maxFailuresPerAddress, System::nanoTime);
+	}
+
+	/**
+	 * 時計を指定する初期化用コンストラクタ.
+	 *
+	 * @param windowSeconds         失敗回数を数える時間(秒)
+	 * @param maxFailuresPerAccount メールアドレスごとの失敗回数の上限
+	 * @param maxFailuresPerAddress IPアドレスごとの失敗回数の上限
+	 * @param clock                 現在時刻(ナノ秒)を返す時計
+	 */
+	LoginThrottle(long windowSeconds, int maxFailuresPerAccount, int maxFailuresPerAddress, LongSupplier clock) {
+		if (windowSeconds < 1 || maxFailuresPerAccount < 1 || maxFailuresPerAddress < 1) {
+			throw new IllegalArgumentException("login.throttleの設定値は1以上にしてください");
+		}
+		this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+		this.maxFailuresPerAccount = maxFailuresPerAccount;
+		this.maxFailuresPerAddress = maxFailuresPerAddress;
+		this.clock = clock;
+		this.accountFailures = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS)
+				.expireAfterAccess(windowSeconds, TimeUnit.SECONDS).ticker(clock::getAsLong).build();
+		this.addressFailures = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS)
+				.expireAfterAccess(windowSeconds, TimeUnit.SECONDS).ticker(clock::getAsLong).build();
+	}
+
+	/**
+	 * ログインを試行できるか確認します.
+	 *
+	 * @param mailAddress   メールアドレス nullの場合はIPアドレスの失敗回数のみ確認します
+	 * @param remoteAddress 接続元IPアドレス
+	 * @return 失敗回数が上限に達していない場合はtrue
+	 */
+	public boolean isAllowed(String mailAddress, String remoteAddress) {
+		long now = clock.getAsLong();
+		// Caffeineのキャッシュはnullのキーを受け付けません
+		FailureWindow accountWindow = mailAddress == null ? null : accountFailures.getIfPresent(mailAddress);
+		if (accountWindow != null && accountWindow.isFull(now, windowNanos)) {
+			return false;
+		}
+		FailureWindow addressWindow = addressFailures.getIfPresent(remoteAddress);
+		return addressWindow == null || !addressWindow.isFull(now, windowNanos);
+	}
+
+	/**
+	 * ログインの失敗を記録します.
+	 *
+	 * @param mailAddress   メールアドレス nullの場合はIPアドレスの失敗のみ記録します
+	 * @param remoteAddress 接続元IPアドレス
+	 */
+	public void recordFailure(String mailAddress, String remoteAddress) {
+		long now = clock.getAsLong();
+		if (mailAddress != null) {
+			accountFailures.get(mailAddress, key -> new FailureWindow(maxFailuresPerAccount)).record(now);
+		}
+		addressFailures.get(remoteAddress, key -> new FailureWindow(maxFailuresPerAddress)).record(now);
+	}
+
+	/**
+	 * ログインの成功を記録し、メールアドレスの失敗回数を破棄します.
+	 *
+	 * IPアドレスの失敗回数は、同じIPアドレスから別のメールアドレスを試す攻撃を制限するため破棄しません.
+	 *
+	 * @param mailAddress メールアドレス
+	 */
+	public void recordSuccess(String mailAddress) {
+		accountFailures.invalidate(mailAddress);
+	}
+
+	/**
+	 * 直近の失敗した時刻を上限回数分記録するリングバッファ.
+	 */
+	private static class FailureWindow {
+		/** 失敗した時刻 */
+		private final long[] failureTimes;
+		/** 次に記録する位置(最も古い記録の位置) */
+		private int next;
+		/** 記録した回数(上限回数まで) */
+		private int count;
+
+		private FailureWindow(int maxFailures) {
+			this.failureTimes = new long[maxFailures];
+		}
+
+		private synchronized void record(long now) {
+			failureTimes[next] = now;
+			next = (next + 1) % failureTimes.length;
+			if (count < failureTimes.length) {
+				count++;
+			}
+		}
+
+		/**
+		 * 直近の一定時間に上限回数失敗しているか確認します. 最も古い記録が一定時間内であれば上限回数に達しています.
+		 */
+		private synchronized boolean isFull(long now, long windowNanos) {
+			return count == failureTimes.length && now - failureTimes[next] < windowNanos;
+		}
+	}
+}
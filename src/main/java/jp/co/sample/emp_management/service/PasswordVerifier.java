@@ -0,0 +1,168 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * パスワードの照合を専用のスレッドプールで行うコンポーネント.
+ *
+ * BCryptの照合はCPUを占有するため、同時に照合するスレッド数と待ち行列の長さを制限し、
+ * 待ち行列が一杯の場合や待ち時間が上限を超えた場合は照合せずにすぐ拒否します.
+ * これによりログインが集中してもリクエストを処理するスレッドとCPUが他の画面のために残ります.
+ * 存在しないメールアドレスの場合もダミーのハッシュ値と照合し、応答時間から登録の有無が分からないようにします.
+ * スレッドプールの実行中の件数と待ち行列の件数はexecutor.*(name=password-verifier)として記録します.
+ *
+ * @author yu.konishi
+ *
+ */
+@Component
+public class PasswordVerifier {
+
+	private final PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/** 照合を待つ最大時間(ミリ秒) */
+	private final long timeoutMillis;
+
+	/** 照合を行うスレッドプール */
+	private final ThreadPoolExecutor executor;
+
+	/** 存在しないメールアドレスの照合に使うハッシュ値 */
+	private final String dummyHash;
+
+	/** 現在のパスワードエンコーダーが使うBCryptのコスト */
+	private final int currentCost;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param passwordEncoder パスワードエンコーダー
+	 * @param threads         照合を行うスレッド数 0以下の場合はCPUのコア数の半分(最低1)
+	 * @param queueCapacity   照合を待つ件数の上限
+	 * @param timeoutMillis   照合を待つ最大時間(ミリ秒)
+	 */
+	public PasswordVerifier(PasswordEncoder passwordEncoder, @Value("${login.verifier.threads}") int threads,
+			@Value("${login.verifier.queue-capacity}") int queueCapacity,
+			@Value("${login.verifier.timeout-millis}") long timeoutMillis) {
+		if (threads < 1) {
+			threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		}
+		this.passwordEncoder = passwordEncoder;
+		this.timeoutMillis = timeoutMillis;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-verifier-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		// 照合にかかる時間を揃えるため、実際のハッシュ値と同じ設定で生成します
+		this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+		this.currentCost = BCryptCostCalibrator.costOf(dummyHash);
+	}
+
+	/**
+	 * パスワードを照合します.
+	 *
+	 * @param rawPassword     入力されたパスワード
+	 * @param encodedPassword 登録されているハッシュ値 存在しないメールアドレスの場合はnull
+	 * @return 一致した場合はtrue ハッシュ値がnullの場合は常にfalse
+	 * @throws LoginRejectedException 照合が混雑していて受け付けられなかった場合
+	 */
+	public boolean matches(String rawPassword, String encodedPassword) {
+		boolean exists = encodedPassword != null;
+		String hash = exists ? encodedPassword : dummyHash;
+		Future<Boolean> future;
+		try {
+			future = executor.submit(() -> passwordEncoder.matches(rawPassword, hash));
+		} catch (RejectedExecutionException e) {
+			throw new LoginRejectedException("パスワード照合の待ち行列が一杯です", e);
+		}
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS) && exists;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new LoginRejectedException("パスワード照合の待ち時間が上限を超えました", e);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new LoginRejectedException("パスワード照合の待機中に割り込まれました", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("パスワードの照合に失敗しました", e.getCause());
+		}
+	}
+
+	/**
+	 * 登録されているハッシュ値のコストが現在のコストより小さい場合、パスワードのハッシュ値を計算し直します.
+	 *
+	 * 起動時に計測したコストはサーバーや起動ごとに異なるため、現在のコストの方が小さい場合は計算し直しません.
+	 * これにより負荷の高いサーバーが弱いコストで上書きすることや、コストの異なるサーバー間で
+	 * ログインのたびに上書きし合うことを防ぎます.
+	 * 照合と同じスレッドプールで計算し、混雑している場合は次回のログインに持ち越します.
+	 *
+	 * @param rawPassword     照合済みのパスワード
+	 * @param encodedPassword 登録されているハッシュ値
+	 * @return 新しいハッシュ値 登録されているコストが現在のコスト以上の場合や混雑している場合はnull
+	 */
+	public String rehashIfNeeded(String rawPassword, String encodedPassword) {
+		int cost = BCryptCostCalibrator.costOf(encodedPassword);
+		if (cost < 0 || cost >= currentCost) {
+			return null;
+		}
+		Future<String> future;
+		try {
+			future = executor.submit(() -> passwordEncoder.encode(rawPassword));
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			return null;
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("パスワードのハッシュ値の計算に失敗しました", e.getCause());
+		}
+	}
+
+	/**
+	 * スレッドプールの状態を記録します.
+	 */
+	@PostConstruct
+	public void bindMetrics() {
+		new ExecutorServiceMetrics(executor, "password-verifier", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	/**
+	 * スレッドプールを停止します.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,21 @@
+package jp.co.sample.emp_management.service;
+
+/**
+ * 非同期の従業員登録の待ち行列が一杯のため、従業員情報を受け付けなかったことを表す例外.
+ *
+ * @author yu.konishi
+ *
+ */
+public class RegistrationRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param message 拒否した理由
+	 */
+	public RegistrationRejectedException(String message) {
+		super(message);
+	}
+}
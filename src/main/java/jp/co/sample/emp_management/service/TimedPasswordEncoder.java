@@ -0,0 +1,52 @@
+package jp.co.sample.emp_management.service;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ハッシュ値の計算と照合にかかった時間をpassword.encoderとして記録するパスワードエンコーダー.
+ *
+ * BCryptのコストを変えたときの照合時間の変化を確認するために使います.
+ *
+ * @author yu.konishi
+ *
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+
+	private final Timer encodeTimer;
+
+	private final Timer matchesTimer;
+
+	/**
+	 * 初期化用コンストラクタ.
+	 *
+	 * @param delegate      計算と照合を行うパスワードエンコーダー
+	 * @param meterRegistry 記録先
+	 */
+	public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.encodeTimer = Timer.builder("password.encoder").description("パスワードのハッシュ値の計算と照合の時間")
+				.tag("operation", "encode").register(meterRegistry);
+		this.matchesTimer = Timer.builder("password.encoder").description("パスワードのハッシュ値の計算と照合の時間")
+				.tag("operation", "matches").register(meterRegistry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return encodeTimer.record(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
@@ -0,0 +1,131 @@
+package jp.co.sample.emp_management.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 日本郵便の郵便番号データ(KEN_ALL.CSV)を、ZipcodeRepositoryが読み込む「郵便番号,住所」形式に変換するクラス.
+ *
+ * 住所は都道府県、市区町村、町域をつなげたものにします.
+ * 町域の「以下に掲載がない場合」「○○の次に番地がくる場合」「○○一円」は住所に含めず、
+ * 「（」以降の補足(丁目や地割の範囲など)は取り除きます. 補足が長く複数行に分かれている場合は続きの行を読み飛ばします.
+ * 取り除いた結果、同じ郵便番号で同じ住所が続く場合は1行にまとめます.
+ *
+ * <pre>
+ * java -cp target/ex-crm-answer-0.0.1-SNAPSHOT.jar -Dloader.main=jp.co.sample.emp_management.service.ZipcodeDataConverter \
+ *     org.springframework.boot.loader.PropertiesLauncher KEN_ALL.CSV zipcode.csv
+ * </pre>
+ *
+ * @author yu.konishi
+ *
+ */
+public class ZipcodeDataConverter {
+
+	/** KEN_ALL.CSVの文字コード */
+	public static final Charset KEN_ALL_CHARSET = Charset.forName("Windows-31J");
+
+	/** 郵便番号(7桁)の列 */
+	private static final int ZIPCODE_COLUMN = 2;
+
+	/** 都道府県名の列 */
+	private static final int PREFECTURE_COLUMN = 6;
+
+	/** 市区町村名の列 */
+	private static final int CITY_COLUMN = 7;
+
+	/** 町域名の列 */
+	private static final int TOWN_COLUMN = 8;
+
+	private ZipcodeDataConverter() {
+	}
+
+	/**
+	 * KEN_ALL.CSVを変換します.
+	 *
+	 * @param args 変換元のKEN_ALL.CSVのパスと、変換後のファイルのパス
+	 * @throws IOException 読み込みまたは書き出しに失敗した場合
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("使い方: ZipcodeDataConverter KEN_ALL.CSVのパス 変換後のファイルのパス");
+			System.exit(2);
+		}
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), KEN_ALL_CHARSET);
+				BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+			int count = convert(reader, writer);
+			System.out.println(count + "件の郵便番号を変換しました");
+		}
+	}
+
+	/**
+	 * KEN_ALL.CSVの内容を「郵便番号,住所」形式で書き出します.
+	 *
+	 * @param reader KEN_ALL.CSVの内容 呼び出し側でバッファリングしてください
+	 * @param writer 書き出し先 呼び出し側でバッファリングしてください
+	 * @return 書き出した行数
+	 * @throws IOException 読み込みまたは書き出しに失敗した場合
+	 */
+	public static int convert(Reader reader, Writer writer) throws IOException {
+		writer.write("# 郵便番号,住所 (UTF-8) 日本郵便の郵便番号データ(KEN_ALL.CSV)から変換しました\n");
+		DelimitedFileReader csvReader = new DelimitedFileReader(reader, ',');
+		int count = 0;
+		String previousLine = null;
+		// 閉じていない「（」がある町域の郵便番号 続きの行を読み飛ばします
+		String continuedZipcode = null;
+		List<String> valueList;
+		while ((valueList = csvReader.readRecord()) != null) {
+			if (valueList.size() <= TOWN_COLUMN) {
+				continue;
+			}
+			String zipcode = valueList.get(ZIPCODE_COLUMN);
+			String town = valueList.get(TOWN_COLUMN);
+			if (continuedZipcode != null) {
+				if (zipcode.equals(continuedZipcode)) {
+					if (town.contains("）")) {
+						continuedZipcode = null;
+					}
+					continue;
+				}
+				continuedZipcode = null;
+			}
+			if (town.contains("（") && !town.contains("）")) {
+				continuedZipcode = zipcode;
+			}
+			String city = valueList.get(CITY_COLUMN);
+			String line = zipcode + "," + valueList.get(PREFECTURE_COLUMN) + city + normalizeTown(town, city);
+			if (!line.equals(previousLine)) {
+				writer.write(line);
+				writer.write('\n');
+				count++;
+				previousLine = line;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 町域名から住所に含めない部分を取り除きます.
+	 *
+	 * @param town 町域名
+	 * @param city 市区町村名
+	 * @return 住所に含める町域名
+	 */
+	static String normalizeTown(String town, String city) {
+		if (town.equals("以下に掲載がない場合") || town.endsWith("の次に番地がくる場合")) {
+			return "";
+		}
+		if (town.endsWith("一円") && city.endsWith(town.substring(0, town.length() - 2))) {
+			return "";
+		}
+		int parenthesis = town.indexOf('（');
+		return parenthesis < 0 ? town : town.substring(0, parenthesis);
+	}
+}
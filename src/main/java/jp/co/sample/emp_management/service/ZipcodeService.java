@@ -0,0 +1,49 @@
+package jp.co.sample.emp_management.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jp.co.sample.emp_management.repository.ZipcodeRepository;
+
+/**
+ * 郵便番号から住所を検索するサービス.
+ *
+ * @author yu.konishi
+ *
+ */
+@Service
+public class ZipcodeService {
+
+	/** 郵便番号の形式(ハイフンは省略可) */
+	private static final Pattern ZIPCODE_PATTERN = Pattern.compile("^[0-9]{3}-?[0-9]{4}$");
+
+	@Autowired
+	private ZipcodeRepository zipcodeRepository;
+
+	/**
+	 * 郵便番号の形式が正しいか確認します.
+	 * 
+	 * @param zipCode 郵便番号
+	 * @return 「000-0000」または「0000000」の形式の場合はtrue
+	 */
+	public boolean isValid(String zipCode) {
+		return zipCode != null && ZIPCODE_PATTERN.matcher(zipCode).matches();
+	}
+
+	/**
+	 * 郵便番号から住所を検索します.
+	 * 
+	 * @param zipCode 郵便番号
+	 * @return 住所 該当しない場合や形式が正しくない場合はサイズ0件の一覧を返します
+	 */
+	public List<String> searchAddress(String zipCode) {
+		if (!isValid(zipCode)) {
+			return new ArrayList<>();
+		}
+		return zipcodeRepository.findAddresses(Integer.parseInt(zipCode.replace("-", "")));
+	}
+}
@@ -9,25 +9,35 @@ $(function() {
 		$(id).val(tel[parseInt(arrayNum) - 1]);
 	}
 
-	$("#zipCode").on("keyup", function() {
+	var zipCodeUrl = $("#zipCode").data("zipcode-url");
+	var zipCodeTimer = null;
+	var zipCodeRequest = null;
+
+	// 入力が止まってから住所を検索します
+	$("#zipCode").on("input keyup", function() {
+		clearTimeout(zipCodeTimer);
+		zipCodeTimer = setTimeout(searchAddress, 300);
+	});
+
+	function searchAddress() {
 		var zipCode = $("#zipCode").val();
 		if(!zipCode.match("^[0-9]{3}-[0-9]{4}$")){
 			$("#address").val("");
 			return;
 		}
-		$.ajax({
-			url : "http://zipcoda.net/api",
-			dataType : "jsonp",
-			data : {
-				zipcode : $("#zipCode").val()
-			},
-			async : true
-		}).done(function(data) {
-			$("#address").val(data.items[0].pref + data.items[0].address);
+		if (zipCodeRequest !== null) {
+			zipCodeRequest.abort();
+		}
+		zipCodeRequest = $.getJSON(zipCodeUrl + zipCode).done(function(data) {
+			$("#address").val(data[0]);
 		}).fail(function(XMLHttpRequest, textStatus, errorThrown) {
+			if (textStatus === "abort") {
+				return;
+			}
 			console.log("XMLHttpRequest : " + XMLHttpRequest.status);
 			console.log("textStatus     : " + textStatus);
-			console.log("errorThrown    : " + errorThrown.message);
+		}).always(function() {
+			zipCodeRequest = null;
 		});
-	});
+	}
 });
\ No newline at end of file
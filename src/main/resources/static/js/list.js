@@ -1,14 +1,13 @@
 $( function() {
-	var availableTags = [];
-	var obj = {};
-	$("tr").each(function(i){
-		$(this).children().each(function(j){
-			obj[j] = $(this).text();
-		});
-		availableTags.push(obj[0].replace(/\n/g,"").replace(/\t/g,""));
-	});
+	var suggestUrl = $( "#searchWord" ).data("suggest-url");
 	
 	$( "#searchWord" ).autocomplete({
-		source: availableTags
+		delay: 100,
+		source: function(request, response) {
+			$.getJSON(suggestUrl, { q: request.term }, response)
+				.fail(function() {
+					response([]);
+				});
+		}
 	});
 } );
@@ -0,0 +1,98 @@
+package jp.co.sample.emp_management.config;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "employee.cache.invalidation.listen=false", "datasource.pool.maximum-pool-size=4",
+		"datasource.pool.minimum-idle=2", "datasource.statement.timeout-millis=1234" })
+public class DataSourceConfigTest {
+
+	@Autowired
+	private DataSourceProperties dataSourceProperties;
+
+	@Autowired
+	private DataSourceTuningProperties tuningProperties;
+
+	@Test
+	public void testConfigure() throws Exception {
+		try (HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+				.type(HikariDataSource.class).build()) {
+			DataSourceConfig.configure(dataSource, tuningProperties);
+			assertThat("最大コネクション数が違います", dataSource.getMaximumPoolSize(), is(4));
+			assertThat("最小コネクション数が違います", dataSource.getMinimumIdle(), is(2));
+			try (Connection connection = dataSource.getConnection();
+					Statement statement = connection.createStatement();
+					ResultSet rs = statement.executeQuery("SELECT current_setting('statement_timeout')")) {
+				rs.next();
+				assertThat("statement_timeoutが設定されていません", rs.getString(1), is("1234ms"));
+			}
+		}
+	}
+
+	@Test
+	public void testDefaultPoolSize() {
+		DataSourceTuningProperties.Pool pool = new DataSourceTuningProperties.Pool();
+		int expected = Math.max(Runtime.getRuntime().availableProcessors() * 2 + 1, 10);
+		assertThat("0の場合はコア数から求めます", pool.resolveMaximumPoolSize(), is(expected));
+		assertThat("0の場合は最大コネクション数と同じです", pool.resolveMinimumIdle(), is(expected));
+	}
+
+	@Test
+	public void testLeakDetectionThresholdValidation() {
+		DataSourceTuningProperties.Pool pool = new DataSourceTuningProperties.Pool();
+		pool.setLeakDetectionThresholdMillis(0);
+		assertThat("0は検出しない設定として許可します", pool.isLeakDetectionThresholdValid(), is(true));
+		pool.setLeakDetectionThresholdMillis(500);
+		assertThat("2秒未満はHikariCPが無視するため不正です", pool.isLeakDetectionThresholdValid(), is(false));
+		pool.setLeakDetectionThresholdMillis(pool.getMaxLifetimeMillis());
+		assertThat("コネクションを作り直すまでの時間以上は不正です", pool.isLeakDetectionThresholdValid(), is(false));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCloseRoutingDataSource() throws Exception {
+		DataSourceTuningProperties replicaProperties = new DataSourceTuningProperties();
+		replicaProperties.getReplica().setUrls(Collections.singletonList(dataSourceProperties.getUrl()));
+		replicaProperties.getReplica().setHealthCheckIntervalMillis(60000);
+		DataSource dataSource = new DataSourceConfig().dataSource(dataSourceProperties, replicaProperties,
+				mock(ObjectProvider.class));
+		ReplicaRoutingDataSource routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+		routingDataSource.checkHealth();
+		assertThat(routingDataSource.isHealthy("replica-1"), is(true));
+
+		// コンテキストの終了時はBeanのcloseが呼ばれます
+		assertThat("コンテキストの終了時に閉じられません", dataSource instanceof AutoCloseable, is(true));
+		((AutoCloseable) dataSource).close();
+		routingDataSource.checkHealth();
+		assertThat("レプリカのコネクションプールが閉じられていません", routingDataSource.isHealthy("replica-1"), is(false));
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("SELECT 1");
+			fail("プライマリのコネクションプールが閉じられていません");
+		} catch (SQLException e) {
+			// 期待どおり
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package jp.co.sample.emp_management.config;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingDataSourceTest {
+
+	/** レプリカ1の遅延(ミリ秒) 負の場合は接続に失敗します */
+	private AtomicLong replica1Lag;
+
+	/** レプリカ2の遅延(ミリ秒) 負の場合は接続に失敗します */
+	private AtomicLong replica2Lag;
+
+	private ReplicaRoutingDataSource routingDataSource;
+
+	/**
+	 * 遅延を返すレプリカのモックを生成します.
+	 *
+	 * @param lag 遅延(ミリ秒) 負の場合は接続に失敗します
+	 * @return レプリカのモック
+	 */
+	private DataSource mockReplica(AtomicLong lag) throws SQLException {
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenAnswer(invocation -> {
+			if (lag.get() < 0) {
+				throw new SQLException("接続できません");
+			}
+			ResultSet rs = mock(ResultSet.class);
+			when(rs.next()).thenReturn(true);
+			when(rs.getLong(1)).thenReturn(lag.get());
+			Statement statement = mock(Statement.class);
+			when(statement.executeQuery(anyString())).thenReturn(rs);
+			Connection connection = mock(Connection.class);
+			when(connection.createStatement()).thenReturn(statement);
+			return connection;
+		});
+		return dataSource;
+	}
+
+	@Before
+	public void setUp() throws SQLException {
+		replica1Lag = new AtomicLong();
+		replica2Lag = new AtomicLong();
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", mockReplica(replica1Lag));
+		replicas.put("replica-2", mockReplica(replica2Lag));
+		routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class), replicas, 1000, 500);
+		routingDataSource.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	public void testReadWriteUsesPrimary() {
+		routingDataSource.checkHealth();
+		assertThat("readOnlyでないトランザクションがプライマリに振り分けられていません",
+				routingDataSource.determineCurrentLookupKey(), is(ReplicaRoutingDataSource.PRIMARY));
+	}
+
+	@Test
+	public void testRoundRobin() {
+		routingDataSource.checkHealth();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat("ラウンドロビンで振り分けられていません", routingDataSource.determineCurrentLookupKey(), is("replica-1"));
+		assertThat("ラウンドロビンで振り分けられていません", routingDataSource.determineCurrentLookupKey(), is("replica-2"));
+		assertThat("ラウンドロビンで振り分けられていません", routingDataSource.determineCurrentLookupKey(), is("replica-1"));
+	}
+
+	@Test
+	public void testUnhealthyReplicaIsSkipped() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat("ヘルスチェック前のレプリカに振り分けられています", routingDataSource.determineCurrentLookupKey(),
+				is(ReplicaRoutingDataSource.PRIMARY));
+
+		replica1Lag.set(-1);
+		replica2Lag.set(500);
+		routingDataSource.checkHealth();
+		assertThat("接続できないレプリカが使えると判定されています", routingDataSource.isHealthy("replica-1"), is(false));
+		for (int i = 0; i < 3; i++) {
+			assertThat("接続できないレプリカに振り分けられています", routingDataSource.determineCurrentLookupKey(), is("replica-2"));
+		}
+
+		replica1Lag.set(0);
+		replica2Lag.set(5000);
+		routingDataSource.checkHealth();
+		assertThat("遅延が上限を超えたレプリカが使えると判定されています", routingDataSource.isHealthy("replica-2"), is(false));
+		for (int i = 0; i < 3; i++) {
+			assertThat("回復したレプリカに振り分けられていません", routingDataSource.determineCurrentLookupKey(), is("replica-1"));
+		}
+
+		replica1Lag.set(-1);
+		routingDataSource.checkHealth();
+		assertThat("使えるレプリカが無い場合にプライマリに振り分けられていません", routingDataSource.determineCurrentLookupKey(),
+				is(ReplicaRoutingDataSource.PRIMARY));
+	}
+
+	@Test
+	public void testPrimaryAfterChange() throws InterruptedException {
+		routingDataSource.checkHealth();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat("変更前にレプリカに振り分けられていません", routingDataSource.determineCurrentLookupKey(), is("replica-1"));
+
+		// 遅延の上限以内でも変更が反映されていないレプリカから読み込み、破棄したキャッシュに古い内容を入れないようにします
+		routingDataSource.usePrimaryAfterChange();
+		for (int i = 0; i < 3; i++) {
+			assertThat("変更直後の参照がレプリカに振り分けられています", routingDataSource.determineCurrentLookupKey(),
+					is(ReplicaRoutingDataSource.PRIMARY));
+		}
+
+		Thread.sleep(600);
+		assertThat("一定時間が経過した後にレプリカに振り分けられていません", routingDataSource.determineCurrentLookupKey(),
+				is("replica-2"));
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		DataSource primary = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+		DataSource replica = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", replica);
+		ReplicaRoutingDataSource closeableDataSource = new ReplicaRoutingDataSource(primary, replicas, 1000, 500);
+		closeableDataSource.afterPropertiesSet();
+		closeableDataSource.startHealthCheck(60000);
+		assertThat("ヘルスチェックのスレッドが開始されていません", isHealthCheckThreadAlive(), is(true));
+
+		closeableDataSource.close();
+		verify((AutoCloseable) primary).close();
+		verify((AutoCloseable) replica).close();
+		for (int i = 0; i < 50 && isHealthCheckThreadAlive(); i++) {
+			Thread.sleep(100);
+		}
+		assertThat("ヘルスチェックのスレッドが停止していません", isHealthCheckThreadAlive(), is(false));
+	}
+
+	private static boolean isHealthCheckThreadAlive() {
+		return Thread.getAllStackTraces().keySet().stream()
+				.anyMatch(thread -> thread.getName().equals("replica-health-check") && thread.isAlive());
+	}
+}
@@ -0,0 +1,46 @@
+package jp.co.sample.emp_management.config;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class VirtualThreadConfigTest {
+
+	private boolean isVirtualThreadAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testNewVirtualThreadPerTaskExecutor() throws Exception {
+		if (!isVirtualThreadAvailable()) {
+			try {
+				VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+				fail("Java 21より前のJavaで仮想スレッドのExecutorServiceが生成されています");
+			} catch (IllegalStateException e) {
+				// 期待どおり
+			}
+			return;
+		}
+		ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+		try {
+			boolean virtual = executor.submit(
+					() -> (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get(10,
+							TimeUnit.SECONDS);
+			assertThat("仮想スレッドで実行されていません", virtual, is(true));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
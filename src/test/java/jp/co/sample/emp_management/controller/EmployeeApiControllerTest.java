@@ -0,0 +1,70 @@
+package jp.co.sample.emp_management.controller;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * 従業員情報のJSON APIが項目の指定と条件付きGETに応じることを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+@AutoConfigureMockMvc
+public class EmployeeApiControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void testDetailWithoutImage() throws Exception {
+		mockMvc.perform(get("/api/v1/employees/2")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(2)).andExpect(jsonPath("$.image").doesNotHaveJsonPath())
+				.andExpect(header().string(HttpHeaders.ETAG, notNullValue()));
+	}
+
+	@Test
+	public void testDetailNotModified() throws Exception {
+		String eTag = mockMvc.perform(get("/api/v1/employees/2")).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/api/v1/employees/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+		// 返す項目が変われば別の内容として返します
+		mockMvc.perform(get("/api/v1/employees/2").param("fields", "name")
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+	}
+
+	@Test
+	public void testFields() throws Exception {
+		mockMvc.perform(get("/api/v1/employees/2").param("fields", "name,image")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.name").exists()).andExpect(jsonPath("$.image").hasJsonPath())
+				.andExpect(jsonPath("$.id").doesNotHaveJsonPath());
+		mockMvc.perform(get("/api/v1/employees").param("fields", "id,name")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.employees[0].id").exists())
+				.andExpect(jsonPath("$.employees[0].hireDate").doesNotHaveJsonPath());
+	}
+
+	@Test
+	public void testBadRequest() throws Exception {
+		mockMvc.perform(get("/api/v1/employees/2").param("fields", "password"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/employees").param("fields", "salary")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/employees/search")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testNotFound() throws Exception {
+		mockMvc.perform(get("/api/v1/employees/999999")).andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,29 @@
+package jp.co.sample.emp_management.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * 従業員情報の出力が不正なファイル形式を拒否することを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+@AutoConfigureMockMvc
+public class EmployeeControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void testExportUnknownFormat() throws Exception {
+		mockMvc.perform(get("/employee/export").param("format", "pdf")).andExpect(status().isBadRequest());
+	}
+}
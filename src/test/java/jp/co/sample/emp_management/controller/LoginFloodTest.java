@@ -0,0 +1,98 @@
+package jp.co.sample.emp_management.controller;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * ログインが集中している間も従業員画面が応答し続けることを確認する負荷テスト.
+ *
+ * 試行回数の制限で弾かれないよう上限を大きくし、パスワード照合の待ち行列を溢れさせます.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"login.throttle.max-failures-per-account=1000000", "login.throttle.max-failures-per-address=1000000",
+		"login.verifier.queue-capacity=8", "employee.cache.invalidation.listen=false" })
+public class LoginFloodTest {
+
+	/** ログインを送り続けるスレッド数 */
+	private static final int FLOOD_THREADS = 16;
+
+	/** 従業員画面の応答時間を計測する回数 */
+	private static final int SAMPLE_COUNT = 50;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	public void testEmployeePagesStayResponsiveDuringLoginFlood() throws Exception {
+		restTemplate.getForEntity("/employee/showList", String.class);
+
+		AtomicBoolean flooding = new AtomicBoolean(true);
+		AtomicInteger rejectedCount = new AtomicInteger();
+		AtomicInteger failedCount = new AtomicInteger();
+		ExecutorService floodExecutor = Executors.newFixedThreadPool(FLOOD_THREADS);
+		for (int i = 0; i < FLOOD_THREADS; i++) {
+			int threadNumber = i;
+			floodExecutor.execute(() -> {
+				for (int j = 0; flooding.get(); j++) {
+					MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+					form.add("mailAddress", "attacker" + threadNumber + "-" + j + "@sample.com");
+					form.add("password", "wrong-password");
+					ResponseEntity<String> response = restTemplate.postForEntity("/login", form, String.class);
+					if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+						rejectedCount.incrementAndGet();
+					} else if (response.getStatusCode() != HttpStatus.OK) {
+						failedCount.incrementAndGet();
+					}
+				}
+			});
+		}
+
+		List<Long> latencyList = new ArrayList<>();
+		try {
+			Thread.sleep(500);
+			for (int i = 0; i < SAMPLE_COUNT; i++) {
+				long startTime = System.nanoTime();
+				ResponseEntity<String> response = restTemplate.getForEntity("/employee/showList", String.class);
+				latencyList.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+				assertThat("ログインの集中中に従業員一覧が表示できません", response.getStatusCode(), is(HttpStatus.OK));
+			}
+		} finally {
+			flooding.set(false);
+			floodExecutor.shutdown();
+			floodExecutor.awaitTermination(30, TimeUnit.SECONDS);
+		}
+
+		Collections.sort(latencyList);
+		long p95 = latencyList.get(latencyList.size() * 95 / 100 - 1);
+		System.out.println("ログイン集中中の従業員一覧の応答時間: p50=" + latencyList.get(latencyList.size() / 2) + "ms, p95=" + p95
+				+ "ms, 拒否されたログイン=" + rejectedCount.get());
+		assertThat("従業員一覧の応答時間(p95)が長すぎます", p95, lessThan(1000L));
+		assertThat("混雑時にログインが拒否されていません", rejectedCount.get(), greaterThan(0));
+		assertThat("ログインが拒否以外のエラーになっています", failedCount.get(), is(0));
+	}
+}
@@ -0,0 +1,65 @@
+package jp.co.sample.emp_management.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jp.co.sample.emp_management.service.EmployeeService;
+
+/**
+ * リクエストを処理するとレスポンスのバイト数とリポジトリのメソッドの実行時間が、
+ * URLパターンとメソッド名のタグを付けて記録されることを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+@AutoConfigureMockMvc
+public class MetricsTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Test
+	public void testResponseSizeAndRepositoryQuery() throws Exception {
+		// 他のテストで従業員詳細がキャッシュされているとリポジトリが呼ばれないため破棄しておきます
+		cacheManager.getCache(EmployeeService.DETAIL_CACHE).evict(2);
+		// 同じコンテキストを使う他のテストの記録と区別するため、リクエスト前後の差を確認します
+		DistributionSummary responseSize = DistributionSummary.builder("http.server.response.size")
+				.baseUnit("bytes").tags("uri", "/api/v1/employees/{id:[0-9]+}").register(meterRegistry);
+		long responseCount = responseSize.count();
+		double responseBytes = responseSize.totalAmount();
+		long loadCount = countLoad();
+
+		byte[] content = mockMvc.perform(get("/api/v1/employees/2")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertThat("URLパターンのタグを付けて記録されていません", responseSize.count(), is(responseCount + 1));
+		assertThat("書き出したバイト数が記録されていません", responseSize.totalAmount() - responseBytes,
+				is((double) content.length));
+		assertThat("リポジトリのメソッドの実行時間が記録されていません", countLoad(), is(loadCount + 1));
+	}
+
+	private long countLoad() {
+		Timer timer = meterRegistry.find("repository.query").tags("repository", "EmployeeRepository", "query", "load")
+				.timer();
+		return timer == null ? 0 : timer.count();
+	}
+}
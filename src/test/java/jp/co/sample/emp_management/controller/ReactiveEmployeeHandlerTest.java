@@ -0,0 +1,84 @@
+package jp.co.sample.emp_management.controller;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.repository.ReactiveEmployeeRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveEmployeeHandlerTest {
+
+	private final ReactiveEmployeeRepository reactiveEmployeeRepository = mock(ReactiveEmployeeRepository.class);
+
+	private WebTestClient webTestClient;
+
+	@Before
+	public void setUp() {
+		ReactiveEmployeeHandler handler = new ReactiveEmployeeHandler(reactiveEmployeeRepository, 2, 100);
+		webTestClient = WebTestClient.bindToRouterFunction(handler.router())
+				.handlerStrategies(ReactiveEmployeeHandler.handlerStrategies(new ObjectMapper())).build();
+	}
+
+	private EmployeeSummary createSummary(int id) {
+		return new EmployeeSummary(id, "従業員" + id, Date.valueOf("2020-04-01"), 0);
+	}
+
+	@Test
+	public void testListAsNdjson() {
+		when(reactiveEmployeeRepository.findAfter(isNull(), isNull()))
+				.thenReturn(Flux.just(createSummary(1), createSummary(2), createSummary(3)));
+		String body = webTestClient.get().uri("/employees").accept(ReactiveEmployeeHandler.APPLICATION_NDJSON)
+				.exchange().expectStatus().isOk().expectBody(String.class).returnResult().getResponseBody();
+		assertThat("1行に1件ずつ返されていません", body.trim().split("\n").length, is(3));
+	}
+
+	@Test
+	public void testListAsJsonPage() {
+		when(reactiveEmployeeRepository.findAfter(isNull(), eq(3)))
+				.thenReturn(Flux.just(createSummary(1), createSummary(2), createSummary(3)));
+		webTestClient.get().uri("/employees").accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk()
+				.expectBody().jsonPath("$.employeeList.length()").isEqualTo(2).jsonPath("$.nextCursor").exists();
+	}
+
+	@Test
+	public void testSearchWithoutWord() {
+		webTestClient.get().uri("/employees/search").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void testDetail() {
+		Employee employee = new Employee();
+		employee.setId(1);
+		employee.setName("詳細太郎");
+		when(reactiveEmployeeRepository.load(1)).thenReturn(Mono.just(employee));
+		when(reactiveEmployeeRepository.load(2)).thenReturn(Mono.empty());
+		webTestClient.get().uri("/employees/1").exchange().expectStatus().isOk().expectBody().jsonPath("$.name")
+				.isEqualTo("詳細太郎");
+		webTestClient.get().uri("/employees/2").exchange().expectStatus().isNotFound();
+		webTestClient.get().uri("/employees/x").exchange().expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void testSizeOverLimit() {
+		when(reactiveEmployeeRepository.findAfter(any(), any())).thenReturn(Flux.empty());
+		webTestClient.get().uri("/employees?size=101").exchange().expectStatus().isBadRequest();
+	}
+}
@@ -0,0 +1,129 @@
+package jp.co.sample.emp_management.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * レスポンスボディのバイト数を内容を変えずに数えることを確認します.
+ */
+public class ResponseSizeFilterTest {
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private ResponseSizeFilter responseSizeFilter;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		responseSizeFilter = new ResponseSizeFilter();
+		ReflectionTestUtils.setField(responseSizeFilter, "meterRegistry", meterRegistry);
+		request = new MockHttpServletRequest("GET", "/employee/showDetail");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/employee/showDetail");
+		response = new MockHttpServletResponse();
+		response.setCharacterEncoding("UTF-8");
+	}
+
+	@Test
+	public void testWriter() throws Exception {
+		String body = "<p>従業員詳細</p>";
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+			// 閉じずに終わるビューもあるため、書き込んだだけでフラッシュしません
+			res.getWriter().write(body);
+		});
+
+		byte[] expected = body.getBytes(StandardCharsets.UTF_8);
+		assertThat("getWriterで書き込んだ内容が書き出されていません", response.getContentAsString(), is(body));
+		DistributionSummary summary = findSummary("/employee/showDetail");
+		assertThat(summary.count(), is(1L));
+		assertThat("文字数ではなくバイト数を記録します", summary.totalAmount(), is((double) expected.length));
+	}
+
+	@Test
+	public void testFlushBufferWritesPendingCharacters() throws Exception {
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+			PrintWriter writer = res.getWriter();
+			writer.write("前半");
+			res.flushBuffer();
+			// コミットした時点でそれまでに書き込んだ文字がレスポンスに出ている必要があります
+			assertThat("flushBufferより前に書き込んだ文字が書き出されていません", response.isCommitted(), is(true));
+			assertThat(response.getContentAsString(), is("前半"));
+			writer.write("後半");
+		});
+
+		assertThat(response.getContentAsString(), is("前半後半"));
+		assertThat(findSummary("/employee/showDetail").totalAmount(),
+				is((double) "前半後半".getBytes(StandardCharsets.UTF_8).length));
+	}
+
+	@Test
+	public void testOutputStream() throws Exception {
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/employee/export");
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+			ServletOutputStream outputStream = res.getOutputStream();
+			outputStream.write('I');
+			outputStream.write(new byte[] { 'D', ',', 'n', 'a', 'm', 'e' }, 1, 4);
+		});
+
+		assertThat(response.getContentAsString(), is("I,nam"));
+		assertThat(findSummary("/employee/export").totalAmount(), is(5.0));
+	}
+
+	@Test
+	public void testUnknownPattern() throws Exception {
+		request.removeAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+		});
+
+		DistributionSummary summary = findSummary("UNKNOWN");
+		assertThat("書き込まない場合も0バイトとして記録します", summary.count(), is(1L));
+		assertThat(summary.totalAmount(), is(0.0));
+	}
+
+	@Test
+	public void testSendfile() throws Exception {
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/employee/image/{key:.+}");
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+			// EmployeeController.showImageと同じく、内容を書き込まずにTomcatに送信させます
+			((HttpServletResponse) res).setContentLengthLong(123456L);
+			req.setAttribute(ResponseSizeFilter.SENDFILE_FILENAME_ATTRIBUTE, "/tmp/image.jpg");
+		});
+
+		assertThat("sendfileで送信するファイルの大きさが記録されていません", findSummary("/employee/image/{key:.+}").totalAmount(),
+				is(123456.0));
+	}
+
+	@Test
+	public void testContentLengthWithoutSendfile() throws Exception {
+		responseSizeFilter.doFilter(request, response, (req, res) -> {
+			// sendfileでない場合は実際に書き込んだバイト数を記録します
+			res.setContentLength(100);
+			res.getOutputStream().write(new byte[10]);
+		});
+
+		assertThat(findSummary("/employee/showDetail").totalAmount(), is(10.0));
+	}
+
+	private DistributionSummary findSummary(String uri) {
+		return meterRegistry.get("http.server.response.size").tag("uri", uri).summary();
+	}
+}
@@ -0,0 +1,44 @@
+package jp.co.sample.emp_management.controller;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * SQLの件数の上限を超えたリクエストをテストで検出できることを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "employee.cache.invalidation.listen=false", "sql.budget.fail-on-exceed=true",
+		"sql.budget.defaults.max-millis=", "sql.budget.endpoints.[/employee/showDetail].max-queries=0" })
+@AutoConfigureMockMvc
+public class SqlBudgetFilterTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void testWithinBudget() throws Exception {
+		mockMvc.perform(get("/employee/showList10").param("pageNum", "2")).andExpect(status().isOk());
+	}
+
+	@Test
+	public void testExceeded() throws Exception {
+		try {
+			mockMvc.perform(get("/employee/showDetail").param("id", "2"));
+			fail("SQLの件数が上限を超えた場合は例外が発生します");
+		} catch (SqlBudgetExceededException e) {
+			assertThat("超えた上限と実行したSQLがメッセージに含まれます", e.getMessage(), containsString("FROM employees WHERE id=?"));
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package jp.co.sample.emp_management.domain;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class PageCursorTest {
+
+	private static String base64(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Date hireDate = new Date(1230940800000L);
+		PageCursor cursor = PageCursor.decode(new PageCursor(hireDate, 22).encode());
+		assertThat("入社日が復元されていません", cursor.getHireDate(), is(hireDate));
+		assertThat("IDが復元されていません", cursor.getId(), is(22));
+
+		// 1970年より前の入社日(負の値)も復元します
+		PageCursor oldCursor = PageCursor.decode(new PageCursor(new Date(-86400000L), Integer.MAX_VALUE).encode());
+		assertThat(oldCursor.getHireDate(), is(new Date(-86400000L)));
+		assertThat(oldCursor.getId(), is(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testEncodeIsUrlSafe() {
+		String cursor = new PageCursor(new Date(1230940800000L), 22).encode();
+		assertThat("URLにそのまま埋め込めない文字が含まれています", cursor.matches("[A-Za-z0-9_-]+"), is(true));
+	}
+
+	@Test
+	public void testDecodeInvalid() {
+		assertThat("空文字列", PageCursor.decode(""), is(nullValue()));
+		assertThat("Base64でない文字列", PageCursor.decode("!!!"), is(nullValue()));
+		assertThat("区切り文字が無い", PageCursor.decode(base64("1230940800000")), is(nullValue()));
+		assertThat("入社日が数値でない", PageCursor.decode(base64("2009-01-03:22")), is(nullValue()));
+		assertThat("IDが数値でない", PageCursor.decode(base64("1230940800000:abc")), is(nullValue()));
+		assertThat("IDが範囲外", PageCursor.decode(base64("1230940800000:99999999999")), is(nullValue()));
+		assertThat("IDが無い", PageCursor.decode(base64("1230940800000:")), is(nullValue()));
+	}
+
+	@Test
+	public void testDecodeTampered() {
+		String cursor = new PageCursor(new Date(1230940800000L), 22).encode();
+		// 末尾を書き換えたカーソルは不正な文字列として扱います
+		assertThat(PageCursor.decode(cursor.substring(0, cursor.length() - 1) + "!"), is(nullValue()));
+		assertThat(PageCursor.decode(cursor + "%"), is(nullValue()));
+	}
+}
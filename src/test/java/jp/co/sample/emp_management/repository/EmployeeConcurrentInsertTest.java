@@ -0,0 +1,112 @@
+package jp.co.sample.emp_management.repository;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.service.EmployeeIdAllocator;
+
+/**
+ * 複数のスレッドから同時に従業員を登録しても、シーケンスから採番したIDが重複しないことを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+public class EmployeeConcurrentInsertTest {
+
+	/** 登録したテスト用の従業員のメールアドレス */
+	private static final String MAIL_ADDRESS_PATTERN = "concurrent-insert-%@sample.com";
+
+	/** 同時に登録するスレッド数 */
+	private static final int THREAD_COUNT = 16;
+
+	/** 1スレッドあたりの登録件数 */
+	private static final int INSERT_COUNT_PER_THREAD = 25;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EmployeeIdAllocator employeeIdAllocator;
+
+	@Autowired
+	private NamedParameterJdbcTemplate template;
+
+	@After
+	public void tearDown() {
+		MapSqlParameterSource param = new MapSqlParameterSource().addValue("mailAddress", MAIL_ADDRESS_PATTERN);
+		template.update("delete from employees where mail_address like :mailAddress", param);
+	}
+
+	@Test
+	public void testConcurrentInsert() throws Exception {
+		CountDownLatch startLatch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<?>> futureList = new ArrayList<>();
+			for (int i = 0; i < THREAD_COUNT; i++) {
+				int threadIndex = i;
+				futureList.add(executor.submit(() -> {
+					startLatch.await();
+					for (int j = 0; j < INSERT_COUNT_PER_THREAD; j++) {
+						// IDが重複した場合は主キー制約違反の例外が発生します
+						employeeRepository.insert(createEmployee(threadIndex * INSERT_COUNT_PER_THREAD + j));
+					}
+					return null;
+				}));
+			}
+			startLatch.countDown();
+			for (Future<?> future : futureList) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		MapSqlParameterSource param = new MapSqlParameterSource().addValue("mailAddress", MAIL_ADDRESS_PATTERN);
+		Integer count = template.queryForObject(
+				"select count(distinct id) from employees where mail_address like :mailAddress", param, Integer.class);
+		assertThat("登録した従業員の件数が一致しません", count, is(THREAD_COUNT * INSERT_COUNT_PER_THREAD));
+	}
+
+	/**
+	 * テスト用の従業員を生成します.
+	 *
+	 * @param index 連番
+	 * @return 従業員情報
+	 */
+	private Employee createEmployee(int index) {
+		Employee employee = new Employee();
+		employee.setId(employeeIdAllocator.allocate());
+		employee.setName("同時登録" + index);
+		employee.setImage("e1.png");
+		employee.setGender("男性");
+		employee.setHireDate(new Date());
+		employee.setMailAddress("concurrent-insert-" + index + "@sample.com");
+		employee.setZipCode("111-1111");
+		employee.setAddress("東京都新宿区1-1-1");
+		employee.setTelephone("090-1234-5678");
+		employee.setSalary(300000);
+		employee.setCharacteristics("同時に登録する従業員です");
+		employee.setDependentsCount(0);
+		return employee;
+	}
+}
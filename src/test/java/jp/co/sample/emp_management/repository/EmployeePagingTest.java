@@ -0,0 +1,124 @@
+package jp.co.sample.emp_management.repository;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
+import jp.co.sample.emp_management.service.EmployeeIdAllocator;
+
+/**
+ * 入社日が重複する従業員を、キーセットページングで重複も欠落もなく取得できることを確認します.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+public class EmployeePagingTest {
+
+	/** 登録したテスト用の従業員のメールアドレス */
+	private static final String MAIL_ADDRESS_PATTERN = "paging-%@sample.com";
+
+	/** 既存の従業員より後ろに並ぶ入社日(2100-01-01) */
+	private static final Date HIRE_DATE = new Date(4102444800000L);
+
+	/** 同じ入社日で登録する従業員の件数 */
+	private static final int EMPLOYEE_COUNT = 11;
+
+	/** 1回に取得する件数 */
+	private static final int LIMIT = 4;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EmployeeIdAllocator employeeIdAllocator;
+
+	@Autowired
+	private NamedParameterJdbcTemplate template;
+
+	/** 登録した従業員のID(昇順) */
+	private List<Integer> idList;
+
+	@Before
+	public void setUp() {
+		idList = new ArrayList<>();
+		for (int i = 0; i < EMPLOYEE_COUNT; i++) {
+			Employee employee = new Employee();
+			employee.setId(employeeIdAllocator.allocate());
+			employee.setName("ページング" + i);
+			employee.setImage("e1.png");
+			employee.setGender("女性");
+			employee.setHireDate(HIRE_DATE);
+			employee.setMailAddress("paging-" + i + "@sample.com");
+			employee.setZipCode("111-1111");
+			employee.setAddress("東京都新宿区1-1-1");
+			employee.setTelephone("090-1234-5678");
+			employee.setSalary(300000);
+			employee.setCharacteristics("入社日が重複する従業員です");
+			employee.setDependentsCount(0);
+			employeeRepository.insert(employee);
+			idList.add(employee.getId());
+		}
+		Collections.sort(idList);
+	}
+
+	@After
+	public void tearDown() {
+		MapSqlParameterSource param = new MapSqlParameterSource().addValue("mailAddress", MAIL_ADDRESS_PATTERN);
+		template.update("delete from employees where mail_address like :mailAddress", param);
+	}
+
+	@Test
+	public void testFindAfterWithDuplicateHireDates() {
+		// 登録した従業員の直前(入社日が同じでIDが小さい)から次のページへ進みます
+		PageCursor cursor = new PageCursor(HIRE_DATE, 0);
+		List<Integer> resultList = new ArrayList<>();
+		List<EmployeeSummary> page;
+		while (!(page = employeeRepository.findAfter(cursor, LIMIT)).isEmpty()) {
+			for (EmployeeSummary employee : page) {
+				if (employee.getHireDate().equals(HIRE_DATE)) {
+					resultList.add(employee.getId());
+				}
+			}
+			cursor = PageCursor.of(page.get(page.size() - 1));
+		}
+		assertThat("入社日が重複する従業員が重複または欠落しています", resultList, is(idList));
+	}
+
+	@Test
+	public void testFindBeforeWithDuplicateHireDates() {
+		// 登録した従業員の直後(入社日が同じでIDが大きい)から前のページへ戻ります
+		PageCursor cursor = new PageCursor(HIRE_DATE, Integer.MAX_VALUE);
+		List<Integer> resultList = new ArrayList<>();
+		List<EmployeeSummary> page;
+		while (resultList.size() < EMPLOYEE_COUNT
+				&& !(page = employeeRepository.findBefore(cursor, LIMIT)).isEmpty()) {
+			List<Integer> pageIdList = new ArrayList<>();
+			for (EmployeeSummary employee : page) {
+				// 最後のページには登録した従業員より前の既存の従業員も含まれます
+				if (employee.getHireDate().equals(HIRE_DATE)) {
+					pageIdList.add(employee.getId());
+				}
+			}
+			resultList.addAll(0, pageIdList);
+			cursor = PageCursor.of(page.get(0));
+		}
+		assertThat("入社日が重複する従業員が重複または欠落しています", resultList, is(idList));
+	}
+}
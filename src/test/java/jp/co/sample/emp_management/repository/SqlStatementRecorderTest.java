@@ -0,0 +1,56 @@
+package jp.co.sample.emp_management.repository;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "employee.cache.invalidation.listen=false")
+public class SqlStatementRecorderTest {
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Test
+	public void testRecordSelect() {
+		SqlStatementRecorder.start();
+		try {
+			employeeRepository.load(1);
+		} finally {
+			List<SqlStatementRecord> recordList = SqlStatementRecorder.stop();
+			assertThat("SQLの件数が違います", recordList.size(), is(1));
+			SqlStatementRecord record = recordList.get(0);
+			assertThat("SQLが違います", record.getSql(), startsWith("SELECT id,name,image"));
+			assertThat("バインドしたパラメーターの数が違います", record.getBindCount(), is(1));
+			assertThat("取得した行数が違います", record.getRows(), is(1L));
+		}
+	}
+
+	@Test
+	public void testRecordRowCount() {
+		SqlStatementRecorder.start();
+		try {
+			employeeRepository.findByIds(Arrays.asList(1, 2, 3, -1));
+		} finally {
+			List<SqlStatementRecord> recordList = SqlStatementRecorder.stop();
+			assertThat("SQLの件数が違います", recordList.size(), is(1));
+			assertThat("取得した行数が違います", recordList.get(0).getRows(), is(3L));
+		}
+	}
+
+	@Test
+	public void testNotRecordedWithoutStart() {
+		employeeRepository.load(1);
+		assertThat("記録を開始していない場合は記録されません", SqlStatementRecorder.stop().size(), is(0));
+	}
+}
@@ -0,0 +1,65 @@
+package jp.co.sample.emp_management.repository;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ZipcodeRepositoryTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private ZipcodeRepository load(String dataFile) throws Exception {
+		ZipcodeRepository zipcodeRepository = new ZipcodeRepository();
+		ReflectionTestUtils.setField(zipcodeRepository, "dataFile", dataFile);
+		zipcodeRepository.load();
+		return zipcodeRepository;
+	}
+
+	@Test
+	public void testFindAddressesFromDataFile() throws Exception {
+		File file = temporaryFolder.newFile("zipcode.csv");
+		Files.write(file.toPath(), ("# コメント\n" + "9000015,沖縄県那覇市久茂地\n" + "\n" + "160-0022,東京都新宿区新宿\r\n"
+				+ "1000001,東京都千代田区千代田\n" + "4980000,愛知県弥富市\n" + "4980000,三重県桑名郡木曽岬町\n" + "12345,桁数が不正\n"
+				+ "0600001,北海道札幌市中央区北一条西").getBytes(StandardCharsets.UTF_8));
+		ZipcodeRepository zipcodeRepository = load(file.getAbsolutePath());
+
+		assertThat("住所が取得できません", zipcodeRepository.findAddresses(1000001),
+				is(Collections.singletonList("東京都千代田区千代田")));
+		assertThat("ハイフン付きやCRLFの行が読み込めません", zipcodeRepository.findAddresses(1600022),
+				is(Collections.singletonList("東京都新宿区新宿")));
+		assertThat("先頭が0の郵便番号や改行の無い最終行が読み込めません", zipcodeRepository.findAddresses(600001),
+				is(Collections.singletonList("北海道札幌市中央区北一条西")));
+		assertThat("同じ郵便番号の住所がファイルの順に取得できません", zipcodeRepository.findAddresses(4980000),
+				is(Arrays.asList("愛知県弥富市", "三重県桑名郡木曽岬町")));
+		assertThat("桁数が不正な行が読み込まれています", zipcodeRepository.findAddresses(12345).size(), is(0));
+		assertThat("存在しない郵便番号で住所が取得されています", zipcodeRepository.findAddresses(9999999).size(), is(0));
+	}
+
+	@Test
+	public void testFindAddressesFromBundledData() throws Exception {
+		ZipcodeRepository zipcodeRepository = load("");
+
+		assertThat("同梱しているデータが読み込めません", zipcodeRepository.findAddresses(1600022),
+				is(Collections.singletonList("東京都新宿区新宿")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRequireDataFile() throws Exception {
+		ZipcodeRepository zipcodeRepository = new ZipcodeRepository();
+		ReflectionTestUtils.setField(zipcodeRepository, "dataFile", "");
+		ReflectionTestUtils.setField(zipcodeRepository, "requireDataFile", true);
+		zipcodeRepository.load();
+	}
+}
@@ -0,0 +1,31 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class BCryptCostCalibratorTest {
+
+	@Test
+	public void testCalibrate() {
+		assertThat("目標時間を超えても最小のコストになっていません", BCryptCostCalibrator.calibrate(0, 4, 6), is(4));
+		assertThat("最大のコストを超えています", BCryptCostCalibrator.calibrate(Long.MAX_VALUE, 4, 5), is(5));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCalibrateWithInvalidRange() {
+		BCryptCostCalibrator.calibrate(250, 12, 10);
+	}
+
+	@Test
+	public void testCostOf() {
+		assertThat("コストが取り出せません", BCryptCostCalibrator.costOf(new BCryptPasswordEncoder(5).encode("password")), is(5));
+		assertThat("$2b$形式のコストが取り出せません",
+				BCryptCostCalibrator.costOf("$2b$12$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"), is(12));
+		assertThat("BCrypt以外の値でコストが取り出されています", BCryptCostCalibrator.costOf("testtest"), is(-1));
+		assertThat("nullでコストが取り出されています", BCryptCostCalibrator.costOf(null), is(-1));
+	}
+}
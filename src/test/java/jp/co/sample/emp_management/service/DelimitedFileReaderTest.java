@@ -0,0 +1,38 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DelimitedFileReaderTest {
+
+	@Test
+	public void testReadCsv() throws Exception {
+		String csv = "﻿name,address\r\n" + "山田太郎,\"札幌市,中央区\"\r\n" + "\"山田\r\n花子\",\"\"\"青森\"\"\"\n" + "鈴木,";
+		try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader(csv), ',')) {
+			assertThat("BOMが除かれていません", reader.readRecord(), is(Arrays.asList("name", "address")));
+			assertThat("区切り文字を含む値が読み込めません", reader.readRecord(), is(Arrays.asList("山田太郎", "札幌市,中央区")));
+			assertThat("行番号が不正です", reader.getRecordLineNumber(), is(2));
+			assertThat("改行と「\"」を含む値が読み込めません", reader.readRecord(), is(Arrays.asList("山田\r\n花子", "\"青森\"")));
+			assertThat("行番号が不正です", reader.getRecordLineNumber(), is(3));
+			assertThat("改行の無い最終行や空の値が読み込めません", reader.readRecord(), is(Arrays.asList("鈴木", "")));
+			assertThat("値が改行を含む行の次の行番号が不正です", reader.getRecordLineNumber(), is(5));
+			assertThat("ファイルの終わりでnullが返りません", reader.readRecord(), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void testReadTsv() throws Exception {
+		try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader("a\tb,c\n\n"), '\t')) {
+			assertThat("タブ区切りで読み込めません", reader.readRecord(), is(Arrays.asList("a", "b,c")));
+			assertThat("空行が読み込めません", reader.readRecord(), is(Arrays.asList("")));
+			assertThat("ファイルの終わりでnullが返りません", reader.readRecord(), is(nullValue()));
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DelimitedFileWriterTest {
+
+	@Test
+	public void testWriteRecord() throws Exception {
+		StringWriter stringWriter = new StringWriter();
+		DelimitedFileWriter writer = new DelimitedFileWriter(stringWriter, ',');
+		writer.writeRecord("山田太郎", "札幌市,中央区", "\"青森\"", "1\n2", null, "");
+		writer.flush();
+
+		assertThat("値が正しく囲まれていません", stringWriter.toString(),
+				is("山田太郎,\"札幌市,中央区\",\"\"\"青森\"\"\",\"1\n2\",,\r\n"));
+		try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader(stringWriter.toString()), ',')) {
+			assertThat("書き出した値が読み込めません", reader.readRecord(),
+					is(Arrays.asList("山田太郎", "札幌市,中央区", "\"青森\"", "1\n2", "", "")));
+		}
+	}
+
+	@Test
+	public void testEscapeFormula() throws Exception {
+		assertThat("数式が無効化されていません", DelimitedFileWriter.escapeFormula("=HYPERLINK(\"http://example.com\")"),
+				is("'=HYPERLINK(\"http://example.com\")"));
+		assertThat("「+」で始まる値が無効化されていません", DelimitedFileWriter.escapeFormula("+1"), is("'+1"));
+		assertThat("「-」で始まる値が無効化されていません", DelimitedFileWriter.escapeFormula("-1"), is("'-1"));
+		assertThat("「@」で始まる値が無効化されていません", DelimitedFileWriter.escapeFormula("@SUM(A1)"), is("'@SUM(A1)"));
+		assertThat("数式でない値が変換されています", DelimitedFileWriter.escapeFormula("山田=太郎"), is("山田=太郎"));
+		assertThat("nullが変換されています", DelimitedFileWriter.escapeFormula(null), is((String) null));
+
+		assertThat("付けた「'」が取り除かれていません", DelimitedFileReader.unescapeFormula("'=1+1"), is("=1+1"));
+		assertThat("数式でない値の「'」が取り除かれています", DelimitedFileReader.unescapeFormula("'quoted"), is("'quoted"));
+	}
+}
@@ -0,0 +1,73 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "employee.export.fetch-size=2", "employee.cache.invalidation.listen=false" })
+public class EmployeeExportServiceTest {
+
+	@Autowired
+	private EmployeeExportService employeeExportService;
+
+	@Autowired
+	private NamedParameterJdbcTemplate template;
+
+	private int countEmployees() {
+		return template.queryForObject("select count(*) from employees", new MapSqlParameterSource(), Integer.class);
+	}
+
+	@Test
+	public void testExportCsv() throws Exception {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		employeeExportService.exportCsv(outputStream, false);
+
+		byte[] bytes = outputStream.toByteArray();
+		assertThat("BOMが付いていません", bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF, is(true));
+		int recordCount = 0;
+		try (DelimitedFileReader reader = new DelimitedFileReader(
+				new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), ',')) {
+			List<String> headerList = reader.readRecord();
+			assertThat("見出し行が不正です", headerList.get(0), is("id"));
+			assertThat("画像の列が出力されています", headerList.size(), is(11));
+			List<String> valueList;
+			while ((valueList = reader.readRecord()) != null) {
+				assertThat("列の数が不正です", valueList.size(), is(11));
+				recordCount++;
+			}
+		}
+		assertThat("全ての従業員が出力されていません", recordCount, is(countEmployees()));
+	}
+
+	@Test
+	public void testExportXlsx() throws Exception {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		employeeExportService.exportXlsx(outputStream, true);
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			Sheet sheet = workbook.getSheetAt(0);
+			Row headerRow = sheet.getRow(0);
+			assertThat("見出し行が不正です", headerRow.getCell(1).getStringCellValue(), is("name"));
+			assertThat("画像の列が出力されていません", headerRow.getCell(11).getStringCellValue(), is("image"));
+			assertThat("全ての従業員が出力されていません", sheet.getLastRowNum(), is(countEmployees()));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+public class EmployeeIdAllocatorTest {
+
+	/** シーケンスのINCREMENT BY */
+	private static final int ALLOCATION_SIZE = 50;
+
+	/** 同時に採番するスレッド数 */
+	private static final int THREAD_COUNT = 32;
+
+	/** 1スレッドあたりの採番回数 */
+	private static final int INSERT_COUNT_PER_THREAD = 300;
+
+	/**
+	 * employees_id_seqと同じ動きをするシーケンスを持つリポジトリのモックを生成します.
+	 *
+	 * @param sequence シーケンスの現在値
+	 * @return リポジトリのモック
+	 */
+	private EmployeeRepository mockRepository(AtomicLong sequence) {
+		EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+		when(employeeRepository.getNextIdSequence()).thenAnswer(invocation -> {
+			// データベースへの往復を模して他のスレッドと競合しやすくします
+			Thread.sleep(1);
+			return sequence.addAndGet(ALLOCATION_SIZE);
+		});
+		when(employeeRepository.getIdSequenceIncrement()).thenReturn((long) ALLOCATION_SIZE);
+		return employeeRepository;
+	}
+
+	@Test
+	public void testAllocateInOrder() {
+		EmployeeIdAllocator allocator = new EmployeeIdAllocator(mockRepository(new AtomicLong(22)), ALLOCATION_SIZE);
+		for (int expected = 23; expected <= 23 + ALLOCATION_SIZE * 3; expected++) {
+			assertThat("シーケンスの範囲の先頭から順に採番されていません", allocator.allocate(), is(expected));
+		}
+	}
+
+	@Test
+	public void testConcurrentAllocateAcrossNodes() throws Exception {
+		AtomicLong sequence = new AtomicLong(22);
+		// 2台のアプリケーションサーバーが同じシーケンスを共有している状態を模します
+		EmployeeIdAllocator[] nodes = { new EmployeeIdAllocator(mockRepository(sequence), ALLOCATION_SIZE),
+				new EmployeeIdAllocator(mockRepository(sequence), ALLOCATION_SIZE) };
+		Set<Integer> idSet = ConcurrentHashMap.newKeySet();
+		CountDownLatch startLatch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<Integer>> futureList = new ArrayList<>();
+			for (int i = 0; i < THREAD_COUNT; i++) {
+				EmployeeIdAllocator allocator = nodes[i % nodes.length];
+				Callable<Integer> task = () -> {
+					startLatch.await();
+					int duplicateCount = 0;
+					for (int j = 0; j < INSERT_COUNT_PER_THREAD; j++) {
+						if (!idSet.add(allocator.allocate())) {
+							duplicateCount++;
+						}
+					}
+					return duplicateCount;
+				};
+				futureList.add(executor.submit(task));
+			}
+			startLatch.countDown();
+			int duplicateCount = 0;
+			for (Future<Integer> future : futureList) {
+				duplicateCount += future.get(30, TimeUnit.SECONDS);
+			}
+			assertThat("IDが重複して採番されています", duplicateCount, is(0));
+			assertThat("採番されたIDの件数が一致しません", idSet.size(), is(THREAD_COUNT * INSERT_COUNT_PER_THREAD));
+			assertThat("既存のIDと重複しています", idSet.stream().allMatch(id -> id > 22), is(true));
+			// 次の範囲の確保は1スレッドずつ行うため、確保した範囲を使い切ってから次の範囲を確保します
+			assertThat("シーケンスの値が無駄に消費されています", sequence.get(),
+					is(22L + THREAD_COUNT * INSERT_COUNT_PER_THREAD));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testIncrementMismatch() {
+		EmployeeRepository employeeRepository = mockRepository(new AtomicLong(22));
+		when(employeeRepository.getIdSequenceIncrement()).thenReturn(100L);
+		EmployeeIdAllocator allocator = new EmployeeIdAllocator(employeeRepository, ALLOCATION_SIZE);
+		try {
+			allocator.verifyIncrement();
+			fail("INCREMENT BYと一致しない場合は例外が発生します");
+		} catch (IllegalStateException e) {
+			// 期待どおり
+		}
+		try {
+			allocator.allocate();
+			fail("INCREMENT BYと一致しない場合は採番しません");
+		} catch (IllegalStateException e) {
+			// 期待どおり
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import jp.co.sample.emp_management.domain.EmployeeImportResult;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "employee.import.chunk-size=2", "employee.cache.invalidation.listen=false" })
+public class EmployeeImportServiceTest {
+
+	@Autowired
+	private EmployeeImportService employeeImportService;
+
+	@Autowired
+	private NamedParameterJdbcTemplate template;
+
+	@After
+	public void tearDown() {
+		template.update("delete from employees where mail_address like '%@import-test.example.com'",
+				new MapSqlParameterSource());
+	}
+
+	private EmployeeImportResult importEmployees(String content, Charset charset) throws Exception {
+		return employeeImportService.importEmployees(new ByteArrayInputStream(content.getBytes(charset)), charset);
+	}
+
+	private int countImported() {
+		return template.queryForObject(
+				"select count(*) from employees where mail_address like '%@import-test.example.com'",
+				new MapSqlParameterSource(), Integer.class);
+	}
+
+	@Test
+	public void testImportCsv() throws Exception {
+		String csv = "name,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count\n"
+				+ "一括太郎,男性,2020/04/01,taro@import-test.example.com,160-0022,\"東京都新宿区新宿1-1-1\",090-1234-5678,300000,\"明るい,素直\",1\n"
+				+ "一括花子,女性,2020-04-01,hanako@import-test.example.com,160-0022,東京都新宿区新宿1-1-2,03-1234-5678,250000,素直,0\n"
+				+ "一括次郎,男性,2020-02-30,jiro@import-test.example.com,1600022,東京都新宿区新宿1-1-3,090-1234-5678,600000,素直,x\n"
+				+ "一括重複,男性,2020-04-01,taro@import-test.example.com,160-0022,東京都新宿区新宿1-1-4,090-1234-5678,300000,素直,0\n"
+				+ "一括三郎,男性,2020-04-01,saburo@import-test.example.com,160-0022,東京都新宿区新宿1-1-5,090-1234-5678,300000,素直,2\n";
+		EmployeeImportResult result = importEmployees(csv, StandardCharsets.UTF_8);
+
+		assertThat("読み込んだ件数が不正です", result.getTotalCount(), is(5));
+		assertThat("登録した件数が不正です", result.getImportedCount(), is(3));
+		assertThat("データベースに登録されていません", countImported(), is(3));
+		assertThat("エラーの件数が不正です", result.getErrorCount(), is(5));
+		assertThat("エラーの行番号が不正です", result.getErrorList().get(0).getLineNumber(), is(4));
+		assertThat("ファイル内の重複がエラーになっていません", result.getErrorList().get(4).getMessage(), is("このメールアドレスはファイル内で重複しています"));
+		assertThat("ファイル内の重複の行番号が不正です", result.getErrorList().get(4).getLineNumber(), is(5));
+
+		// 登録済みのメールアドレスはエラーになります
+		EmployeeImportResult secondResult = importEmployees(csv.substring(0, csv.indexOf("一括花子")), StandardCharsets.UTF_8);
+		assertThat("登録済みのメールアドレスが登録されています", secondResult.getImportedCount(), is(0));
+		assertThat("登録済みのメールアドレスがエラーになっていません", secondResult.getErrorList().get(0).getMessage(),
+				is("このメールアドレスは既に登録されています"));
+	}
+
+	@Test
+	public void testImportTsvWithJapaneseHeader() throws Exception {
+		String tsv = "氏名\t性別\t入社日\tメールアドレス\t郵便番号\t住所\t電話番号\t給料\t特性\t扶養人数\r\n"
+				+ "一括四郎\t男性\t2020/04/01\tshiro@import-test.example.com\t160-0022\t東京都新宿区新宿1-1-1\t090-1234-5678\t300000\t素直\t1\r\n";
+		EmployeeImportResult result = importEmployees(tsv, Charset.forName("Windows-31J"));
+
+		assertThat("TSVファイルが登録できません", result.getImportedCount(), is(1));
+		String name = template.queryForObject(
+				"select name from employees where mail_address = 'shiro@import-test.example.com'",
+				new MapSqlParameterSource(), String.class);
+		assertThat("文字コードが変換されていません", name, is("一括四郎"));
+	}
+
+	@Test
+	public void testImportOutOfRangeDependentsCount() throws Exception {
+		String csv = "name,gender,hire_date,mail_address,zip_code,address,telephone,salary,characteristics,dependents_count\n"
+				+ "一括六郎,男性,2020-04-01,rokuro@import-test.example.com,160-0022,東京都新宿区新宿1-1-6,090-1234-5678,300000,素直,99999999999\n"
+				+ "一括七郎,男性,2020-04-01,shichiro@import-test.example.com,160-0022,東京都新宿区新宿1-1-7,090-1234-5678,300000,素直,1\n";
+		EmployeeImportResult result = importEmployees(csv, StandardCharsets.UTF_8);
+
+		assertThat("同じトランザクションの正しい行が登録されていません", result.getImportedCount(), is(1));
+		assertThat("intの範囲を超える扶養人数がエラーになっていません", result.getErrorCount(), is(1));
+		assertThat("エラーの項目が不正です", result.getErrorList().get(0).getField(), is("dependentsCount"));
+		assertThat("エラーの行番号が不正です", result.getErrorList().get(0).getLineNumber(), is(2));
+	}
+
+	@Test
+	public void testImportWithoutRequiredColumn() throws Exception {
+		EmployeeImportResult result = importEmployees("name,gender\n一括五郎,男性\n", StandardCharsets.UTF_8);
+
+		assertThat("必須の列が無いファイルが読み込まれています", result.getTotalCount(), is(0));
+		assertThat("必須の列が無いことがエラーになっていません", result.getErrorCount(), is(8));
+	}
+}
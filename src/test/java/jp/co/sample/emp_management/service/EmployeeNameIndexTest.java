@@ -0,0 +1,88 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+public class EmployeeNameIndexTest {
+
+	private EmployeeRepository employeeRepository;
+
+	private EmployeeNameIndex employeeNameIndex;
+
+	@Before
+	public void setUp() {
+		employeeRepository = mock(EmployeeRepository.class);
+		employeeNameIndex = new EmployeeNameIndex();
+		ReflectionTestUtils.setField(employeeNameIndex, "employeeRepository", employeeRepository);
+	}
+
+	private static EmployeeSummary employee(int id, String name) {
+		return new EmployeeSummary(id, name, null, 0);
+	}
+
+	@Test
+	public void testSuggest() {
+		when(employeeRepository.findAll()).thenReturn(Arrays.asList(employee(1, "山田太郎"), employee(2, "山田花子"),
+				employee(3, "ヤマモト"), employee(4, "やまぐち"), employee(5, "ｽｽﾞｷ"), employee(6, "Tanaka")));
+
+		assertThat("前方一致しません", employeeNameIndex.suggest("山田", 10), is(Arrays.asList("山田太郎", "山田花子")));
+		assertThat("件数が制限されていません", employeeNameIndex.suggest("山田", 1), is(Collections.singletonList("山田太郎")));
+		assertThat("カタカナとひらがなが区別されています", employeeNameIndex.suggest("やま", 10),
+				is(Arrays.asList("やまぐち", "ヤマモト")));
+		assertThat("半角カタカナが正規化されていません", employeeNameIndex.suggest("すず", 10), is(Collections.singletonList("ｽｽﾞｷ")));
+		assertThat("ローマ字入力が変換されていません", employeeNameIndex.suggest("yamamo", 10),
+				is(Collections.singletonList("ヤマモト")));
+		assertThat("大文字と小文字が区別されています", employeeNameIndex.suggest("ＴＡＮ", 10),
+				is(Collections.singletonList("Tanaka")));
+		assertThat("一致しない入力で候補が返されています", employeeNameIndex.suggest("佐藤", 10).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testAdd() {
+		when(employeeRepository.findAll()).thenReturn(Collections.singletonList(employee(1, "山田太郎")));
+		employeeNameIndex.suggest("山", 10);
+
+		employeeNameIndex.add(2, "山口一郎");
+		employeeNameIndex.add(3, "佐藤二郎");
+
+		assertThat("登録した従業員名が追加されていません", employeeNameIndex.suggest("山", 10),
+				is(Arrays.asList("山口一郎", "山田太郎")));
+		assertThat("登録した従業員名が追加されていません", employeeNameIndex.suggest("さ", 10).isEmpty(), is(true));
+		assertThat("登録した従業員名が追加されていません", employeeNameIndex.suggest("佐藤", 10),
+				is(Collections.singletonList("佐藤二郎")));
+	}
+
+	@Test
+	public void testSuggestFrom100000Employees() {
+		List<EmployeeSummary> employeeList = new ArrayList<>();
+		String[] familyNames = { "山田", "鈴木", "佐藤", "田中", "高橋", "渡辺", "伊藤", "中村", "小林", "加藤" };
+		for (int i = 0; i < 100000; i++) {
+			employeeList.add(employee(i, familyNames[i % familyNames.length] + "社員" + i));
+		}
+		when(employeeRepository.findAll()).thenReturn(employeeList);
+		employeeNameIndex.suggest("山田", 10);
+
+		int count = 10000;
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			employeeNameIndex.suggest("田中社員" + (i % 1000), 10);
+		}
+		long averageNanos = (System.nanoTime() - start) / count;
+		assertThat("候補の取得に1ミリ秒以上かかっています: " + averageNanos + "ns", averageNanos < 1000000, is(true));
+	}
+}
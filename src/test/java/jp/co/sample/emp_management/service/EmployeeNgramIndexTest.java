@@ -0,0 +1,110 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+
+public class EmployeeNgramIndexTest {
+
+	private EmployeeRepository employeeRepository;
+
+	private EmployeeNgramIndex employeeNgramIndex;
+
+	@Before
+	public void setUp() {
+		employeeRepository = mock(EmployeeRepository.class);
+		employeeNgramIndex = new EmployeeNgramIndex();
+		ReflectionTestUtils.setField(employeeNgramIndex, "employeeRepository", employeeRepository);
+	}
+
+	private static EmployeeSummary employee(int id, String name) {
+		return new EmployeeSummary(id, name, null, 0);
+	}
+
+	private static List<EmployeeSummary> employees() {
+		return Arrays.asList(employee(1, "小山田花子"), employee(2, "山田太郎"), employee(3, "山田"), employee(4, "田山一郎"));
+	}
+
+	@Test
+	public void testSearchOneCharacter() {
+		when(employeeRepository.findAll()).thenReturn(employees());
+
+		assertThat("1文字を含む従業員が検索されていません", employeeNgramIndex.search("郎"), is(Arrays.asList(2, 4)));
+		assertThat("1文字を含む従業員が検索されていません", employeeNgramIndex.search("田"), is(Arrays.asList(1, 2, 3, 4)));
+		assertThat("含まない文字で検索されています", employeeNgramIndex.search("佐").isEmpty(), is(true));
+		assertThat("空の検索ワードで検索されています", employeeNgramIndex.search("").isEmpty(), is(true));
+	}
+
+	@Test
+	public void testSearchBigram() {
+		when(employeeRepository.findAll()).thenReturn(employees());
+
+		// 「田山一郎」は「山」「田」を含みますが「山田」を含みません
+		assertThat("類似度の高い順に並んでいません", employeeNgramIndex.search("山田"), is(Arrays.asList(3, 2, 1)));
+		assertThat("全てのN-gramを含む従業員のみ検索されていません", employeeNgramIndex.search("山田太"),
+				is(Collections.singletonList(2)));
+		assertThat("N-gramが連続していない従業員が検索されています", employeeNgramIndex.search("山郎").isEmpty(), is(true));
+	}
+
+	@Test
+	public void testAdd() {
+		when(employeeRepository.findAll()).thenReturn(employees());
+		// 読み込み前に追加した従業員は初回の検索時にemployeesテーブルから読み込みます
+		employeeNgramIndex.add(5, "山田次郎");
+		assertThat(employeeNgramIndex.search("次郎").isEmpty(), is(true));
+
+		employeeNgramIndex.add(5, "山田次郎");
+		assertThat("追加した従業員が検索されていません", employeeNgramIndex.search("次郎"), is(Collections.singletonList(5)));
+		verify(employeeRepository, times(1)).findAll();
+	}
+
+	@Test
+	public void testClear() {
+		when(employeeRepository.findAll()).thenReturn(employees())
+				.thenReturn(Collections.singletonList(employee(6, "佐藤花子")));
+		assertThat(employeeNgramIndex.search("花子"), is(Collections.singletonList(1)));
+
+		employeeNgramIndex.clear();
+		assertThat("破棄した後に読み込み直されていません", employeeNgramIndex.search("花子"), is(Collections.singletonList(6)));
+		verify(employeeRepository, times(2)).findAll();
+	}
+
+	@Test
+	public void testAddWhileLoading() {
+		when(employeeRepository.findAll()).thenAnswer(invocation -> {
+			// 読み込み中に登録された従業員はfindAllの結果に含まれない場合があります
+			employeeNgramIndex.add(5, "山田次郎");
+			return employees();
+		});
+
+		assertThat("読み込み中に追加した従業員が検索されていません", employeeNgramIndex.search("次郎"),
+				is(Collections.singletonList(5)));
+	}
+
+	@Test
+	public void testClearWhileLoading() {
+		when(employeeRepository.findAll()).thenAnswer(invocation -> {
+			// 読み込み中に破棄された場合は読み込んだ索引を使わずに読み込み直します
+			employeeNgramIndex.clear();
+			return employees();
+		}).thenReturn(Collections.singletonList(employee(6, "佐藤花子")));
+
+		assertThat(employeeNgramIndex.search("花子"), is(Collections.singletonList(6)));
+		verify(employeeRepository, times(2)).findAll();
+	}
+}
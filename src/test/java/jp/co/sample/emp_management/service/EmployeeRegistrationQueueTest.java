@@ -0,0 +1,140 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeRegistration;
+import jp.co.sample.emp_management.domain.EmployeeRegistrationStatus;
+import jp.co.sample.emp_management.form.InsertEmployeeForm;
+
+public class EmployeeRegistrationQueueTest {
+
+	private final EmployeeService employeeService = mock(EmployeeService.class);
+
+	private EmployeeRegistrationQueue registrationQueue;
+
+	@After
+	public void tearDown() {
+		if (registrationQueue != null) {
+			registrationQueue.stop();
+		}
+	}
+
+	private InsertEmployeeForm createForm(String mailAddress) {
+		InsertEmployeeForm form = new InsertEmployeeForm();
+		form.setName("非同期太郎");
+		form.setGender("男性");
+		form.setHireDate("2020-04-01");
+		form.setMailAddress(mailAddress);
+		form.setZipCode("160-0022");
+		form.setAddress("東京都新宿区新宿1-1-1");
+		form.setTelephone("090-1234-5678");
+		form.setSalary("300000");
+		form.setCharacteristics("明るい");
+		form.setDependentsCount("0");
+		return form;
+	}
+
+	private EmployeeRegistration createRegistration(String token, String mailAddress) {
+		Employee employee = new Employee();
+		employee.setMailAddress(mailAddress);
+		return new EmployeeRegistration(token, employee, null);
+	}
+
+	@Test
+	public void testRejectWhenDisabled() {
+		registrationQueue = new EmployeeRegistrationQueue(employeeService, false, 10, 1, 10, 60);
+		registrationQueue.start();
+		assertThat("無効なのに有効と判定されています", registrationQueue.isEnabled(), is(false));
+		try {
+			registrationQueue.submit(createForm("taro@async-test.example.com"), null);
+			fail("停止中に受け付けています");
+		} catch (RegistrationRejectedException e) {
+			assertThat("登録待ちになっています", registrationQueue.isPending("taro@async-test.example.com"), is(false));
+		}
+	}
+
+	@Test
+	public void testSubmitAndComplete() throws Exception {
+		when(employeeService.insertAll(anyList())).thenAnswer(invocation -> {
+			List<EmployeeRegistration> batch = invocation.getArgument(0);
+			return Collections.singletonList(EmployeeRegistrationStatus.completed(batch.get(0).getToken(), 1));
+		});
+		registrationQueue = new EmployeeRegistrationQueue(employeeService, true, 10, 1, 10, 60);
+		registrationQueue.start();
+
+		EmployeeRegistrationStatus status = registrationQueue.submit(createForm("taro@async-test.example.com"), null);
+		assertThat("受付直後の状態が不正です", status.getStatus(), is(EmployeeRegistrationStatus.QUEUED));
+
+		for (int i = 0; i < 100 && registrationQueue.isPending("taro@async-test.example.com"); i++) {
+			Thread.sleep(50);
+		}
+		EmployeeRegistrationStatus completed = registrationQueue.getStatus(status.getToken());
+		assertThat("登録が終わっていません", completed.getStatus(), is(EmployeeRegistrationStatus.COMPLETED));
+		assertThat("従業員IDが不正です", completed.getEmployeeId(), is(1));
+		assertThat("存在しない受付番号の状態が返されています", registrationQueue.getStatus("unknown"), is(nullValue()));
+	}
+
+	@Test
+	public void testRejectWhenFull() throws Exception {
+		// 登録するスレッドを1件目の登録で止めたまま待ち行列を一杯にします
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(employeeService.insertAll(anyList())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return Collections.emptyList();
+		});
+		registrationQueue = new EmployeeRegistrationQueue(employeeService, true, 1, 1, 10, 60);
+		registrationQueue.start();
+		registrationQueue.submit(createForm("taro@async-test.example.com"), null);
+		assertThat("登録が始まりません", started.await(10, TimeUnit.SECONDS), is(true));
+		registrationQueue.submit(createForm("jiro@async-test.example.com"), null);
+		try {
+			registrationQueue.submit(createForm("hanako@async-test.example.com"), null);
+			fail("待ち行列が一杯なのに受け付けています");
+		} catch (RegistrationRejectedException e) {
+			assertThat("拒否した従業員が登録待ちになっています", registrationQueue.isPending("hanako@async-test.example.com"),
+					is(false));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testRetryOneByOne() {
+		EmployeeRegistration taro = createRegistration("taro", "taro@async-test.example.com");
+		EmployeeRegistration hanako = createRegistration("hanako", "hanako@async-test.example.com");
+		when(employeeService.insertAll(Arrays.asList(taro, hanako))).thenThrow(new IllegalStateException("一括"));
+		when(employeeService.insertAll(Collections.singletonList(taro)))
+				.thenReturn(Collections.singletonList(EmployeeRegistrationStatus.completed("taro", 1)));
+		when(employeeService.insertAll(Collections.singletonList(hanako))).thenThrow(new IllegalStateException("個別"));
+		registrationQueue = new EmployeeRegistrationQueue(employeeService, true, 10, 1, 10, 60);
+
+		registrationQueue.register(Arrays.asList(taro, hanako));
+
+		verify(employeeService, times(3)).insertAll(anyList());
+		assertThat("登録できた従業員の状態が不正です", registrationQueue.getStatus("taro").getStatus(),
+				is(EmployeeRegistrationStatus.COMPLETED));
+		assertThat("登録できなかった従業員の状態が不正です", registrationQueue.getStatus("hanako").getStatus(),
+				is(EmployeeRegistrationStatus.FAILED));
+	}
+}
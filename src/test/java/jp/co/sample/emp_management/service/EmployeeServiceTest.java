@@ -0,0 +1,255 @@
+package jp.co.sample.emp_management.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jp.co.sample.emp_management.config.ReplicaRoutingDataSource;
+import jp.co.sample.emp_management.domain.Employee;
+import jp.co.sample.emp_management.domain.EmployeeChangedEvent;
+import jp.co.sample.emp_management.domain.EmployeePage;
+import jp.co.sample.emp_management.domain.EmployeeSearchResult;
+import jp.co.sample.emp_management.domain.EmployeeSummary;
+import jp.co.sample.emp_management.domain.PageCursor;
+import jp.co.sample.emp_management.domain.ProcessedImage;
+import jp.co.sample.emp_management.form.InsertEmployeeForm;
+import jp.co.sample.emp_management.repository.EmployeeRepository;
+import jp.co.sample.emp_management.repository.ImageStore;
+
+public class EmployeeServiceTest {
+
+	private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+	private Cache detailCache;
+
+	private Cache pageCache;
+
+	private EmployeeRepository employeeRepository;
+
+	private ImageStore imageStore;
+
+	private EmployeeNgramIndex employeeNgramIndex;
+
+	private EmployeeService employeeService;
+
+	@Before
+	public void setUp() throws Exception {
+		replicaRoutingDataSource = mock(ReplicaRoutingDataSource.class);
+		when(replicaRoutingDataSource.isWrapperFor(ReplicaRoutingDataSource.class)).thenReturn(true);
+		when(replicaRoutingDataSource.unwrap(ReplicaRoutingDataSource.class)).thenReturn(replicaRoutingDataSource);
+		when(replicaRoutingDataSource.getConnection()).thenReturn(mock(Connection.class));
+		detailCache = mock(Cache.class);
+		pageCache = mock(Cache.class);
+		CacheManager cacheManager = mock(CacheManager.class);
+		when(cacheManager.getCache(EmployeeService.DETAIL_CACHE)).thenReturn(detailCache);
+		when(cacheManager.getCache(EmployeeService.PAGE_CACHE)).thenReturn(pageCache);
+
+		employeeService = new EmployeeService();
+		employeeRepository = mock(EmployeeRepository.class);
+		imageStore = mock(ImageStore.class);
+		EmployeeIdAllocator employeeIdAllocator = mock(EmployeeIdAllocator.class);
+		when(employeeIdAllocator.allocate()).thenReturn(1);
+		ReflectionTestUtils.setField(employeeService, "employeeRepository", employeeRepository);
+		ReflectionTestUtils.setField(employeeService, "imageStore", imageStore);
+		ReflectionTestUtils.setField(employeeService, "employeeIdAllocator", employeeIdAllocator);
+		ReflectionTestUtils.setField(employeeService, "employeeNameIndex", mock(EmployeeNameIndex.class));
+		employeeNgramIndex = mock(EmployeeNgramIndex.class);
+		ReflectionTestUtils.setField(employeeService, "employeeNgramIndex", employeeNgramIndex);
+		ReflectionTestUtils.setField(employeeService, "cacheManager", cacheManager);
+		// DataSourceConfigと同じく、レプリカへの振り分けをLazyConnectionDataSourceProxyで包んで渡します
+		employeeService.setDataSource(new LazyConnectionDataSourceProxy(replicaRoutingDataSource));
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testUpdateUsesPrimaryBeforeEvict() {
+		TransactionSynchronizationManager.initSynchronization();
+		Employee employee = new Employee();
+		employee.setId(1);
+		employeeService.update(employee);
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		// 破棄した直後の読み込みが遅れているレプリカから古い内容をキャッシュしないよう、破棄より前にプライマリに切り替えます
+		InOrder inOrder = inOrder(replicaRoutingDataSource, detailCache, pageCache);
+		inOrder.verify(replicaRoutingDataSource).usePrimaryAfterChange();
+		inOrder.verify(detailCache).evict(1);
+		inOrder.verify(pageCache).clear();
+	}
+
+	@Test
+	public void testEmployeeChangedUsesPrimaryBeforeEvict() {
+		employeeService.onEmployeeChanged(new EmployeeChangedEvent(EmployeeChangedEvent.RESET, null));
+
+		InOrder inOrder = inOrder(replicaRoutingDataSource, detailCache, pageCache);
+		inOrder.verify(replicaRoutingDataSource).usePrimaryAfterChange();
+		inOrder.verify(detailCache).clear();
+		inOrder.verify(pageCache).clear();
+	}
+
+	@Test
+	public void testWithoutReplica() throws Exception {
+		employeeService.setDataSource(mock(DataSource.class));
+		employeeService.onEmployeeChanged(new EmployeeChangedEvent(EmployeeChangedEvent.UPDATE, 1));
+
+		verify(replicaRoutingDataSource, never()).usePrimaryAfterChange();
+		verify(detailCache).evict(1);
+		verify(pageCache).clear();
+	}
+
+	@Test
+	public void testInsertFailsWhenImageCannotBeStored() throws Exception {
+		when(imageStore.store(any(), anyString())).thenThrow(new IOException("No space left on device"));
+		InsertEmployeeForm form = new InsertEmployeeForm();
+		form.setName("画像太郎");
+		form.setHireDate("2020-04-01");
+		form.setTelephone("090,1234,5678");
+		form.setSalary("300000");
+		form.setDependentsCount("0");
+		try {
+			employeeService.insert(form, new ProcessedImage("png", new byte[1], 1, 1));
+			fail("画像を保存できない場合は例外が発生します");
+		} catch (UncheckedIOException e) {
+			assertThat("保存に失敗した原因が失われています", e.getCause().getMessage(), is("No space left on device"));
+		}
+		verify(employeeRepository, never()).insert(any());
+	}
+
+	@Test
+	public void testShortSearchWordUsesNgramIndex() {
+		ReflectionTestUtils.setField(employeeService, "trigramSearch", true);
+		EmployeeSummary employee = new EmployeeSummary(1, "山田太郎", null, 0);
+		when(employeeNgramIndex.search("山田")).thenReturn(Collections.singletonList(1));
+		when(employeeRepository.findByIds(Collections.singletonList(1))).thenReturn(Collections.singletonList(employee));
+		when(employeeRepository.findBySearchWord("山田太", 10, 0))
+				.thenReturn(new EmployeeSearchResult(Collections.singletonList(employee), false, 1, null));
+
+		// トライグラム索引を使えない2文字以下の検索ワードはN-gram索引で検索します
+		assertThat("N-gram索引で検索されていません", employeeService.searchName("山田", 1).getEmployeeList(),
+				is(Collections.singletonList(employee)));
+		verify(employeeRepository, never()).findBySearchWord(eq("山田"), any(), any());
+
+		assertThat("トライグラム索引で検索されていません", employeeService.searchName("山田太", 1).getEmployeeList(),
+				is(Collections.singletonList(employee)));
+		verify(employeeNgramIndex, never()).search("山田太");
+	}
+
+	/**
+	 * findAfter、findBeforeと同じく(入社日, ID)の順で比較します.
+	 */
+	private static final Comparator<EmployeeSummary> PAGE_ORDER = Comparator.comparing(EmployeeSummary::getHireDate)
+			.thenComparing(EmployeeSummary::getId);
+
+	private static int compare(EmployeeSummary employee, PageCursor cursor) {
+		return PAGE_ORDER.compare(employee, new EmployeeSummary(cursor.getId(), null, cursor.getHireDate(), 0));
+	}
+
+	/**
+	 * 入社日が重複する従業員を、findAfter、findBeforeのSQLと同じ条件で返すようにします.
+	 *
+	 * @return 入社日、IDの順に並べた従業員
+	 */
+	private List<EmployeeSummary> mockPagingEmployees() {
+		List<EmployeeSummary> employees = new ArrayList<>();
+		// 25人のうち12人が同じ入社日で、ページの境界をまたぎます
+		for (int id = 1; id <= 25; id++) {
+			Date hireDate = new Date(id >= 6 && id <= 17 ? 1230940800000L : 1230940800000L + (id - 6) * 86400000L);
+			employees.add(new EmployeeSummary(id, "従業員" + id, hireDate, 0));
+		}
+		employees.sort(PAGE_ORDER);
+		when(employeeRepository.findAfter(any(), any())).thenAnswer(invocation -> {
+			PageCursor cursor = invocation.getArgument(0);
+			int limit = invocation.getArgument(1);
+			return employees.stream().filter(employee -> cursor == null || compare(employee, cursor) > 0)
+					.limit(limit).collect(Collectors.toList());
+		});
+		when(employeeRepository.findBefore(any(), any())).thenAnswer(invocation -> {
+			PageCursor cursor = invocation.getArgument(0);
+			int limit = invocation.getArgument(1);
+			List<EmployeeSummary> before = employees.stream().filter(employee -> compare(employee, cursor) < 0)
+					.collect(Collectors.toList());
+			return new ArrayList<>(before.subList(Math.max(0, before.size() - limit), before.size()));
+		});
+		return employees;
+	}
+
+	private static List<Integer> ids(EmployeePage page) {
+		return page.getEmployeeList().stream().map(EmployeeSummary::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPagingWithDuplicateHireDates() {
+		List<EmployeeSummary> employees = mockPagingEmployees();
+		List<Integer> expected = employees.stream().map(EmployeeSummary::getId).collect(Collectors.toList());
+
+		EmployeePage first = employeeService.showPage(null, null);
+		assertThat(ids(first), is(expected.subList(0, 10)));
+		assertThat("先頭ページに前のページがあります", first.getPreviousCursor(), is((String) null));
+
+		// 同じ入社日の従業員がページの境界をまたいでも、重複も欠落もせずに次のページに進みます
+		EmployeePage second = employeeService.showPage(first.getNextCursor(), null);
+		assertThat("次のページが重複または欠落しています", ids(second), is(expected.subList(10, 20)));
+		EmployeePage last = employeeService.showPage(second.getNextCursor(), null);
+		assertThat(ids(last), is(expected.subList(20, 25)));
+		assertThat("最後のページに次のページがあります", last.getNextCursor(), is((String) null));
+
+		// 前のページに戻っても同じ内容になります
+		EmployeePage backToSecond = employeeService.showPage(null, last.getPreviousCursor());
+		assertThat("前のページが重複または欠落しています", ids(backToSecond), is(expected.subList(10, 20)));
+		assertThat(backToSecond.getNextCursor(), is(second.getNextCursor()));
+		EmployeePage backToFirst = employeeService.showPage(null, backToSecond.getPreviousCursor());
+		assertThat(ids(backToFirst), is(expected.subList(0, 10)));
+		assertThat("先頭ページに戻った場合に前のページがあります", backToFirst.getPreviousCursor(), is((String) null));
+	}
+
+	@Test
+	public void testPagingWithInvalidCursor() {
+		List<EmployeeSummary> employees = mockPagingEmployees();
+		List<Integer> expected = employees.stream().map(EmployeeSummary::getId).collect(Collectors.toList());
+
+		// 不正なカーソルは指定されていないものとして先頭ページを返します
+		assertThat(ids(employeeService.showPage("!!!", null)), is(expected.subList(0, 10)));
+		assertThat(ids(employeeService.showPage(null, "!!!")), is(expected.subList(0, 10)));
+		// 先頭より前を指定された場合も先頭ページを返します
+		String beforeFirst = PageCursor.of(employees.get(0)).encode();
+		assertThat(ids(employeeService.showPage(null, beforeFirst)), is(expected.subList(0, 10)));
+	}
+}
@@ -0,0 +1,142 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import jp.co.sample.emp_management.domain.ProcessedImage;
+
+public class ImageTransformerTest {
+
+	private final ImageTransformer imageTransformer = new ImageTransformer(20000000, 640, 0.85f);
+
+	/**
+	 * 左半分が赤、右半分が青の画像を生成します.
+	 *
+	 * @param width  幅
+	 * @param height 高さ
+	 * @param type   BufferedImageの種類
+	 * @return 画像
+	 */
+	private BufferedImage createImage(int width, int height, int type) {
+		BufferedImage image = new BufferedImage(width, height, type);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.RED);
+		graphics.fillRect(0, 0, width / 2, height);
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(width / 2, 0, width - width / 2, height);
+		graphics.dispose();
+		return image;
+	}
+
+	private byte[] encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageIO.write(image, format, outputStream);
+		return outputStream.toByteArray();
+	}
+
+	private BufferedImage decode(byte[] image) throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(image));
+	}
+
+	/**
+	 * JPEGの先頭(SOIの直後)に向きだけを持つEXIFを挿入します.
+	 *
+	 * @param jpeg        JPEG
+	 * @param orientation 向き
+	 * @return EXIF付きのJPEG
+	 */
+	private byte[] withOrientation(byte[] jpeg, int orientation) {
+		byte[] exif = { (byte) 0xff, (byte) 0xe1, 0, 34, 'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 42, 0, 0, 0, 8, 0,
+				1, 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0, 0, 0, 0, 0 };
+		byte[] result = new byte[jpeg.length + exif.length];
+		System.arraycopy(jpeg, 0, result, 0, 2);
+		System.arraycopy(exif, 0, result, 2, exif.length);
+		System.arraycopy(jpeg, 2, result, 2 + exif.length, jpeg.length - 2);
+		return result;
+	}
+
+	private boolean isRed(int rgb) {
+		Color color = new Color(rgb);
+		return color.getRed() > 200 && color.getBlue() < 60;
+	}
+
+	@Test
+	public void testTransformJpeg() throws IOException {
+		byte[] jpeg = encode(createImage(3200, 2400, BufferedImage.TYPE_INT_RGB), "jpg");
+		ProcessedImage image = imageTransformer.transform(new ByteArrayInputStream(jpeg));
+		assertThat("拡張子が不正です", image.getExtension(), is("jpg"));
+		assertThat("元の画像の幅が不正です", image.getOriginalWidth(), is(3200));
+		BufferedImage display = decode(image.getDisplayImage());
+		assertThat("表示用の画像の幅が不正です", display.getWidth(), is(640));
+		assertThat("表示用の画像の高さが不正です", display.getHeight(), is(480));
+	}
+
+	@Test
+	public void testTransformTransparentPng() throws IOException {
+		byte[] png = encode(createImage(100, 50, BufferedImage.TYPE_INT_ARGB), "png");
+		ProcessedImage image = imageTransformer.transform(new ByteArrayInputStream(png));
+		assertThat("透過のある画像がPNGになっていません", image.getExtension(), is("png"));
+		BufferedImage display = decode(image.getDisplayImage());
+		assertThat("小さな画像が拡大されています", display.getWidth(), is(100));
+		assertThat("透過が失われています", display.getColorModel().hasAlpha(), is(true));
+	}
+
+	@Test
+	public void testOrientation() throws IOException {
+		byte[] jpeg = withOrientation(encode(createImage(200, 100, BufferedImage.TYPE_INT_RGB), "jpg"), 6);
+		ProcessedImage image = imageTransformer.transform(new ByteArrayInputStream(jpeg));
+		BufferedImage display = decode(image.getDisplayImage());
+		assertThat("縦横が入れ替わっていません", display.getWidth(), is(100));
+		assertThat("縦横が入れ替わっていません", display.getHeight(), is(200));
+		// 時計回りに90度回転すると、左半分の赤が上半分になります
+		assertThat("時計回りに回転していません", isRed(display.getRGB(50, 20)), is(true));
+		assertThat("時計回りに回転していません", isRed(display.getRGB(50, 180)), is(false));
+	}
+
+	@Test
+	public void testRejectByContent() throws IOException {
+		byte[] gif = "GIF89a not a png or jpeg".getBytes(StandardCharsets.US_ASCII);
+		try {
+			imageTransformer.transform(new ByteArrayInputStream(gif));
+			fail("PNG、JPEG以外の画像が拒否されていません");
+		} catch (ImageRejectedException e) {
+			assertThat("メッセージが不正です", e.getMessage(), is(ImageTransformer.INVALID_FORMAT_MESSAGE));
+		}
+
+		byte[] broken = encode(createImage(100, 50, BufferedImage.TYPE_INT_RGB), "png");
+		for (int i = 16; i < broken.length; i++) {
+			broken[i] = 1;
+		}
+		try {
+			imageTransformer.transform(new ByteArrayInputStream(broken));
+			fail("壊れた画像が拒否されていません");
+		} catch (ImageRejectedException e) {
+			assertThat("メッセージが不正です", e.getMessage(), is(ImageTransformer.UNREADABLE_MESSAGE));
+		}
+	}
+
+	@Test
+	public void testRejectTooManyPixels() throws IOException {
+		byte[] png = encode(createImage(200, 100, BufferedImage.TYPE_INT_RGB), "png");
+		try {
+			new ImageTransformer(10000, 640, 0.85f).transform(new ByteArrayInputStream(png));
+			fail("画素数が上限を超えた画像が拒否されていません");
+		} catch (ImageRejectedException e) {
+			// 期待どおり
+		}
+	}
+}
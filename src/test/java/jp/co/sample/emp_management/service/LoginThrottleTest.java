@@ -0,0 +1,77 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoginThrottleTest {
+
+	private AtomicLong now;
+
+	private LoginThrottle loginThrottle;
+
+	@Before
+	public void setUp() {
+		now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+		loginThrottle = new LoginThrottle(60, 3, 5, now::get);
+	}
+
+	private void advanceSeconds(long seconds) {
+		now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	@Test
+	public void testAccountLimit() {
+		loginThrottle.recordFailure("a@a.com", "10.0.0.1");
+		advanceSeconds(10);
+		loginThrottle.recordFailure("a@a.com", "10.0.0.2");
+		assertThat("上限回数に達する前に拒否されています", loginThrottle.isAllowed("a@a.com", "10.0.0.3"), is(true));
+		advanceSeconds(10);
+		loginThrottle.recordFailure("a@a.com", "10.0.0.3");
+		assertThat("上限回数に達したメールアドレスが拒否されていません", loginThrottle.isAllowed("a@a.com", "10.0.0.4"), is(false));
+		assertThat("別のメールアドレスが拒否されています", loginThrottle.isAllowed("b@b.com", "10.0.0.4"), is(true));
+
+		// 最も古い失敗から60秒経つと上限回数を下回ります
+		advanceSeconds(40);
+		assertThat("一定時間が経過した失敗が数えられています", loginThrottle.isAllowed("a@a.com", "10.0.0.4"), is(true));
+		loginThrottle.recordFailure("a@a.com", "10.0.0.4");
+		assertThat("直近の失敗が数えられていません", loginThrottle.isAllowed("a@a.com", "10.0.0.5"), is(false));
+	}
+
+	@Test
+	public void testAddressLimit() {
+		for (int i = 0; i < 5; i++) {
+			loginThrottle.recordFailure("user" + i + "@sample.com", "10.0.0.1");
+		}
+		assertThat("上限回数に達したIPアドレスが拒否されていません", loginThrottle.isAllowed("new@sample.com", "10.0.0.1"), is(false));
+		assertThat("別のIPアドレスが拒否されています", loginThrottle.isAllowed("new@sample.com", "10.0.0.2"), is(true));
+	}
+
+	@Test
+	public void testRecordSuccess() {
+		for (int i = 0; i < 3; i++) {
+			loginThrottle.recordFailure("a@a.com", "10.0.0.1");
+		}
+		loginThrottle.recordSuccess("a@a.com");
+		assertThat("ログインに成功したメールアドレスの失敗回数が破棄されていません", loginThrottle.isAllowed("a@a.com", "10.0.0.2"), is(true));
+	}
+
+	@Test
+	public void testWithoutMailAddress() {
+		// メールアドレスを送らないリクエストはIPアドレスの失敗回数のみで制限します
+		assertThat("メールアドレスが無い場合に拒否されています", loginThrottle.isAllowed(null, "10.0.0.1"), is(true));
+		for (int i = 0; i < 5; i++) {
+			loginThrottle.recordFailure(null, "10.0.0.1");
+		}
+		assertThat("メールアドレスが無い失敗がIPアドレスの失敗回数に数えられていません", loginThrottle.isAllowed(null, "10.0.0.1"),
+				is(false));
+		assertThat("上限回数に達したIPアドレスが拒否されていません", loginThrottle.isAllowed("a@a.com", "10.0.0.1"), is(false));
+		assertThat("別のIPアドレスが拒否されています", loginThrottle.isAllowed(null, "10.0.0.2"), is(true));
+	}
+}
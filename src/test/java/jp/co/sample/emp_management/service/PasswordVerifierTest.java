@@ -0,0 +1,52 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class PasswordVerifierTest {
+
+	private BCryptPasswordEncoder passwordEncoder;
+
+	private PasswordVerifier passwordVerifier;
+
+	@Before
+	public void setUp() {
+		passwordEncoder = new BCryptPasswordEncoder(5);
+		passwordVerifier = new PasswordVerifier(passwordEncoder, 1, 4, 5000);
+	}
+
+	@After
+	public void tearDown() {
+		passwordVerifier.shutdown();
+	}
+
+	@Test
+	public void testMatches() {
+		String encodedPassword = passwordEncoder.encode("password1");
+		assertThat("正しいパスワードが一致しません", passwordVerifier.matches("password1", encodedPassword), is(true));
+		assertThat("誤ったパスワードが一致しています", passwordVerifier.matches("password2", encodedPassword), is(false));
+		assertThat("存在しない管理者のパスワードが一致しています", passwordVerifier.matches("password1", null), is(false));
+	}
+
+	@Test
+	public void testRehashIfNeeded() {
+		String oldPassword = new BCryptPasswordEncoder(4).encode("password1");
+		String rehashedPassword = passwordVerifier.rehashIfNeeded("password1", oldPassword);
+		assertThat("現在のコストで計算し直されていません", BCryptCostCalibrator.costOf(rehashedPassword), is(5));
+		assertThat("計算し直したハッシュ値でパスワードが一致しません", passwordEncoder.matches("password1", rehashedPassword), is(true));
+
+		assertThat("より大きいコストのハッシュ値が小さいコストで計算し直されています",
+				passwordVerifier.rehashIfNeeded("password1", new BCryptPasswordEncoder(6).encode("password1")),
+				is(nullValue()));
+		assertThat("現在のコストのハッシュ値が計算し直されています",
+				passwordVerifier.rehashIfNeeded("password1", passwordEncoder.encode("password1")), is(nullValue()));
+		assertThat("BCrypt以外の値が計算し直されています", passwordVerifier.rehashIfNeeded("password1", "password1"), is(nullValue()));
+	}
+}
@@ -0,0 +1,38 @@
+package jp.co.sample.emp_management.service;
+
+//Matcher関連メソッドを利用するためのstaticインポート
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class ZipcodeDataConverterTest {
+
+	@Test
+	public void testConvert() throws Exception {
+		String kenAll = "01101,\"060  \",\"0600000\",\"ﾎｯｶｲﾄﾞｳ\",\"ｻｯﾎﾟﾛｼﾁｭｳｵｳｸ\",\"ｲｶﾆｹｲｻｲｶﾞﾅｲﾊﾞｱｲ\",\"北海道\",\"札幌市中央区\",\"以下に掲載がない場合\",0,0,0,0,0,0\r\n"
+				+ "01101,\"064  \",\"0640941\",\"ﾎｯｶｲﾄﾞｳ\",\"ｻｯﾎﾟﾛｼﾁｭｳｵｳｸ\",\"ｱｻﾋｶﾞｵｶ\",\"北海道\",\"札幌市中央区\",\"旭ケ丘\",0,0,1,0,0,0\r\n"
+				+ "01101,\"060  \",\"0600042\",\"ﾎｯｶｲﾄﾞｳ\",\"ｻｯﾎﾟﾛｼﾁｭｳｵｳｸ\",\"ｵｵﾄﾞｵﾘﾆｼ(1-19ﾁｮｳﾒ)\",\"北海道\",\"札幌市中央区\",\"大通西（１～１９丁目）\",1,0,1,0,0,0\r\n"
+				+ "03366,\"02955\",\"0295503\",\"ｲﾜﾃｹﾝ\",\"ﾜｶﾞｸﾞﾝﾆｼﾜｶﾞﾏﾁ\",\"ｱﾅｱｹ22ﾁﾜﾘ\",\"岩手県\",\"和賀郡西和賀町\",\"穴明２２地割、穴明２３地割（\",0,1,0,0,0,0\r\n"
+				+ "03366,\"02955\",\"0295503\",\"ｲﾜﾃｹﾝ\",\"ﾜｶﾞｸﾞﾝﾆｼﾜｶﾞﾏﾁ\",\"ｱﾅｱｹ22ﾁﾜﾘ\",\"岩手県\",\"和賀郡西和賀町\",\"１～３番地）\",0,1,0,0,0,0\r\n"
+				+ "13362,\"10003\",\"1000301\",\"ﾄｳｷｮｳﾄ\",\"ﾄｼﾏﾑﾗ\",\"ﾄｼﾏﾑﾗｲﾁｴﾝ\",\"東京都\",\"利島村\",\"利島村一円\",0,0,0,0,0,0\r\n"
+				+ "13101,\"100  \",\"1006090\",\"ﾄｳｷｮｳﾄ\",\"ﾁﾖﾀﾞｸ\",\"ｶｽﾐｶﾞｾｷｶｽﾐｶﾞｾｷﾋﾞﾙ(ﾁｶｲ･ｶｲｿｳﾌﾒｲ)\",\"東京都\",\"千代田区\",\"霞が関霞が関ビル（地階・階層不明）\",0,0,0,0,0,0\r\n"
+				+ "13101,\"100  \",\"1006090\",\"ﾄｳｷｮｳﾄ\",\"ﾁﾖﾀﾞｸ\",\"ｶｽﾐｶﾞｾｷｶｽﾐｶﾞｾｷﾋﾞﾙ(1ｶｲ)\",\"東京都\",\"千代田区\",\"霞が関霞が関ビル（１階）\",0,0,0,0,0,0\r\n";
+		StringWriter writer = new StringWriter();
+		int count = ZipcodeDataConverter.convert(new StringReader(kenAll), writer);
+
+		assertThat("変換した件数が不正です", count, is(6));
+		String[] lines = writer.toString().split("\n");
+		assertThat("先頭がコメント行ではありません", lines[0].startsWith("#"), is(true));
+		assertThat("「以下に掲載がない場合」が取り除かれていません", lines[1], is("0600000,北海道札幌市中央区"));
+		assertThat("町域がつながっていません", lines[2], is("0640941,北海道札幌市中央区旭ケ丘"));
+		assertThat("括弧内の補足が取り除かれていません", lines[3], is("0600042,北海道札幌市中央区大通西"));
+		assertThat("複数行に分かれた補足の続きが読み込まれています", lines[4], is("0295503,岩手県和賀郡西和賀町穴明２２地割、穴明２３地割"));
+		assertThat("「一円」が取り除かれていません", lines[5], is("1000301,東京都利島村"));
+		assertThat("同じ住所の行がまとめられていません", lines[6], is("1006090,東京都千代田区霞が関霞が関ビル"));
+		assertThat("行数が不正です", lines.length, is(7));
+	}
+}